@@ -2,13 +2,39 @@ package main;
 
 import main.World;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
 public class A2main {
 
 	public static void main(String[] args) {
 
+		if (args.length > 0 && args[0].equals("batch")) {
+			BatchRunner.main(args);
+			return;
+		} else if (args.length > 0 && args[0].equals("replay")) {
+			TraceReplayer.main(args);
+			return;
+		} else if (args.length > 0 && args[0].equals("serve")) {
+			GameServer.main(args);
+			return;
+		} else if (args.length > 0 && args[0].equals("corpus")) {
+			DimacsReader.main(args);
+			return;
+		}
+
 		boolean verbose=false;
-		if (args.length>2 && args[2].equals("verbose") ){
-			verbose=true; //prints agent's view at each step if true
+		Map<String, String> options = new HashMap<>();
+		for (int i = 2; i < args.length; i++) {
+			if (args[i].equals("verbose")) {
+				verbose=true; //prints agent's view at each step if true
+			} else if (args[i].contains("=")) { //options as key=value, e.g. cnf=TSEITIN
+				String[] option = args[i].split("=", 2);
+				options.put(option[0], option[1]);
+			}
 		}
 
 		System.out.println("-------------------------------------------\n");
@@ -21,34 +47,222 @@ public class A2main {
 		printBoard(board);
 		System.out.println("Start!");
 
-		Game game = new Game(world);
-		Player player;
-		switch (args[0]) {
+		Game game;
+		try {
+			game = createGame(world, null, options);
+		} catch (IOException e) {
+			System.err.println(e);
+			return;
+		}
+		try {
+			Player player = createPlayer(args[0], game, verbose, options);
+			if (player != null) {
+				player.play();
+			}
+		} finally {
+			closeGame(game);
+		}
+
+		//templates to print results - copy to appropriate places
+		//System.out.println("\nResult: Agent alive: all solved\n");
+		//System.out.println("\nResult: Agent dead: found mine\n");
+		//System.out.println("\nResult: Agent not terminated\n");
+
+	}
+
+	/**
+	 * Create the game of a world or a board, played on the server given by the option remote=host:port if any,
+	 * see GameServer. With the option resume=file, the game is restored from a checkpoint instead, see Checkpoint.
+	 * @param world world to be played, or null to play the board
+	 * @param board board to be played if the world is null
+	 * @param options game options by name
+	 * @return the game, to be closed by closeGame after it is played
+	 * @throws IOException if the server cannot be reached or refuses the game, or the checkpoint cannot be read
+	 */
+	public static Game createGame(World world, char[][] board, Map<String, String> options) throws IOException {
+		if (options.containsKey("resume")) {
+			return Checkpoint.resume(Paths.get(options.get("resume")), checkpointInterval(options)).getGame();
+		} else if (options.containsKey("remote")) {
+			return RemoteGame.connect(options.get("remote"), world, board);
+		}
+		return world != null ? new Game(world) : new Game(board);
+	}
+
+	/**
+	 * Close the trace, the checkpoint and the connection of a game after it is played.
+	 * @param game game created by createGame
+	 */
+	public static void closeGame(Game game) {
+		try {
+			if (game.getTrace() != null) {
+				game.getTrace().close();
+			}
+		} finally {
+			try {
+				if (game.getCheckpoint() != null) {
+					game.getCheckpoint().close();
+				}
+			} finally {
+				if (game instanceof RemoteGame) {
+					((RemoteGame) game).close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create the agent with the given name.
+	 * Options:
+	 * - sweep: true for P2 to decide the cells of each pass in one sweep of the hint counts, see HintPlanes
+	 * - backend: SatBackend of P3, P4 and P5 (sat4j | sat4j-pb | logicng | portfolio | adaptive | class name),
+	 *   see SatBackends
+	 * - portfolio: backends raced by the portfolio backend, e.g. sat4j,logicng:TSEITIN
+	 * - adaptive: backends the adaptive backend routes the queries to, e.g. sat4j,logicng
+	 * - costModel: file the adaptive backend loads its cost model from and saves it to after each game
+	 * - cnf: CNF transformation of the logicng backend (TSEITIN | PLAISTED_GREENBAUM | FACTORIZATION)
+	 * - queryMillis, queryConflicts, gameMillis, gameConflicts: solver budget of P3, P4 and P5, 0 for unlimited
+	 * - linear: false to decide every cell of P3, P4 and P5 by the satisfiability test, without Gaussian elimination
+	 * - trace: file to record a binary trace of the game to, replayed with: java main.A2main replay [file]
+	 * - enumerate: maximum cells of a component enumerated by P3, P4 and P5 instead of queried, 0 to disable
+	 * - merge: true to give the backend of P3, P4 and P5 a variable for each group of cells in the same hints
+	 *   instead of each cell, true by default for P4 and P5
+	 * - locality: radius around the queried cell of the hint formulas of the first step of a query of P3, P4 and P5,
+	 *   widened until the query is decided, see LocalityBackend; merge is false by default with it
+	 * - regionSize: solve the board in regions of this size in parallel with the encoding of P3, P4 or P5,
+	 *   see RegionPlayer
+	 * - regionThreads: number of workers solving the regions, by default the number of processors
+	 * - band: solve the board in bands of this many full rows from the top down with the encoding of P3, P4 or P5,
+	 *   see StreamingPlayer
+	 * - stream: file the finished rows of the bands are written to
+	 * - checkpoint: file to save the game of P3, P4 and P5 to after their inference passes, resumed with resume=file
+	 * - checkpointEvery: number of inference passes between checkpoints, 1 by default
+	 * - guess: true for P3, P4 and P5 to probe the cell chosen by a Lookahead when none is entailed, instead of giving up
+	 * - guessThreads: number of workers evaluating the guesses, by default the number of processors
+	 * - sample: time budget in milliseconds of the MineSampler estimating the mine probabilities of the components
+	 *   too large to enumerate for the guesses, none by default
+	 * - sampleChains: number of Markov chains of the MineSampler, 4 by default
+	 * - pool: number of models of satisfiable queries kept by P3, P4 and P5 to answer later queries without
+	 *   the backend, see ModelPool, none by default
+	 * - export: directory to write every decided query of P3, P4 and P5 to with the KBU, as DIMACS or OPB,
+	 *   solved again with: java main.A2main corpus [directory]
+	 * @param agent P1 | P2 | P3 | P4 | P5
+	 * @param game game to be played
+	 * @param verbose prints agent's view at each step if true
+	 * @param options agent options by name
+	 * @return the agent or null if the agent is not implemented
+	 */
+	public static Player createPlayer(String agent, Game game, boolean verbose, Map<String, String> options) {
+		Player player = createAgent(agent, game, verbose, options);
+		if (player != null && options.containsKey("trace")) {
+			try {
+				game.setTrace(new TraceRecorder(Paths.get(options.get("trace")), game));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		if (player instanceof P2Player) {
+			((P2Player) player).setSweep(Boolean.parseBoolean(options.getOrDefault("sweep", "false")));
+		}
+		if (player instanceof LogicalPlayer) {
+			((LogicalPlayer) player).setBudget(new SolverBudget(
+					longOption(options, "queryMillis"), longOption(options, "queryConflicts"),
+					longOption(options, "gameMillis"), longOption(options, "gameConflicts")));
+			((LogicalPlayer) player).setLinearTier(Boolean.parseBoolean(options.getOrDefault("linear", "true")));
+			((LogicalPlayer) player).setEnumerationLimit(Integer.parseInt(
+					options.getOrDefault("enumerate", String.valueOf(BitmaskEnumerator.MAX_CELLS))));
+			((LogicalPlayer) player).setMergeVariables(Boolean.parseBoolean(options.getOrDefault("merge",
+					String.valueOf(((LogicalPlayer) player).isMergeVariables() && !options.containsKey("locality")))));
+			if (options.containsKey("pool")) {
+				((LogicalPlayer) player).setModelPool(new ModelPool(Integer.parseInt(options.get("pool"))));
+			}
+			if (Boolean.parseBoolean(options.getOrDefault("guess", "false"))) {
+				int threads = Integer.parseInt(options.getOrDefault("guessThreads",
+						String.valueOf(Runtime.getRuntime().availableProcessors())));
+				Lookahead lookahead = new Lookahead(threads);
+				if (options.containsKey("sample")) {
+					lookahead.setSampler(new MineSampler(Integer.parseInt(options.getOrDefault("sampleChains", "4")),
+							threads, 1), Long.parseLong(options.get("sample")));
+				}
+				((LogicalPlayer) player).setLookahead(lookahead);
+			}
+			if (options.containsKey("export")) {
+				try {
+					((LogicalPlayer) player).setExport(new DimacsWriter(Paths.get(options.get("export"))));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			if (options.containsKey("band")) {
+				player = new StreamingPlayer(game, verbose, (LogicalPlayer) player,
+						() -> SatBackends.create(options.getOrDefault("backend", defaultBackend(agent)), options),
+						Integer.parseInt(options.get("band")),
+						options.containsKey("stream") ? Paths.get(options.get("stream")) : null);
+			} else if (options.containsKey("regionSize")) {
+				player = new RegionPlayer(game, verbose, (LogicalPlayer) player,
+						() -> SatBackends.create(options.getOrDefault("backend", defaultBackend(agent)), options),
+						Integer.parseInt(options.get("regionSize")),
+						Integer.parseInt(options.getOrDefault("regionThreads",
+								String.valueOf(Runtime.getRuntime().availableProcessors()))));
+			}
+		}
+		if (player instanceof LogicalPlayer && options.containsKey("checkpoint") && game.getCheckpoint() == null) {
+			try {
+				game.setCheckpoint(new Checkpoint(Paths.get(options.get("checkpoint")), game,
+						player.getClass().getSimpleName(), checkpointInterval(options)));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return player;
+	}
+
+	private static Player createAgent(String agent, Game game, boolean verbose, Map<String, String> options) {
+		switch (agent) {
 		case "P1":
-			player = new P1Player(game, verbose);
-			player.play();
-			break;
+			return new P1Player(game, verbose);
 		case "P2":
-			player = new P2Player(game, verbose);
-			player.play();
-			break;
+			return new P2Player(game, verbose);
 		case "P3":
-			player = new P3Player(game, verbose);
-			player.play();
-			break;
+			return new P3Player(game, verbose, createBackend(agent, game, options));
 		case "P4":
-			player = new P4Player(game, verbose);
-			player.play();
-			break;
+			return new P4Player(game, verbose, createBackend(agent, game, options));
 		case "P5":
-			//TODO: Part 5
+			return new P5Player(game, verbose, createBackend(agent, game, options));
 		}
+		return null;
+	}
 
-		//templates to print results - copy to appropriate places
-		//System.out.println("\nResult: Agent alive: all solved\n");
-		//System.out.println("\nResult: Agent dead: found mine\n");
-		//System.out.println("\nResult: Agent not terminated\n");
+	/**
+	 * @return backend of the agent, solving each query near its cell first if the locality option is given
+	 */
+	private static SatBackend createBackend(String agent, Game game, Map<String, String> options) {
+		SatBackend backend = SatBackends.create(options.getOrDefault("backend", defaultBackend(agent)), options);
+		if (options.containsKey("locality")) {
+			backend = new LocalityBackend(backend, Integer.parseInt(options.get("locality")), game.getSize());
+		}
+		return backend;
+	}
+
+	/**
+	 * @return name of the backend of the agent if no backend option is given
+	 */
+	private static String defaultBackend(String agent) {
+		switch (agent) {
+		case "P3":
+			return "logicng";
+		case "P5":
+			return "sat4j-pb";
+		default:
+			return "sat4j";
+		}
+	}
+
+	private static int checkpointInterval(Map<String, String> options) {
+		return Integer.parseInt(options.getOrDefault("checkpointEvery", "1"));
+	}
 
+	private static long longOption(Map<String, String> options, String name) {
+		return Long.parseLong(options.getOrDefault(name, "0"));
 	}
 
 	//prints the board in the required format - PLEASE DO NOT MODIFY
@@ -0,0 +1,192 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.function.BooleanSupplier;
+
+/**
+ * AdaptiveBackend routes every query to the member predicted to answer it the fastest by a CostModel,
+ * and teaches the model the latency observed. Like the members of a PortfolioBackend, each member keeps
+ * its own copy of the constraints, but a query is solved by one member only. The constraints are given to
+ * a member when it is routed a query, so a member that is never chosen costs nothing, and the latency
+ * of a query includes the constraints its member had to catch up on.
+ *
+ * The features of a query are given by the caller with describeQuery before solve, see LogicalPlayer.
+ * A LogicalPlayer with an adaptive backend also asks it whether to enumerate a frontier component
+ * or to leave its cells to the queries, see preferEnumeration. The engines are then compared
+ * by their latency per cell decided, an enumeration deciding every cell of its component at once.
+ */
+public class AdaptiveBackend implements SatBackend {
+
+    /**
+     * Name of the enumeration of a frontier component in the cost model
+     */
+    public static final String ENUMERATION = "enumeration";
+
+    /**
+     * Members of the adaptive backend if the adaptive option is not given
+     */
+    public static final String DEFAULT_MEMBERS = "sat4j,logicng";
+
+    private final CostModel model;
+    private final SatBackend[] members;
+    private final String[] names;
+
+    /**
+     * Names of the members and of the enumeration
+     */
+    private final String[] engines;
+
+    /**
+     * Hint formulas added since the last reset, and the number of them each member has
+     */
+    private final ArrayList<int[][]> hintFormulas = new ArrayList<>();
+    private final ArrayList<NormalForm> forms = new ArrayList<>();
+    private final int[] synced;
+
+    /**
+     * Clauses and cardinality constraints of the hint formulas, counted as the solver features of the queries
+     */
+    private long constraints = 0;
+
+    private double[] features = CostModel.features(0, 0, 0);
+    private int last = 0;
+
+    /**
+     * @param model model of the latencies of the members, shared with other backends
+     * @param members backends the queries are routed to, with different names
+     */
+    public AdaptiveBackend(CostModel model, SatBackend... members) {
+        if (members.length == 0) {
+            throw new IllegalArgumentException("An adaptive backend needs a backend");
+        }
+        this.model = model;
+        this.members = members;
+        names = new String[members.length];
+        synced = new int[members.length];
+        engines = new String[members.length + 1];
+        for (int i = 0; i < members.length; i++) {
+            names[i] = members[i].getName();
+            engines[i] = names[i];
+            for (int j = 0; j < i; j++) {
+                if (names[j].equals(names[i])) {
+                    throw new IllegalArgumentException("Backend " + names[i] + " is twice in the adaptive backend");
+                }
+            }
+        }
+        engines[members.length] = ENUMERATION;
+    }
+
+    @Override
+    public void addHintFormula(int[][] hintFormula, NormalForm form) {
+        hintFormulas.add(hintFormula);
+        forms.add(form);
+        constraints += form == NormalForm.CARDINALITY ? 1 : hintFormula.length;
+    }
+
+    @Override
+    public void describeQuery(int componentSize, int equationCount) {
+        features = CostModel.features(componentSize, equationCount, constraints);
+    }
+
+    @Override
+    public Result solve(int[] assumptions, long millis, long maxConflicts) {
+        return solve(assumptions, millis, maxConflicts, () -> false);
+    }
+
+    @Override
+    public Result solve(int[] assumptions, long millis, long maxConflicts, BooleanSupplier cancelled) {
+        last = model.choose(names, features);
+        long start = System.nanoTime();
+        sync(last);
+        Result result = members[last].solve(assumptions, millis, maxConflicts, cancelled);
+        model.observe(names[last], features, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * @param componentSize number of cells of the component
+     * @param equationCount number of equations of the component
+     * @return whether the component is predicted to be decided faster by enumerating it than by the queries
+     */
+    public boolean preferEnumeration(int componentSize, int equationCount) {
+        double[] component = CostModel.features(componentSize, equationCount, constraints);
+        return model.choose(engines, component) == members.length;
+    }
+
+    /**
+     * Teach the model the latency of the enumeration of a component.
+     * @param componentSize number of cells of the component
+     * @param equationCount number of equations of the component
+     * @param nanos latency of the enumeration
+     */
+    public void observeEnumeration(int componentSize, int equationCount, long nanos) {
+        model.observe(ENUMERATION, CostModel.features(componentSize, equationCount, constraints),
+                nanos / Math.max(1, componentSize));
+    }
+
+    /**
+     * Give the member the hint formulas it does not have yet.
+     */
+    private void sync(int member) {
+        for (int i = synced[member]; i < hintFormulas.size(); i++) {
+            members[member].addHintFormula(hintFormulas.get(i), forms.get(i));
+        }
+        synced[member] = hintFormulas.size();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < members.length; i++) {
+            if (synced[i] > 0) {
+                members[i].reset();
+                synced[i] = 0;
+            }
+        }
+        hintFormulas.clear();
+        forms.clear();
+        constraints = 0;
+    }
+
+    @Override
+    public long getLastConflicts() {
+        return members[last].getLastConflicts();
+    }
+
+    /**
+     * @return model of the member that answered the last call to solve, null once hint formulas are added
+     */
+    @Override
+    public int[] getModel() {
+        return synced[last] == hintFormulas.size() ? members[last].getModel() : null;
+    }
+
+    /**
+     * @return clauses given to the member of the last query, once it has every hint formula
+     */
+    @Override
+    public long getClauseCount() {
+        sync(last);
+        return members[last].getClauseCount();
+    }
+
+    @Override
+    public String getName() {
+        StringBuilder sb = new StringBuilder("adaptive");
+        for (int i = 0; i < members.length; i++) {
+            sb.append(i == 0 ? "(" : ",").append(names[i]);
+        }
+        return sb.append(")").toString();
+    }
+
+    /**
+     * @return name of the member that answered the last call to solve
+     */
+    @Override
+    public String getLastEngine() {
+        return names[last];
+    }
+
+    public CostModel getCostModel() {
+        return model;
+    }
+}
@@ -0,0 +1,270 @@
+package main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * BatchRunner keeps the JVM resident and plays a stream of games, one JSON object per line,
+ * so that JVM startup and JIT warmup are paid once rather than per game.
+ * Games are played concurrently and each result is written as a JSON line as soon as the game ends.
+ *
+ * Usage: java main.A2main batch [threads=N] [port=P]
+ * Requests are read from stdin, or from every connection to localhost:P if a port is given.
+ *
+ * Request:
+ * --- {"id": 1, "agent": "P4", "world": "LARGE1"}
+ * --- {"id": 2, "agent": "P3", "board": ["0bb", "b3b", "mmm"], "options": {"cnf": "TSEITIN"}}
+ * Result:
+ * --- {"id":1,"agent":"P4","world":"LARGE1","result":"won","safeRemaining":0,"coveredRemaining":12,
+ *      "millis":3,"queries":120,"conflicts":4,"exhaustedQueries":0,"linearDeductions":35,"enumeratedDeductions":8,
+ *      "gameBudgetExhausted":false,"engineQueries":{"sat4j":{"15":3,"127":2}},"map":["0111*"...]}
+ *      engineQueries counts the queries answered by each engine by the largest component size of their size class,
+ *      roundTrips is added for a game played on a GameServer with the option remote
+ * --- {"id":3,"error":"..."} if the request cannot be played
+ */
+public class BatchRunner implements AutoCloseable {
+
+    private final ExecutorService pool;
+
+    /**
+     * Bounds the number of requests read ahead of the results written
+     */
+    private final int maxPending;
+
+    public BatchRunner(int threads) {
+        pool = Executors.newFixedThreadPool(threads);
+        maxPending = threads * 4;
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int port = -1;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("threads=")) {
+                threads = Integer.parseInt(args[i].substring("threads=".length()));
+            } else if (args[i].startsWith("port=")) {
+                port = Integer.parseInt(args[i].substring("port=".length()));
+            }
+        }
+
+        // the agents print their boards to System.out, results are written to the original stdout instead
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        try (BatchRunner runner = new BatchRunner(threads)) {
+            if (port < 0) {
+                runner.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                        new PrintWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8)));
+            } else {
+                runner.listen(port);
+            }
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    /**
+     * Stop the game threads once the submitted games have ended.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Serve every connection to the port on localhost until the process is stopped.
+     * @param port local port to listen to
+     * @throws IOException if the port cannot be bound
+     */
+    public void listen(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            while (true) {
+                Socket socket = server.accept();
+                Thread connection = new Thread(() -> {
+                    try (Socket s = socket) {
+                        serve(new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8)),
+                                new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8)));
+                    } catch (IOException e) {
+                        System.err.println(e);
+                    }
+                });
+                connection.setDaemon(true);
+                connection.start();
+            }
+        }
+    }
+
+    /**
+     * Play every request read from in and write the results to out in the order the games end.
+     * Returns after the last result of the stream is written.
+     * @param in JSON line requests
+     * @param out JSON line results
+     * @throws IOException if in cannot be read
+     */
+    public void serve(BufferedReader in, PrintWriter out) throws IOException {
+        Semaphore pending = new Semaphore(maxPending);
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            pending.acquireUninterruptibly();
+            String request = line;
+            pool.execute(() -> {
+                try {
+                    String result = play(request);
+                    synchronized (out) {
+                        out.println(result);
+                        out.flush();
+                    }
+                } finally {
+                    pending.release();
+                }
+            });
+        }
+        pending.acquireUninterruptibly(maxPending); // wait for the remaining games
+    }
+
+    /**
+     * Play a single request.
+     * @param request JSON object with agent, world or board, and options
+     * @return JSON object with the result of the game or the error, also if the game ran out of stack or memory
+     */
+    public static String play(String request) {
+        Object id = null;
+        try {
+            Map<String, Object> fields = Json.parseObject(request);
+            id = fields.get("id");
+            String agent = String.valueOf(fields.get("agent"));
+
+            Map<String, String> options = new HashMap<>();
+            if (fields.get("options") instanceof Map) {
+                for (Map.Entry<?, ?> option : ((Map<?, ?>) fields.get("options")).entrySet()) {
+                    options.put(String.valueOf(option.getKey()), String.valueOf(option.getValue()));
+                }
+            }
+
+            Game game;
+            String worldName = null;
+            if (fields.get("world") instanceof String) {
+                worldName = (String) fields.get("world");
+                game = A2main.createGame(World.valueOf(worldName), null, options);
+            } else if (fields.get("board") instanceof List) {
+                List<?> rows = (List<?>) fields.get("board");
+                char[][] board = new char[rows.size()][];
+                for (int i = 0; i < board.length; i++) {
+                    board[i] = String.valueOf(rows.get(i)).toCharArray();
+                }
+                game = A2main.createGame(null, board, options);
+            } else {
+                throw new IllegalArgumentException("Expected world or board");
+            }
+
+            Player player;
+            long millis;
+            try {
+                player = A2main.createPlayer(agent, game, false, options);
+                if (player == null) {
+                    throw new IllegalArgumentException("Unknown agent " + agent);
+                }
+                long start = System.nanoTime();
+                player.play();
+                millis = (System.nanoTime() - start) / 1000000;
+            } finally {
+                A2main.closeGame(game);
+            }
+
+            StringBuilder sb = new StringBuilder("{");
+            sb.append("\"id\":").append(toJson(id));
+            sb.append(",\"agent\":").append(Json.quote(agent));
+            if (worldName != null) {
+                sb.append(",\"world\":").append(Json.quote(worldName));
+            }
+            sb.append(",\"result\":").append(Json.quote(resultOf(game)));
+            sb.append(",\"safeRemaining\":").append(game.getSafeCount());
+            sb.append(",\"coveredRemaining\":").append(game.getCoveredCount());
+            sb.append(",\"millis\":").append(millis);
+            if (game instanceof RemoteGame) {
+                sb.append(",\"roundTrips\":").append(((RemoteGame) game).getRoundTrips());
+            }
+            SolverStats stats = player instanceof LogicalPlayer ? ((LogicalPlayer) player).getStats()
+                    : player instanceof RegionPlayer ? ((RegionPlayer) player).getStats() : null;
+            if (stats != null) {
+                sb.append(",\"queries\":").append(stats.getQueries());
+                sb.append(",\"conflicts\":").append(stats.getConflicts());
+                sb.append(",\"exhaustedQueries\":").append(stats.getExhaustedQueries());
+                sb.append(",\"linearDeductions\":").append(stats.getLinearDeductions());
+                sb.append(",\"enumeratedDeductions\":").append(stats.getEnumeratedDeductions());
+                sb.append(",\"mergedDeductions\":").append(stats.getMergedDeductions());
+                sb.append(",\"guesses\":").append(stats.getGuesses());
+                sb.append(",\"pooledRefutations\":").append(stats.getPooledRefutations());
+                sb.append(",\"gameBudgetExhausted\":").append(stats.isGameExhausted());
+                sb.append(",\"engineQueries\":{");
+                String separator = "";
+                for (Map.Entry<String, long[]> engine : stats.getEngineQueries().entrySet()) {
+                    sb.append(separator).append(Json.quote(engine.getKey())).append(":{");
+                    String sizeSeparator = "";
+                    long[] counts = engine.getValue();
+                    for (int sizeClass = 0; sizeClass < counts.length; sizeClass++) {
+                        if (counts[sizeClass] > 0) {
+                            sb.append(sizeSeparator).append(Json.quote(String.valueOf(SolverStats.sizeClassLimit(sizeClass))))
+                                    .append(":").append(counts[sizeClass]);
+                            sizeSeparator = ",";
+                        }
+                    }
+                    sb.append("}");
+                    separator = ",";
+                }
+                sb.append("}");
+            }
+            sb.append(",\"map\":[");
+            char[][] view = player.getView();
+            for (int i = 0; i < view.length; i++) {
+                sb.append(i == 0 ? "" : ",").append(Json.quote(new String(view[i])));
+            }
+            return sb.append("]}").toString();
+        } catch (IOException | RuntimeException | StackOverflowError | OutOfMemoryError e) {
+            // a request too large to play is answered with its error like any other, the other games go on
+            return "{\"id\":" + toJson(id) + ",\"error\":" + Json.quote(String.valueOf(e)) + "}";
+        }
+    }
+
+    private static String resultOf(Game game) {
+        if (game.hasWon()) {
+            return "won";
+        } else if (game.hasLost()) {
+            return "lost";
+        } else if (game.hasEnded()) {
+            return "not terminated";
+        }
+        return "unfinished";
+    }
+
+    /**
+     * @param id id of the request as parsed
+     * @return id written back as JSON, whole numbers without a fraction
+     */
+    private static String toJson(Object id) {
+        if (id instanceof Double && (Double) id == Math.rint((Double) id)) {
+            return String.valueOf(((Double) id).longValue());
+        } else if (id instanceof String) {
+            return Json.quote((String) id);
+        }
+        return String.valueOf(id);
+    }
+}
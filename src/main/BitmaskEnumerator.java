@@ -0,0 +1,348 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * BitmaskEnumerator decides the cells of small frontier components by enumerating every consistent assignment.
+ * The equations { literals, { k } } are split into components of cells connected by shared equations.
+ * In a component of at most 64 cells each cell is a bit of a long:
+ * --- mask of an equation = bits of its cells
+ * --- mines = bits of the cells assigned as mines so far
+ * A partial assignment is pruned as soon as an equation has more than k mines, or fewer than k mines
+ * even if all of its unassigned cells were mines.
+ *
+ * Each enumerated component yields the number of models and, for every cell, the number of models
+ * where it is a mine. A cell that is a mine in no model is safe, and in every model is a mine.
+ * Otherwise the cell is undetermined, as is a cell in no equation.
+ * Components are enumerated when one of their cells is first queried.
+ */
+public class BitmaskEnumerator {
+
+    /**
+     * Maximum number of cells of a component, the bits of a long
+     */
+    public static final int MAX_CELLS = 64;
+
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Value of a cell that is a mine in some models and safe in others
+     */
+    public static final int UNDETERMINED = 2;
+
+    /**
+     * Cells connected by equations, with the equations over cell indices
+     */
+    private static final class Component {
+        final int[] literals;
+        final long[] masks;
+        final int[] ks;
+        final int equationCount;
+        boolean enumerated = false;
+        long models = -1; // -1 if too large or the enumeration ran out of nodes
+        long[] mineCounts;
+
+        Component(int[] literals, long[] masks, int[] ks, int equationCount) {
+            this.literals = literals;
+            this.masks = masks;
+            this.ks = ks;
+            this.equationCount = equationCount;
+        }
+
+        int indexOf(int literal) {
+            for (int i = 0; i < literals.length; i++) {
+                if (literals[i] == literal) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private final HashMap<Integer, Component> components = new HashMap<>();
+    private final IntUnaryOperator known;
+    private final long maxNodes;
+
+    /**
+     * Split the equations into components. Components larger than the limit are kept but never enumerated.
+     * @param equations equations { literals, { k } } that exactly k of the literals are true
+     * @param known value of a literal already entailed (0 or 1), or UNKNOWN, substituted into the equations
+     * @param limit maximum number of cells of an enumerated component, at most MAX_CELLS
+     * @param maxNodes maximum number of partial assignments visited for a component
+     */
+    public BitmaskEnumerator(int[][][] equations, IntUnaryOperator known, int limit, long maxNodes) {
+        this.known = known;
+        this.maxNodes = maxNodes;
+        limit = Math.min(limit, MAX_CELLS);
+
+        // substitute the known values
+        ArrayList<int[]> literalsOf = new ArrayList<>();
+        ArrayList<Integer> kOf = new ArrayList<>();
+        for (int[][] equation : equations) {
+            int k = equation[1][0];
+            int count = 0;
+            int[] unknown = new int[equation[0].length];
+            for (int literal : equation[0]) {
+                int value = known.applyAsInt(literal);
+                if (value == UNKNOWN) {
+                    unknown[count++] = literal;
+                } else {
+                    k -= value;
+                }
+            }
+            if (count > 0) {
+                literalsOf.add(Arrays.copyOf(unknown, count));
+                kOf.add(k);
+            }
+        }
+
+        // union-find over the literals
+        HashMap<Integer, Integer> parent = new HashMap<>();
+        for (int[] literals : literalsOf) {
+            for (int literal : literals) {
+                parent.putIfAbsent(literal, literal);
+                union(parent, literals[0], literal);
+            }
+        }
+
+        // group the equations and their cells by root, cells in the order they appear
+        LinkedHashMap<Integer, ArrayList<Integer>> equationsOf = new LinkedHashMap<>();
+        LinkedHashMap<Integer, LinkedHashMap<Integer, Integer>> cellsOf = new LinkedHashMap<>();
+        for (int e = 0; e < literalsOf.size(); e++) {
+            int root = find(parent, literalsOf.get(e)[0]);
+            equationsOf.computeIfAbsent(root, r -> new ArrayList<>()).add(e);
+            LinkedHashMap<Integer, Integer> cells = cellsOf.computeIfAbsent(root, r -> new LinkedHashMap<>());
+            for (int literal : literalsOf.get(e)) {
+                cells.putIfAbsent(literal, cells.size());
+            }
+        }
+
+        for (int root : equationsOf.keySet()) {
+            LinkedHashMap<Integer, Integer> cells = cellsOf.get(root);
+            int[] literals = cells.keySet().stream().mapToInt(Integer::intValue).toArray();
+            ArrayList<Integer> members = equationsOf.get(root);
+            Component component;
+            if (literals.length > limit) {
+                component = new Component(literals, null, null, members.size());
+                component.enumerated = true;
+            } else {
+                long[] masks = new long[members.size()];
+                int[] ks = new int[members.size()];
+                for (int i = 0; i < masks.length; i++) {
+                    for (int literal : literalsOf.get(members.get(i))) {
+                        masks[i] |= 1L << cells.get(literal);
+                    }
+                    ks[i] = kOf.get(members.get(i));
+                }
+                component = new Component(literals, masks, ks, members.size());
+            }
+            for (int literal : literals) {
+                components.put(literal, component);
+            }
+        }
+    }
+
+    /**
+     * @param literal variable of a cell
+     * @return 1 if the cell is a mine in every model of its component, 0 if in none, UNDETERMINED if in some,
+     * UNKNOWN if its component is not enumerated
+     */
+    public int valueOf(int literal) {
+        int value = known.applyAsInt(literal);
+        if (value != UNKNOWN) {
+            return value;
+        }
+        Component component = enumerated(literal);
+        if (component == null) {
+            return UNDETERMINED;
+        } else if (component.models <= 0) {
+            return UNKNOWN;
+        }
+        long mines = component.mineCounts[component.indexOf(literal)];
+        if (mines == 0) {
+            return 0;
+        } else if (mines == component.models) {
+            return 1;
+        }
+        return UNDETERMINED;
+    }
+
+    /**
+     * @param literal variable of a cell
+     * @return number of models of the cell's component, -1 if it is not enumerated
+     */
+    public long getModelCount(int literal) {
+        Component component = enumerated(literal);
+        return component == null ? -1 : component.models;
+    }
+
+    /**
+     * @param literal variable of a cell
+     * @return number of models of the cell's component where the cell is a mine, -1 if it is not enumerated
+     */
+    public long getMineCount(int literal) {
+        Component component = enumerated(literal);
+        if (component == null || component.models < 0) {
+            return -1;
+        }
+        return component.mineCounts[component.indexOf(literal)];
+    }
+
+    /**
+     * @param literal variable of a cell
+     * @return number of cells of the cell's component, 0 if the cell is in no equation
+     */
+    public int getComponentSize(int literal) {
+        Component component = components.get(literal);
+        return component == null ? 0 : component.literals.length;
+    }
+
+    /**
+     * @param literal variable of a cell
+     * @return number of equations of the cell's component, 0 if the cell is in no equation
+     */
+    public int getEquationCount(int literal) {
+        Component component = components.get(literal);
+        return component == null ? 0 : component.equationCount;
+    }
+
+    /**
+     * @param literal variable of a cell
+     * @return whether deciding the cell would enumerate its component, which is small enough and not enumerated yet
+     */
+    public boolean isPending(int literal) {
+        Component component = components.get(literal);
+        return component != null && !component.enumerated;
+    }
+
+    private Component enumerated(int literal) {
+        Component component = components.get(literal);
+        if (component != null && !component.enumerated) {
+            component.mineCounts = new long[component.literals.length];
+            component.models = enumerate(component.masks, component.ks, component.literals.length, maxNodes,
+                    component.mineCounts);
+            component.enumerated = true;
+        }
+        return component;
+    }
+
+    /**
+     * Enumerate the assignments of n cells where every equation i has exactly ks[i] mines among masks[i].
+     * @param masks cells of each equation as bits
+     * @param ks number of mines of each equation
+     * @param n number of cells, at most MAX_CELLS
+     * @param maxNodes maximum number of partial assignments visited
+     * @param mineCounts filled with the number of models where each cell is a mine
+     * @return number of models, or -1 if more than maxNodes partial assignments are visited
+     */
+    public static long enumerate(long[] masks, int[] ks, int n, long maxNodes, long[] mineCounts) {
+        // equations to check when each cell is assigned
+        ArrayList<ArrayList<Integer>> touching = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            touching.add(new ArrayList<>());
+        }
+        for (int e = 0; e < masks.length; e++) {
+            for (int i = 0; i < n; i++) {
+                if ((masks[e] >>> i & 1) != 0) {
+                    touching.get(i).add(e);
+                }
+            }
+        }
+        int[][] equationsOf = new int[n][];
+        for (int i = 0; i < n; i++) {
+            equationsOf[i] = touching.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        Search search = new Search(masks, ks, n, equationsOf, maxNodes, mineCounts);
+        return search.run() ? search.models : -1;
+    }
+
+    private static final class Search {
+        final long[] masks;
+        final int[] ks;
+        final int n;
+        final int[][] equationsOf;
+        final long maxNodes;
+        final long[] mineCounts;
+        long models = 0;
+        long nodes = 0;
+
+        Search(long[] masks, int[] ks, int n, int[][] equationsOf, long maxNodes, long[] mineCounts) {
+            this.masks = masks;
+            this.ks = ks;
+            this.n = n;
+            this.equationsOf = equationsOf;
+            this.maxNodes = maxNodes;
+            this.mineCounts = mineCounts;
+        }
+
+        boolean run() {
+            for (int e = 0; e < masks.length; e++) {
+                if (ks[e] < 0 || ks[e] > Long.bitCount(masks[e])) {
+                    return true; // no model
+                }
+            }
+            return assign(0, 0L);
+        }
+
+        /**
+         * Assign cell i as safe then as a mine, cells below i are assigned in mines.
+         * @return false if the enumeration ran out of nodes
+         */
+        private boolean assign(int i, long mines) {
+            if (i == n) {
+                models++;
+                for (long m = mines; m != 0; m &= m - 1) {
+                    mineCounts[Long.numberOfTrailingZeros(m)]++;
+                }
+                return true;
+            }
+            if (++nodes > maxNodes) {
+                return false;
+            }
+            long assigned = i == MAX_CELLS - 1 ? -1L : (1L << (i + 1)) - 1;
+            for (long value = 0; value <= 1; value++) {
+                long next = mines | value << i;
+                if (consistent(i, next, assigned) && !assign(i + 1, next)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean consistent(int i, long mines, long assigned) {
+            for (int e : equationsOf[i]) {
+                int count = Long.bitCount(mines & masks[e]);
+                int open = Long.bitCount(masks[e] & ~assigned);
+                if (count > ks[e] || count + open < ks[e]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static int find(HashMap<Integer, Integer> parent, int literal) {
+        int root = literal;
+        while (parent.get(root) != root) {
+            root = parent.get(root);
+        }
+        while (parent.get(literal) != root) { // path compression
+            int next = parent.get(literal);
+            parent.put(literal, root);
+            literal = next;
+        }
+        return root;
+    }
+
+    private static void union(HashMap<Integer, Integer> parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent.put(rootB, rootA);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package main;
+
+/**
+ * Thrown by a satisfiability test that ran out of its SolverBudget before deciding the query.
+ */
+public class BudgetExhaustedException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public BudgetExhaustedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,373 @@
+package main;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoint saves the game of a LogicalPlayer to a file after its inference passes, so that a game whose process
+ * dies is resumed from its last checkpoint rather than from the start.
+ *
+ * The file is only appended to: each record holds the counters of the game, the cells of the view changed since
+ * the previous record and the knowledge steps added since, in the primitive form of the KBU.
+ * A step is an equation with its hint formula, or a cell fixed in the linear equations.
+ * Resuming replays the records onto a new game and the steps onto the player, whose play() then carries on
+ * with the next inference pass. The counts of SolverStats and the solver budget start again from 0.
+ *
+ * Format (big-endian):
+ * --- header: MAGIC (int), VERSION (short), agent (UTF), board size n (int), n * n cells of the board (byte each)
+ * --- record: length (int) of the body, body, CRC32 (int) of the body
+ * Body:
+ * --- safe count (int), covered count (int)
+ * --- count (int) of cells changed, count * (x (short), y (short), character (byte) of the view)
+ * --- count (int) of steps, each a type (byte) and:
+ *     1. EQUATION: k (int), literals (int count, int each), hint formula (int clause count, each clause as an int
+ *        count and an int for each literal)
+ *     2. FIX: literal (int), value (byte)
+ * A record cut short by the death of the process fails its length or its CRC, and is dropped on resume.
+ * Records are not forced to the disk, so a checkpoint survives the process but not the machine.
+ */
+public class Checkpoint implements AutoCloseable {
+
+    public static final int MAGIC = 0x53574350; // SWCP
+    public static final short VERSION = 1;
+
+    public static final byte EQUATION = 1;
+    public static final byte FIX = 2;
+
+    /**
+     * A knowledge step of a LogicalPlayer: an equation with its hint formula, or a cell fixed if the formula is null
+     */
+    static final class Step {
+        final int[][] hintFormula;
+        final int[] literals;
+        final int value;
+
+        /**
+         * @param hintFormula hint formula of the equation as added to the KBU, null for a fixed cell
+         * @param literals cells of the equation, or the fixed cell
+         * @param value mines of the equation, or value of the fixed cell
+         */
+        Step(int[][] hintFormula, int[] literals, int value) {
+            this.hintFormula = hintFormula;
+            this.literals = literals;
+            this.value = value;
+        }
+    }
+
+    private final FileChannel channel;
+    private final Game game;
+    private final String agent;
+    private final int interval;
+    private int passes = 0;
+
+    /**
+     * View and steps as of the last record written
+     */
+    private final char[][] writtenView;
+    private int writtenSteps;
+
+    /**
+     * Steps read from the file, to be replayed onto the player, null once replayed or if the game is new
+     */
+    private List<Step> resumedSteps = null;
+
+    /**
+     * Create the checkpoint file of a new game and write the header.
+     * @param path file to write, replaced if it exists
+     * @param game game to be saved, before any move is made
+     * @param agent name of the player class, only a player of the same class can resume the game
+     * @param interval number of inference passes between records
+     * @throws IOException if the file cannot be created
+     */
+    public Checkpoint(Path path, Game game, String agent, int interval) throws IOException {
+        this(create(path, game, interval), game, agent, interval);
+        char[][] map = game.getMap();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC);
+        header.writeShort(VERSION);
+        header.writeUTF(agent);
+        header.writeInt(map.length);
+        for (char[] row : map) {
+            for (char c : row) {
+                header.writeByte(c);
+            }
+        }
+        write(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * Open the file of a new checkpoint, once the arguments are known to be valid.
+     * @throws UnsupportedOperationException if the board of the game is not known, e.g. a RemoteGame
+     */
+    private static FileChannel create(Path path, Game game, int interval) throws IOException {
+        checkInterval(interval);
+        if (game.getMap() == null) {
+            throw new UnsupportedOperationException("The board of the game is not known");
+        }
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void checkInterval(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be at least 1, got " + interval);
+        }
+    }
+
+    private Checkpoint(FileChannel channel, Game game, String agent, int interval) {
+        this.channel = channel;
+        this.game = game;
+        this.agent = agent;
+        this.interval = interval;
+        char[][] view = game.getStartMap();
+        writtenView = new char[view.length][];
+        for (int y = 0; y < view.length; y++) {
+            writtenView[y] = view[y].clone();
+        }
+    }
+
+    /**
+     * Read a checkpoint file and restore its game as of the last complete record.
+     * The file is cut after that record and the checkpoints of the resumed game are appended to it.
+     * The checkpoint is set on the game, and play() of the player replays its steps before the next pass.
+     * @param path file written by a Checkpoint
+     * @param interval number of inference passes between records
+     * @return the checkpoint of the restored game, see getGame
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public static Checkpoint resume(Path path, int interval) throws IOException {
+        checkInterval(interval);
+        byte[] bytes = Files.readAllBytes(path);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        String agent;
+        char[][] map;
+        try {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not a checkpoint: " + path);
+            }
+            agent = in.readUTF();
+            map = new char[in.readInt()][];
+            for (int y = 0; y < map.length; y++) {
+                map[y] = new char[map.length];
+                for (int x = 0; x < map.length; x++) {
+                    map[y][x] = (char) in.readByte();
+                }
+            }
+        } catch (IOException | NegativeArraySizeException e) {
+            throw new IOException("Not a checkpoint: " + path, e);
+        }
+
+        Game game = new Game(map);
+        List<Step> steps = new ArrayList<>();
+        int end = bytes.length - in.available();
+        int records = 0;
+        while (true) {
+            byte[] body = readRecord(in);
+            if (body == null) {
+                break;
+            }
+            readBody(body, game, steps);
+            end = bytes.length - in.available();
+            records++;
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        channel.truncate(end);
+        channel.position(end);
+        Checkpoint checkpoint = new Checkpoint(channel, game, agent, interval);
+        checkpoint.writtenSteps = steps.size();
+        checkpoint.resumedSteps = records > 0 ? steps : null; // without a record, the game starts again
+        game.setCheckpoint(checkpoint);
+        return checkpoint;
+    }
+
+    /**
+     * @return body of the next record, or null if there is none or it is incomplete
+     */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        if (in.available() < Integer.BYTES) {
+            return null;
+        }
+        int length = in.readInt();
+        if (length < 0 || in.available() < length + Integer.BYTES) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return in.readInt() == (int) crc.getValue() ? body : null;
+    }
+
+    /**
+     * Apply the counters and the view of a record to the game, and keep its steps.
+     */
+    private static void readBody(byte[] body, Game game, List<Step> steps) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int safeCount = in.readInt();
+        int coveredCount = in.readInt();
+        for (int i = in.readInt(); i > 0; i--) {
+            game.updateStartMap(in.readShort(), in.readShort(), (char) in.readByte());
+        }
+        game.restoreCounters(safeCount, coveredCount);
+        for (int i = in.readInt(); i > 0; i--) {
+            byte type = in.readByte();
+            if (type == EQUATION) {
+                int k = in.readInt();
+                int[] literals = readInts(in);
+                int[][] hintFormula = new int[in.readInt()][];
+                for (int c = 0; c < hintFormula.length; c++) {
+                    hintFormula[c] = readInts(in);
+                }
+                steps.add(new Step(hintFormula, literals, k));
+            } else if (type == FIX) {
+                steps.add(new Step(null, new int[] {in.readInt()}, in.readByte()));
+            } else {
+                throw new IOException("Unknown step " + type);
+            }
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * @return the game being saved, restored from the file if it was resumed
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * @return true if the game was resumed from a record and its steps are not yet replayed onto a player
+     */
+    public boolean isResumed() {
+        return resumedSteps != null;
+    }
+
+    /**
+     * Hand the steps read from the file to the player that resumes the game.
+     * @param player player of the same class as the player that wrote the checkpoint
+     * @return the steps in the order they were taken
+     * @throws IllegalArgumentException if the checkpoint was written by a player of another class
+     */
+    List<Step> takeResumedSteps(LogicalPlayer player) {
+        if (!player.getClass().getSimpleName().equals(agent)) {
+            throw new IllegalArgumentException("Checkpoint of " + agent + " cannot be resumed by "
+                    + player.getClass().getSimpleName());
+        }
+        List<Step> steps = resumedSteps;
+        resumedSteps = null;
+        return steps;
+    }
+
+    /**
+     * Count an inference pass of the player and write a record every interval passes.
+     * @param steps every knowledge step of the player since the start of the game
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    void passEnded(List<Step> steps) {
+        if (++passes % interval == 0) {
+            write(steps);
+        }
+    }
+
+    /**
+     * Append a record with the changes to the game and the steps since the previous record.
+     * @param steps every knowledge step of the player since the start of the game
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void write(List<Step> steps) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream body = new DataOutputStream(bytes);
+            body.writeInt(game.getSafeCount());
+            body.writeInt(game.getCoveredCount());
+            char[][] view = game.getStartMap();
+            ArrayList<Coord> changed = new ArrayList<>();
+            for (int y = 0; y < view.length; y++) {
+                for (int x = 0; x < view.length; x++) {
+                    if (view[y][x] != writtenView[y][x]) {
+                        changed.add(Coord.of(x, y));
+                        writtenView[y][x] = view[y][x];
+                    }
+                }
+            }
+            body.writeInt(changed.size());
+            for (Coord c : changed) {
+                body.writeShort(c.getX());
+                body.writeShort(c.getY());
+                body.writeByte(view[c.getY()][c.getX()]);
+            }
+            body.writeInt(steps.size() - writtenSteps);
+            for (Step step : steps.subList(writtenSteps, steps.size())) {
+                if (step.hintFormula == null) {
+                    body.writeByte(FIX);
+                    body.writeInt(step.literals[0]);
+                    body.writeByte(step.value);
+                } else {
+                    body.writeByte(EQUATION);
+                    body.writeInt(step.value);
+                    writeInts(body, step.literals);
+                    body.writeInt(step.hintFormula.length);
+                    for (int[] clause : step.hintFormula) {
+                        writeInts(body, clause);
+                    }
+                }
+            }
+            writtenSteps = steps.size();
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            ByteBuffer record = ByteBuffer.allocate(bytes.size() + 2 * Integer.BYTES);
+            record.putInt(bytes.size()).put(bytes.toByteArray()).putInt((int) crc.getValue()).flip();
+            write(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Close the file. The changes since the last record are not written.
+     * @throws UncheckedIOException if the file cannot be closed
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
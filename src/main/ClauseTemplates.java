@@ -0,0 +1,201 @@
+package main;
+
+import java.util.ArrayList;
+
+/**
+ * ClauseTemplates holds precomputed encodings of "k mines exist among n cells".
+ * A hint has at most 8 covered neighbors, so every (k, n) shape is built once when the class is loaded
+ * and a hint formula is produced by substituting the cells into the template.
+ *
+ * Literals in a template are positional placeholders:
+ * --- placeholder = sign * (index + 1)
+ * --- sign = 1 if the cell at index is a mine else -1
+ *
+ * Two families of templates are kept:
+ * 1. exact DNF: each clause is one scenario with exactly k mines (used by P3Player)
+ * 2. at most CNF: each clause is a subset of size k+1 where at least 1 cell is not a mine (used by P4Player)
+ */
+public final class ClauseTemplates {
+
+    /**
+     * Maximum number of cells of a precomputed template, the size of a neighborhood.
+     */
+    public static final int MAX_CELLS = 8;
+
+    /**
+     * EXACT_DNF[n][k] for 0 <= k <= n <= MAX_CELLS
+     */
+    private static final int[][][][] EXACT_DNF = new int[MAX_CELLS + 1][][][];
+
+    /**
+     * AT_MOST_CNF[n][k+1] for -1 <= k <= n <= MAX_CELLS
+     */
+    private static final int[][][][] AT_MOST_CNF = new int[MAX_CELLS + 1][][][];
+
+    static {
+        for (int n = 0; n <= MAX_CELLS; n++) {
+            EXACT_DNF[n] = new int[n + 1][][];
+            AT_MOST_CNF[n] = new int[n + 2][][];
+            for (int k = 0; k <= n; k++) {
+                EXACT_DNF[n][k] = buildExact(k, n);
+            }
+            for (int k = -1; k <= n; k++) {
+                AT_MOST_CNF[n][k + 1] = buildAtMost(k, n);
+            }
+        }
+    }
+
+    private ClauseTemplates() {
+    }
+
+    /**
+     * @param k number of mines
+     * @param n number of cells
+     * @return DNF template of all scenarios where exactly k of n cells are mines
+     */
+    public static int[][] exactDNF(int k, int n) {
+        if (n <= MAX_CELLS && k >= 0 && k <= n) {
+            return EXACT_DNF[n][k];
+        }
+        return buildExact(k, n);
+    }
+
+    /**
+     * @param k maximum number of cells with positive literals
+     * @param n number of cells
+     * @return CNF template that at most k of n cells are true, written with negative placeholders
+     */
+    public static int[][] atMostCNF(int k, int n) {
+        if (n <= MAX_CELLS && k >= -1 && k <= n) {
+            return AT_MOST_CNF[n][k + 1];
+        }
+        return buildAtMost(k, n);
+    }
+
+    /**
+     * Substitute the cells into a template in a single pass.
+     * @param template clauses of positional placeholders
+     * @param cells Coord substituted for the placeholders
+     * @param sign multiplied into every literal, -1 flips the template
+     * @return a hint formula with literals encoded by Coord.literal
+     */
+    public static int[][] instantiate(int[][] template, Coord[] cells, int sign) {
+        int[][] formula = new int[template.length][];
+        instantiate(template, literalsOf(cells), sign, formula, 0);
+        return formula;
+    }
+
+    /**
+     * Substitute the cell literals into a template, writing the clauses into dest from the given offset.
+     * @param template clauses of positional placeholders
+     * @param literals positive literal of each cell in placeholder order
+     * @param sign multiplied into every literal, -1 flips the template
+     * @param dest hint formula being filled
+     * @param offset index of the first clause to write in dest
+     */
+    public static void instantiate(int[][] template, int[] literals, int sign, int[][] dest, int offset) {
+        for (int i = 0; i < template.length; i++) {
+            int[] placeholders = template[i];
+            int[] clause = new int[placeholders.length];
+            for (int j = 0; j < placeholders.length; j++) {
+                int p = placeholders[j];
+                clause[j] = p > 0 ? sign * literals[p - 1] : -sign * literals[-p - 1];
+            }
+            dest[offset + i] = clause;
+        }
+    }
+
+    /**
+     * @param cells Coord to encode
+     * @return positive literal (Coord.literal) of each cell
+     */
+    public static int[] literalsOf(Coord[] cells) {
+        int[] literals = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            literals[i] = cells[i].literal();
+        }
+        return literals;
+    }
+
+    private static int[][] buildExact(int k, int n) {
+        ArrayList<int[]> clauses = new ArrayList<>();
+        buildExact(k, 0, n, new int[0], clauses);
+        return clauses.toArray(new int[0][]);
+    }
+
+    /**
+     * Breaks down the k problem into 2 scenarios recursively.
+     * 1. The first cell has no mine, there exists k mines in the remaining cells.
+     * 2. The first cell has mine, there exists k-1 mines in the remaining cells.
+     *
+     * The algorithm stops when:
+     * 1. k = 0: all remaining cells have no mines
+     * 2. k = the count of remaining cells: all remaining cells have mines
+     */
+    private static void buildExact(int k, int first, int n, int[] prefix, ArrayList<int[]> clauses) {
+        int count = n - first;
+        if (k < 0 || k > count) { // no scenario has k mines
+            return;
+        }
+        if (k == 0 | k == count) {
+            int sign = k == 0 ? -1 : 1;
+            int[] clause = extend(prefix, count);
+            for (int i = 0; i < count; i++) {
+                clause[prefix.length + i] = sign * (first + i + 1);
+            }
+            clauses.add(clause);
+            return;
+        }
+        int[] firstSafe = extend(prefix, 1);
+        firstSafe[prefix.length] = -(first + 1);
+        buildExact(k, first + 1, n, firstSafe, clauses);
+
+        int[] firstMine = extend(prefix, 1);
+        firstMine[prefix.length] = first + 1;
+        buildExact(k - 1, first + 1, n, firstMine, clauses);
+    }
+
+    private static int[][] buildAtMost(int k, int n) {
+        ArrayList<int[]> clauses = new ArrayList<>();
+        buildAtMost(k, 0, n, new int[0], clauses);
+        return clauses.toArray(new int[0][]);
+    }
+
+    /**
+     * Breaks down the k problem into 2 scenarios recursively.
+     * 1. The subset doesn't include the first cell
+     * 2. The subset includes the first cell
+     *
+     * The algorithm stops when:
+     * 1. k = -1: a subset of size (-1 + 1 = 0) is invalid, the subset so far is a clause
+     * 2. k >= the count of remaining cells: no clause is needed
+     * 3. k = the count of remaining cells - 1: the subset is all the remaining cells
+     */
+    private static void buildAtMost(int k, int first, int n, int[] prefix, ArrayList<int[]> clauses) {
+        int count = n - first;
+        if (k <= -1) {
+            clauses.add(prefix);
+            return;
+        } else if (k >= count) { // learn nothing new
+            return;
+        } else if (k == count - 1) {
+            int[] clause = extend(prefix, count);
+            for (int i = 0; i < count; i++) {
+                clause[prefix.length + i] = -(first + i + 1);
+            }
+            clauses.add(clause);
+            return;
+        }
+        buildAtMost(k, first + 1, n, prefix, clauses);
+
+        int[] firstIs = extend(prefix, 1);
+        firstIs[prefix.length] = -(first + 1);
+        buildAtMost(k - 1, first + 1, n, firstIs, clauses);
+    }
+
+    private static int[] extend(int[] prefix, int extra) {
+        int[] extended = new int[prefix.length + extra];
+        System.arraycopy(prefix, 0, extended, 0, prefix.length);
+        return extended;
+    }
+}
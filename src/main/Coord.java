@@ -1,20 +1,71 @@
 package main;
 
-import java.util.Objects;
-
 /**
  * Coord contains the x and y coordinate for a cell.
+ * Coord.of returns canonical instances for the coordinates of boards up to CACHE_LIMIT cells wide,
+ * including the ring of neighbors just outside the board, so that the players do not allocate a Coord
+ * each time they visit a cell. Each canonical instance also keeps its neighbors once they are computed.
+ * Coords are compared by value, so canonical and constructed instances can be mixed.
  */
 public class Coord {
 
+    /**
+     * Coordinates from -1 to CACHE_LIMIT - 1 are canonical
+     */
+    public static final int CACHE_LIMIT = 128;
+
+    /**
+     * Boards up to MAX_SIZE cells wide have a distinct literal for each cell
+     */
+    public static final int MAX_SIZE = 1 << 15;
+
+    private static final int CACHE_WIDTH = CACHE_LIMIT + 1;
+
+    /**
+     * Canonical instances, filled as they are requested. A race only creates an equal duplicate.
+     */
+    private static final Coord[] CACHE = new Coord[CACHE_WIDTH * CACHE_WIDTH];
+
     private final int x;
     private final int y;
 
+    /**
+     * Neighbors computed on first use, the array is complete before it is published
+     */
+    private volatile Coord[] neighbors;
+
     public Coord(int x, int y) {
         this.x = x;
         this.y = y;
     }
 
+    /**
+     * @param x coordinate
+     * @param y coordinate
+     * @return the canonical Coord of (x, y), or a new one outside the cached range
+     */
+    public static Coord of(int x, int y) {
+        if (x < -1 || x >= CACHE_LIMIT || y < -1 || y >= CACHE_LIMIT) {
+            return new Coord(x, y);
+        }
+        int index = (y + 1) * CACHE_WIDTH + x + 1;
+        Coord coord = CACHE[index];
+        if (coord == null) {
+            coord = new Coord(x, y);
+            CACHE[index] = coord;
+        }
+        return coord;
+    }
+
+    /**
+     * @param literal literal of a cell, of either sign
+     * @return the cell of the literal
+     */
+    public static Coord ofLiteral(int literal) {
+        int variable = Math.abs(literal) - 1;
+        return Coord.of(variable % MAX_SIZE, variable / MAX_SIZE);
+    }
+
     public int getX() {
         return x;
     }
@@ -23,22 +74,40 @@ public class Coord {
         return y;
     }
 
+    /**
+     * The literal of the cell in the KBU, positive and distinct for every cell of a board up to MAX_SIZE wide.
+     * @return y * MAX_SIZE + x + 1
+     */
+    public int literal() {
+        return y * MAX_SIZE + x + 1;
+    }
+
     /**
      * @return neighbors on 8 sides from left to right, top to bottom
      */
     public Coord[] getNeighbors() {
-        Coord[] neighbors = new Coord[8];
-        // left to right on each row, top row to bottom row
-        neighbors[0] = new Coord(x-1, y-1);
-        neighbors[1] = new Coord(x, y-1);
-        neighbors[2] = new Coord(x+1, y-1);
-        neighbors[3] = new Coord(x-1, y);
-        neighbors[4] = new Coord(x+1, y);
-        neighbors[5] = new Coord(x-1, y+1);
-        neighbors[6] = new Coord(x, y+1);
-        neighbors[7] = new Coord(x+1, y+1);
+        return neighbors().clone();
+    }
 
-        return neighbors;
+    /**
+     * @return neighbors on 8 sides from left to right, top to bottom, shared and not to be modified
+     */
+    Coord[] neighbors() {
+        Coord[] cached = neighbors;
+        if (cached == null) {
+            cached = new Coord[8];
+            // left to right on each row, top row to bottom row
+            cached[0] = Coord.of(x-1, y-1);
+            cached[1] = Coord.of(x, y-1);
+            cached[2] = Coord.of(x+1, y-1);
+            cached[3] = Coord.of(x-1, y);
+            cached[4] = Coord.of(x+1, y);
+            cached[5] = Coord.of(x-1, y+1);
+            cached[6] = Coord.of(x, y+1);
+            cached[7] = Coord.of(x+1, y+1);
+            neighbors = cached;
+        }
+        return cached;
     }
 
     @Override
@@ -54,8 +123,11 @@ public class Coord {
         return x == coord.x && y == coord.y;
     }
 
+    /**
+     * Same value as Objects.hash(x, y), without boxing.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return 31 * (31 + x) + y;
     }
 }
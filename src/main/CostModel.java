@@ -0,0 +1,279 @@
+package main;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CostModel predicts the latency of a query on each engine from the features of the query, and learns online
+ * from the latencies observed, see AdaptiveBackend.
+ *
+ * The features of a query are:
+ * --- the number of cells of the component of the queried cell
+ * --- the hint density of the component: its equations per cell
+ * --- the number of clauses given to the solver
+ * Each engine has a linear model of the logarithm of the latency in the features, fitted by ridge regression
+ * over all of its observations. Only the sums of the normal equations are kept, so an observation costs
+ * the same whatever the number before it, and the model is the same whatever the order they came in.
+ *
+ * An engine is chosen by its predicted latency, except that an engine observed fewer than MIN_SAMPLES times
+ * is chosen first, and every EXPLORE_EVERY choices the engine observed the least, so that every engine keeps
+ * being measured as the workload changes.
+ *
+ * A model is shared by the games of the JVM that use the same file, and saved to the file with save.
+ * The file has a line per engine: name, observations, then the sums of the normal equations.
+ */
+public class CostModel {
+
+    /**
+     * Number of observations of an engine before it is chosen by its predicted latency
+     */
+    public static final int MIN_SAMPLES = 8;
+
+    /**
+     * Number of choices between two choices of the engine observed the least
+     */
+    public static final int EXPLORE_EVERY = 32;
+
+    private static final int FEATURES = 4;
+    private static final double RIDGE = 1e-3;
+
+    /**
+     * Model of the JVM for each file by its absolute path, an empty path for the model not saved to a file
+     */
+    private static final Map<String, CostModel> SHARED = new ConcurrentHashMap<>();
+
+    private static final class Engine {
+        long samples = 0;
+        final double[][] xx = new double[FEATURES][FEATURES];
+        final double[] xy = new double[FEATURES];
+    }
+
+    private final Path file;
+    private final TreeMap<String, Engine> engines = new TreeMap<>();
+    private long choices = 0;
+
+    /**
+     * @param file file the model is saved to, null if it is not saved
+     */
+    public CostModel(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param file file of the model, null for the model of the JVM that is not saved
+     * @return the model of the file shared by the games of the JVM, loaded from the file if it exists
+     * @throws UncheckedIOException if the file exists but cannot be read
+     */
+    public static CostModel shared(Path file) {
+        String key = file == null ? "" : file.toAbsolutePath().normalize().toString();
+        return SHARED.computeIfAbsent(key, k -> {
+            try {
+                return file == null ? new CostModel(null) : load(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * @param file file saved by save, or a file that does not exist for an empty model
+     * @return the model of the file, saved to the same file
+     * @throws IOException if the file cannot be read or is not a cost model
+     */
+    public static CostModel load(Path file) throws IOException {
+        CostModel model = new CostModel(file);
+        if (!Files.exists(file)) {
+            return model;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] words = line.split("\\s+");
+            if (words.length != 2 + FEATURES * FEATURES + FEATURES) {
+                throw new IOException("Not a cost model: " + file + ": " + line);
+            }
+            try {
+                Engine engine = new Engine();
+                engine.samples = Long.parseLong(words[1]);
+                int w = 2;
+                for (int i = 0; i < FEATURES; i++) {
+                    for (int j = 0; j < FEATURES; j++) {
+                        engine.xx[i][j] = Double.parseDouble(words[w++]);
+                    }
+                }
+                for (int i = 0; i < FEATURES; i++) {
+                    engine.xy[i] = Double.parseDouble(words[w++]);
+                }
+                model.engines.put(words[0], engine);
+            } catch (NumberFormatException e) {
+                throw new IOException("Not a cost model: " + file + ": " + line, e);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Write the model to its file, replacing the file once it is written. A model without a file is not saved.
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public synchronized void save() {
+        if (file == null) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add("# engine observations sums of x x^T and of x log(nanos), x = 1 cells density log(1 + clauses)");
+        engines.forEach((name, engine) -> {
+            StringBuilder sb = new StringBuilder(name).append(' ').append(engine.samples);
+            for (double[] row : engine.xx) {
+                for (double value : row) {
+                    sb.append(' ').append(String.format(Locale.ROOT, "%.17g", value));
+                }
+            }
+            for (double value : engine.xy) {
+                sb.append(' ').append(String.format(Locale.ROOT, "%.17g", value));
+            }
+            lines.add(sb.toString());
+        });
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Path written = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            Files.write(written, lines, StandardCharsets.UTF_8);
+            Files.move(written, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param componentSize number of cells of the component of the queried cell
+     * @param equationCount number of equations of the component
+     * @param clauseCount number of clauses given to the solver
+     * @return features of the query
+     */
+    public static double[] features(int componentSize, int equationCount, long clauseCount) {
+        return new double[] {1, componentSize, componentSize == 0 ? 0 : (double) equationCount / componentSize,
+                Math.log1p(clauseCount)};
+    }
+
+    /**
+     * Record the latency of a query on an engine.
+     * @param engine name of the engine
+     * @param features features of the query
+     * @param nanos latency of the query
+     */
+    public synchronized void observe(String engine, double[] features, long nanos) {
+        Engine e = engines.computeIfAbsent(engine, name -> new Engine());
+        double y = Math.log(Math.max(1, nanos));
+        for (int i = 0; i < FEATURES; i++) {
+            for (int j = 0; j < FEATURES; j++) {
+                e.xx[i][j] += features[i] * features[j];
+            }
+            e.xy[i] += features[i] * y;
+        }
+        e.samples++;
+    }
+
+    /**
+     * @param engine name of the engine
+     * @param features features of the query
+     * @return predicted latency of the query in nanoseconds, NaN if the engine has not been observed
+     */
+    public synchronized double predict(String engine, double[] features) {
+        Engine e = engines.get(engine);
+        if (e == null || e.samples == 0) {
+            return Double.NaN;
+        }
+        double[] weights = solve(e);
+        double y = 0;
+        for (int i = 0; i < FEATURES; i++) {
+            y += weights[i] * features[i];
+        }
+        return Math.exp(y);
+    }
+
+    /**
+     * @param engine name of the engine
+     * @return number of observations of the engine
+     */
+    public synchronized long getSamples(String engine) {
+        Engine e = engines.get(engine);
+        return e == null ? 0 : e.samples;
+    }
+
+    /**
+     * Choose the engine of a query, see the class description.
+     * @param candidates names of the engines, at least one
+     * @param features features of the query
+     * @return index of the engine chosen, the first of equal ones
+     */
+    public synchronized int choose(String[] candidates, double[] features) {
+        choices++;
+        int least = 0;
+        for (int i = 1; i < candidates.length; i++) {
+            if (getSamples(candidates[i]) < getSamples(candidates[least])) {
+                least = i;
+            }
+        }
+        if (getSamples(candidates[least]) < MIN_SAMPLES || choices % EXPLORE_EVERY == 0) {
+            return least;
+        }
+        int best = 0;
+        double bestLatency = predict(candidates[0], features);
+        for (int i = 1; i < candidates.length; i++) {
+            double latency = predict(candidates[i], features);
+            if (latency < bestLatency) {
+                best = i;
+                bestLatency = latency;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the weights of the engine's model, solving (X^T X + RIDGE I) w = X^T y by Gaussian elimination
+     */
+    private static double[] solve(Engine e) {
+        double[][] a = new double[FEATURES][FEATURES + 1];
+        for (int i = 0; i < FEATURES; i++) {
+            System.arraycopy(e.xx[i], 0, a[i], 0, FEATURES);
+            a[i][i] += RIDGE;
+            a[i][FEATURES] = e.xy[i];
+        }
+        for (int col = 0; col < FEATURES; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < FEATURES; row++) {
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            double[] swap = a[col];
+            a[col] = a[pivot];
+            a[pivot] = swap;
+            for (int row = 0; row < FEATURES; row++) {
+                if (row != col) {
+                    double factor = a[row][col] / a[col][col];
+                    for (int k = col; k <= FEATURES; k++) {
+                        a[row][k] -= factor * a[col][k];
+                    }
+                }
+            }
+        }
+        double[] weights = new double[FEATURES];
+        for (int i = 0; i < FEATURES; i++) {
+            weights[i] = a[i][FEATURES] / a[i][i];
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,223 @@
+package main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DimacsReader loads the instances written by DimacsWriter, or any DIMACS CNF file, as a corpus of queries
+ * to benchmark a SatBackend on the instances of real games.
+ * An OPB instance is read if its constraints are of the form written by DimacsWriter: +1 terms and = k.
+ *
+ * The unit clauses or fixed variables listed by the assumptions comment are solved as assumptions,
+ * the rest as the constraints of the backend, like the query they were written from.
+ *
+ * Usage: java main.A2main corpus [directory] [backend=NAME] [other backend options]
+ * Solves every .cnf and .opb file of the directory in name order and prints a line per instance:
+ * --- file result millis conflicts, with MISMATCH appended if the result is not the expected one
+ * then the number of instances, mismatches and the total time.
+ */
+public class DimacsReader {
+
+    /**
+     * A query read from a file: the constraints, the assumptions and the expected result if the file gives one
+     */
+    public static final class Instance {
+        private final SatBackend.NormalForm form;
+        private final List<int[][]> constraints;
+        private final int[] assumptions;
+        private final SatBackend.Result expected;
+
+        Instance(SatBackend.NormalForm form, List<int[][]> constraints, int[] assumptions, SatBackend.Result expected) {
+            this.form = form;
+            this.constraints = constraints;
+            this.assumptions = assumptions;
+            this.expected = expected;
+        }
+
+        /**
+         * Give the constraints to the backend and solve the query under its assumptions.
+         * @param backend backend without constraints
+         * @param millis wall time limit of the query, Long.MAX_VALUE if unlimited
+         * @param maxConflicts conflict limit of the query, Long.MAX_VALUE if unlimited
+         * @return result of the backend
+         */
+        public SatBackend.Result solve(SatBackend backend, long millis, long maxConflicts) {
+            for (int[][] constraint : constraints) {
+                backend.addHintFormula(constraint, form);
+            }
+            return backend.solve(assumptions, millis, maxConflicts);
+        }
+
+        /**
+         * @return CNF for a DIMACS instance, CARDINALITY for an OPB instance
+         */
+        public SatBackend.NormalForm getForm() {
+            return form;
+        }
+
+        public int getConstraintCount() {
+            return constraints.size();
+        }
+
+        public int[] getAssumptions() {
+            return assumptions;
+        }
+
+        /**
+         * @return expected result, null if the file does not give one
+         */
+        public SatBackend.Result getExpected() {
+            return expected;
+        }
+    }
+
+    private DimacsReader() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java main.A2main corpus [directory] [backend=NAME]");
+            return;
+        }
+        Map<String, String> options = new HashMap<>();
+        for (int i = 2; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            if (option.length == 2) {
+                options.put(option[0], option[1]);
+            }
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> directory = Files.newDirectoryStream(Paths.get(args[1]), "*.{cnf,opb}")) {
+            directory.forEach(files::add);
+        } catch (IOException e) {
+            System.err.println(e);
+            return;
+        }
+        files.sort(null);
+
+        int mismatches = 0;
+        long totalNanos = 0;
+        for (Path file : files) {
+            try {
+                Instance instance = read(file);
+                SatBackend backend = SatBackends.create(options.getOrDefault("backend",
+                        instance.getForm() == SatBackend.NormalForm.CARDINALITY ? "sat4j-pb" : "sat4j"), options);
+                long start = System.nanoTime();
+                SatBackend.Result result = instance.solve(backend, Long.MAX_VALUE, Long.MAX_VALUE);
+                long nanos = System.nanoTime() - start;
+                totalNanos += nanos;
+                boolean mismatch = instance.getExpected() != null && instance.getExpected() != result;
+                if (mismatch) {
+                    mismatches++;
+                }
+                System.out.println(file.getFileName() + " " + result + " " + nanos / 1_000_000 + " "
+                        + backend.getLastConflicts() + (mismatch ? " MISMATCH" : ""));
+            } catch (IOException e) {
+                System.err.println(file.getFileName() + " " + e.getMessage());
+            }
+        }
+        System.out.println(files.size() + " instances, " + mismatches + " mismatches, "
+                + totalNanos / 1_000_000 + " ms");
+    }
+
+    /**
+     * Read a DIMACS CNF instance, or an OPB instance if the file name ends with .opb.
+     * @param file instance file
+     * @return the query of the file
+     * @throws IOException if the file cannot be read or is not a supported instance
+     */
+    public static Instance read(Path file) throws IOException {
+        boolean opb = file.getFileName().toString().endsWith(".opb");
+        String comment = opb ? "*" : "c";
+        List<int[]> clauses = new ArrayList<>();
+        List<int[][]> constraints = new ArrayList<>();
+        int[] assumptions = new int[0];
+        SatBackend.Result expected = null;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            StringBuilder pending = new StringBuilder(); // a DIMACS clause may span lines
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("p ") || line.startsWith("%")) {
+                    continue;
+                } else if (line.startsWith(comment)) {
+                    String[] words = line.substring(1).trim().split("\\s+");
+                    if (words[0].equals("expected") && words.length > 1) {
+                        expected = SatBackend.Result.valueOf(words[1]);
+                    } else if (words[0].equals("assumptions")) {
+                        assumptions = parseInts(words, 1);
+                    }
+                } else if (opb) {
+                    constraints.add(parseConstraint(line, file));
+                } else {
+                    pending.append(' ').append(line);
+                    if (line.endsWith(" 0") || line.equals("0")) {
+                        String[] words = pending.toString().trim().split("\\s+");
+                        clauses.add(parseInts(words, 0));
+                        pending.setLength(0);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not an instance: " + file + ": " + e.getMessage(), e);
+        }
+
+        if (opb) {
+            // the assumptions are the last fixed variables
+            constraints = new ArrayList<>(constraints.subList(0, Math.max(0, constraints.size() - assumptions.length)));
+            return new Instance(SatBackend.NormalForm.CARDINALITY, constraints, assumptions, expected);
+        }
+        int kept = Math.max(0, clauses.size() - assumptions.length); // the assumptions are the last unit clauses
+        if (kept > 0) {
+            constraints.add(clauses.subList(0, kept).toArray(new int[0][]));
+        }
+        return new Instance(SatBackend.NormalForm.CNF, constraints, assumptions, expected);
+    }
+
+    /**
+     * @return the integers of the words from the start up to a terminating 0
+     */
+    private static int[] parseInts(String[] words, int start) {
+        int end = start;
+        while (end < words.length && !words[end].equals("0")) {
+            end++;
+        }
+        int[] values = new int[end - start];
+        for (int i = start; i < end; i++) {
+            values[i - start] = Integer.parseInt(words[i]);
+        }
+        return values;
+    }
+
+    /**
+     * @return a cardinality constraint { literals, { k } } from +1 x1 +1 ~x2 ... = k ;
+     */
+    private static int[][] parseConstraint(String line, Path file) throws IOException {
+        String[] words = line.replace(";", " ").trim().split("\\s+");
+        if (words.length < 2 || !words[words.length - 2].equals("=") || words.length % 2 != 0) {
+            throw new IOException("Unsupported OPB constraint in " + file + ": " + line);
+        }
+        int[] literals = new int[(words.length - 2) / 2];
+        for (int i = 0; i < literals.length; i++) {
+            String coefficient = words[2 * i];
+            String variable = words[2 * i + 1];
+            if (!coefficient.equals("+1") && !coefficient.equals("1")) {
+                throw new IOException("Unsupported OPB coefficient in " + file + ": " + line);
+            }
+            boolean negated = variable.startsWith("~");
+            literals[i] = Integer.parseInt(variable.substring(negated ? 2 : 1));
+            if (negated) {
+                literals[i] = -literals[i];
+            }
+        }
+        return new int[][] {literals, {Integer.parseInt(words[words.length - 1])}};
+    }
+}
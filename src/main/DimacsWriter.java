@@ -0,0 +1,229 @@
+package main;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * DimacsWriter writes the KBU of a LogicalPlayer with the assumption of a query as a standalone instance,
+ * so that the queries of real games can be solved offline by external solvers, see DimacsReader.
+ *
+ * CNF and DNF hint formulas are written as DIMACS CNF, cardinality hint formulas as OPB:
+ * --- cells are numbered 1..n in the order they appear, as solvers expect consecutive variables
+ * --- a DNF hint formula gets an auxiliary variable per clause that implies the clause's literals,
+ *     and a clause stating that at least one auxiliary variable holds, as in Sat4jBackend
+ * --- the assumptions are written as unit clauses (DIMACS) or fixed variables (OPB) after the KBU,
+ *     so the instance is satisfiable if and only if the query is
+ * --- comments before the problem line give the query and its expected result:
+ *     c query x y sign, c expected SAT|UNSAT, c assumptions l1 l2 ... 0 (with * instead of c in OPB)
+ *
+ * The instance is streamed through a direct buffer to the channel, so the KBU is never held as text.
+ */
+public class DimacsWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private long written = 0;
+
+    /**
+     * @param directory directory the instances are written to, created if it does not exist
+     * @throws IOException if the directory cannot be created
+     */
+    public DimacsWriter(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Write a query to the next file of the directory, query-N.cnf or query-N.opb.
+     * @param kbu hint formulas of the KBU
+     * @param form normal form of the hint formulas
+     * @param cell queried cell
+     * @param sign 1 if the cell is tested as a mine, -1 as safe
+     * @param expected result of the query
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void write(int[][][] kbu, SatBackend.NormalForm form, Coord cell, int sign, SatBackend.Result expected) {
+        String name = String.format("query-%06d.%s", ++written, form == SatBackend.NormalForm.CARDINALITY ? "opb" : "cnf");
+        try (FileChannel channel = FileChannel.open(directory.resolve(name), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, kbu, form, new int[] {sign * cell.literal()},
+                    "query " + cell.getX() + " " + cell.getY() + " " + sign, "expected " + expected);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return number of queries written
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Write the KBU and the assumptions as a DIMACS CNF instance, or as an OPB instance if the form is CARDINALITY.
+     * @param channel channel the instance is written to, left open
+     * @param kbu hint formulas of the KBU
+     * @param form normal form of the hint formulas
+     * @param assumptions literals of the query
+     * @param comments comment lines written before the problem line
+     * @throws IOException if the channel cannot be written
+     */
+    public static void write(WritableByteChannel channel, int[][][] kbu, SatBackend.NormalForm form,
+                             int[] assumptions, String... comments) throws IOException {
+        // cells first, then the auxiliary variables of the DNF clauses
+        HashMap<Integer, Integer> variables = new HashMap<>();
+        long constraints = assumptions.length;
+        long auxiliaries = 0;
+        for (int[][] hintFormula : kbu) {
+            if (form == SatBackend.NormalForm.CARDINALITY) {
+                number(variables, hintFormula[0]);
+                constraints++;
+                continue;
+            }
+            for (int[] clause : hintFormula) {
+                number(variables, clause);
+                if (form == SatBackend.NormalForm.CNF) {
+                    constraints++;
+                } else if (clause.length > 1) {
+                    auxiliaries++;
+                    constraints += clause.length;
+                }
+            }
+            if (form == SatBackend.NormalForm.DNF) {
+                constraints++;
+            }
+        }
+        number(variables, assumptions);
+
+        Output out = new Output(channel);
+        boolean opb = form == SatBackend.NormalForm.CARDINALITY;
+        String comment = opb ? "* " : "c ";
+        if (opb) {
+            out.print("* #variable= ").print(variables.size()).print(" #constraint= ").print(constraints).newLine();
+        }
+        for (String line : comments) {
+            out.print(comment).print(line).newLine();
+        }
+        out.print(comment).print("assumptions");
+        for (int literal : assumptions) {
+            out.print(" ").print(toVariable(variables, literal));
+        }
+        out.print(" 0").newLine();
+        if (!opb) {
+            out.print("p cnf ").print(variables.size() + auxiliaries).print(" ").print(constraints).newLine();
+        }
+
+        int aux = variables.size();
+        for (int[][] hintFormula : kbu) {
+            if (opb) {
+                for (int literal : hintFormula[0]) {
+                    int variable = toVariable(variables, literal);
+                    out.print(variable > 0 ? "+1 x" : "+1 ~x").print(Math.abs(variable)).print(" ");
+                }
+                out.print("= ").print(hintFormula[1][0]).print(" ;").newLine();
+            } else if (form == SatBackend.NormalForm.CNF) {
+                for (int[] clause : hintFormula) {
+                    printClause(out, variables, clause);
+                }
+            } else {
+                int[] someClause = new int[hintFormula.length];
+                for (int i = 0; i < hintFormula.length; i++) {
+                    int[] clause = hintFormula[i];
+                    if (clause.length == 1) {
+                        someClause[i] = toVariable(variables, clause[0]);
+                        continue;
+                    }
+                    someClause[i] = ++aux;
+                    for (int literal : clause) {
+                        out.print(-aux).print(" ").print(toVariable(variables, literal)).print(" 0").newLine();
+                    }
+                }
+                for (int literal : someClause) {
+                    out.print(literal).print(" ");
+                }
+                out.print("0").newLine();
+            }
+        }
+        for (int literal : assumptions) {
+            if (opb) {
+                out.print("+1 x").print(Math.abs(toVariable(variables, literal))).print(literal > 0 ? " = 1 ;" : " = 0 ;")
+                        .newLine();
+            } else {
+                printClause(out, variables, new int[] {literal});
+            }
+        }
+        out.flush();
+    }
+
+    private static void number(HashMap<Integer, Integer> variables, int[] literals) {
+        for (int literal : literals) {
+            variables.putIfAbsent(Math.abs(literal), variables.size() + 1);
+        }
+    }
+
+    private static int toVariable(HashMap<Integer, Integer> variables, int literal) {
+        int variable = variables.get(Math.abs(literal));
+        return literal > 0 ? variable : -variable;
+    }
+
+    private static void printClause(Output out, HashMap<Integer, Integer> variables, int[] clause) throws IOException {
+        for (int literal : clause) {
+            out.print(toVariable(variables, literal)).print(" ");
+        }
+        out.print("0").newLine();
+    }
+
+    /**
+     * ASCII text buffered in a direct buffer and written to the channel when the buffer is full
+     */
+    private static final class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        Output print(String text) throws IOException {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            if (buffer.remaining() < bytes.length) {
+                flush();
+            }
+            if (bytes.length > buffer.capacity()) {
+                write(ByteBuffer.wrap(bytes));
+            } else {
+                buffer.put(bytes);
+            }
+            return this;
+        }
+
+        Output print(long value) throws IOException {
+            return print(Long.toString(value));
+        }
+
+        Output newLine() throws IOException {
+            return print("\n");
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+}
@@ -1,29 +1,77 @@
 package main;
 
+import java.util.Arrays;
+
 /**
  * Game contains the World and keeps track of player stats.
  * A game is won when all safe (non-mine) cells are probed, lost when player hit a mine or gives up.
+ *
+ * The state of a game (start map cells, counters and flags) can be saved with snapshot() and restored
+ * with rollback(). Changes are recorded in a Trail while a snapshot is open.
+ *
+ * If a TraceRecorder is set, every change is also written to the trace, so the game can be replayed.
+ * If a Checkpoint is set, its player saves the game to it after its inference passes, so the game can be resumed.
+ *
+ * The cells of the board are read by reveal, so a subclass can play a board it does not hold, see RemoteGame.
  */
 public class Game {
 
+    // trail keys of the counters and flags, cells use their index y * size + x
+    private static final int SAFE_COUNT = -1;
+    private static final int COVERED_COUNT = -2;
+    private static final int HIT_MINE = -3;
+    private static final int GAVE_UP = -4;
+
     private World world;
+    private char[][] map;
     private char[][] startMap;
     private int safeCount = 0;
     private int coveredCount = 0;
     private boolean hitMine = false;
     private boolean gaveUp = false;
+    private final Trail trail = new Trail();
+    private TraceRecorder trace = null;
+    private Checkpoint checkpoint = null;
 
     public Game(World world) {
+        this(world.getMap());
         this.world = world;
+    }
+
+    /**
+     * Create a game on a board that is not one of the predefined Worlds, e.g. a board sent to the batch mode.
+     * @param map square board of hints, 'm' for mines and 'b' for blocked cells, at most Coord.MAX_SIZE wide
+     */
+    public Game(char[][] map) {
+        if (map.length > Coord.MAX_SIZE) {
+            throw new IllegalArgumentException("Board must be at most " + Coord.MAX_SIZE + " cells wide");
+        }
+        for (char[] row : map) {
+            if (row.length != map.length) {
+                throw new IllegalArgumentException("Board must be square");
+            }
+        }
+        this.map = map;
         initializeGame();
     }
 
+    /**
+     * Create a game whose board is held elsewhere and read cell by cell through reveal.
+     * @param startMap covered cells as ?, blocked cells as b
+     * @param safeCount number of safe cells
+     * @param coveredCount number of covered cells
+     */
+    protected Game(char[][] startMap, int safeCount, int coveredCount) {
+        this.startMap = startMap;
+        this.safeCount = safeCount;
+        this.coveredCount = coveredCount;
+    }
+
     /**
      * Initialize start map by covering all cells with ? except blocked cells
      */
     private void initializeGame() {
-        int n = world.getSize();
-        char[][] map = world.getMap();
+        int n = map.length;
         startMap = new char[n][n];
         for (int row = 0; row < n; row++) {
             for (int col = 0; col < n; col++) {
@@ -55,24 +103,144 @@ public class Game {
      * @return the character underlying the cell
      */
     public char probe(int x, int y) {
-        char val = world.probe(x, y);
+        char val = reveal(x, y);
         if (val == 'm') {
+            record(COVERED_COUNT, coveredCount);
             coveredCount--;
+            record(HIT_MINE, hitMine ? 1 : 0);
             hitMine = true;
             val = '-';
         } else if (val != 'b') {
+            record(COVERED_COUNT, coveredCount);
             coveredCount--;
+            record(SAFE_COUNT, safeCount);
             safeCount--;
         }
+        if (trace != null) {
+            trace.record(TraceRecorder.PROBE, x, y, val, 0, 0);
+        }
         return val;
     }
 
+    /**
+     * Probe the cells in order until the game ends.
+     * A remote game probes them, and the zero cascades they start, in a single round trip.
+     * @param cells cells to probe
+     * @return the character uncovered by each cell probed, fewer than the cells if the game ended
+     */
+    public char[] probe(Coord[] cells) {
+        char[] values = new char[cells.length];
+        int probed = 0;
+        while (probed < cells.length && !hasEnded()) {
+            values[probed] = probe(cells[probed]);
+            probed++;
+        }
+        return Arrays.copyOf(values, probed);
+    }
+
+    /**
+     * @param x coordinate of the cell
+     * @param y coordinate of the cell
+     * @return the character of the board at the cell, m for a mine
+     */
+    protected char reveal(int x, int y) {
+        return map[y][x];
+    }
+
     public void markMine() {
+        record(COVERED_COUNT, coveredCount);
         coveredCount--;
+        if (trace != null) {
+            trace.record(TraceRecorder.MARK);
+        }
     }
 
     public void giveUp() {
+        record(GAVE_UP, gaveUp ? 1 : 0);
         gaveUp = true;
+        if (trace != null) {
+            trace.record(TraceRecorder.GIVE_UP);
+        }
+    }
+
+    /**
+     * Update a cell of the start map, which is the view of the player.
+     * @param x coordinate of the cell
+     * @param y coordinate of the cell
+     * @param c new character of the cell
+     */
+    public void updateStartMap(int x, int y, char c) {
+        record(y * getSize() + x, startMap[y][x]);
+        startMap[y][x] = c;
+        if (trace != null) {
+            trace.record(TraceRecorder.VIEW, x, y, c, 0, 0);
+        }
+    }
+
+    /**
+     * Save the current state of the game. Snapshots can be nested.
+     * @return depth of the snapshot
+     */
+    public int snapshot() {
+        if (trace != null) {
+            trace.record(TraceRecorder.SNAPSHOT);
+        }
+        return trail.openLevel();
+    }
+
+    /**
+     * Undo every change made since the most recent snapshot and close it.
+     */
+    public void rollback() {
+        int start = trail.levelStart();
+        while (trail.size() > start) {
+            undo(trail.lastKey(), trail.lastValue());
+            trail.pop();
+        }
+        trail.closeLevel();
+        if (trace != null) {
+            trace.record(TraceRecorder.ROLLBACK);
+        }
+    }
+
+    /**
+     * Close the most recent snapshot and keep the changes made since.
+     */
+    public void release() {
+        trail.closeLevel();
+        if (trace != null) {
+            trace.record(TraceRecorder.RELEASE);
+        }
+    }
+
+    public int getSnapshotDepth() {
+        return trail.getDepth();
+    }
+
+    private void record(int key, int oldValue) {
+        if (trail.isRecording()) {
+            trail.push(key, oldValue);
+        }
+    }
+
+    private void undo(int key, int oldValue) {
+        switch (key) {
+            case SAFE_COUNT:
+                safeCount = oldValue;
+                break;
+            case COVERED_COUNT:
+                coveredCount = oldValue;
+                break;
+            case HIT_MINE:
+                hitMine = oldValue == 1;
+                break;
+            case GAVE_UP:
+                gaveUp = oldValue == 1;
+                break;
+            default:
+                int n = getSize();
+                startMap[key / n][key % n] = (char) oldValue;
+        }
     }
 
     /**
@@ -100,6 +268,54 @@ public class Game {
         }
     }
 
+    /**
+     * @param trace recorder of the changes to the game, or null to stop recording
+     */
+    public void setTrace(TraceRecorder trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * @return recorder of the changes to the game, null if the game is not recorded
+     */
+    public TraceRecorder getTrace() {
+        return trace;
+    }
+
+    /**
+     * @param checkpoint checkpoint the player saves the game to, or null to stop saving it
+     */
+    public void setCheckpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * @return checkpoint of the game, null if the game is not saved
+     */
+    public Checkpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Set the counters of a game resumed from a checkpoint, whose start map is restored cell by cell.
+     * @param safeCount number of safe cells left
+     * @param coveredCount number of covered cells left
+     */
+    void restoreCounters(int safeCount, int coveredCount) {
+        this.safeCount = safeCount;
+        this.coveredCount = coveredCount;
+    }
+
+    /**
+     * @return the board with the mines, for the trace and the checkpoint of the game, null if the map is hidden
+     */
+    char[][] getMap() {
+        return map;
+    }
+
+    /**
+     * @return the World played or null if the game was created from a board
+     */
     public World getWorld() {
         return world;
     }
@@ -113,7 +329,7 @@ public class Game {
     }
 
     public int getSize() {
-        return world.getSize();
+        return startMap.length;
     }
 
     /**
@@ -0,0 +1,293 @@
+package main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * GameServer plays games for agents in other processes, one game per connection, over a small binary protocol.
+ * The agent's side is a RemoteGame.
+ *
+ * Usage: java main.A2main serve [port=P] [threads=N]
+ * Serves localhost:P (default DEFAULT_PORT) until the process is stopped, at most N connections at once
+ * (default DEFAULT_THREADS), the next ones waiting for a connection to end.
+ *
+ * Every message starts with its type (byte). Only OPEN and PROBE are answered, so the client sends the other
+ * messages without waiting and writes them out with its next request.
+ * Protocol (big-endian):
+ * --- connection: MAGIC (int), VERSION (short) from the client
+ * 1. OPEN_WORLD: name (UTF) of a World
+ * 2. OPEN_BOARD: size n (int) up to MAX_SIZE, n * n cells of the board (byte each)
+ * --- answer to OPEN: 0 (byte), n (int), n * n cells of the start map (byte each), safe count (int), covered count (int)
+ *     or 1 (byte), error message (UTF). The connection ends after the error of a size out of range,
+ *     as the cells that follow are not read.
+ * 3. PROBE: count (int), count * (x (short), y (short))
+ * --- answer: count (int), count * (x (short), y (short), character (byte)): the cells probed in order until the
+ *     game ends, then the cells revealed by their zero cascades. The server probes the cascades itself, covered cells
+ *     being those still ? in its start map, so the client knows them without asking.
+ * 4. MARK: count (int) of mines marked
+ * 5. VIEW: x (short), y (short), character (byte) of the start map
+ * 6. GIVE_UP, 7. SNAPSHOT, 8. ROLLBACK, 9. RELEASE: no fields
+ * 0. CLOSE: ends the connection
+ */
+public class GameServer implements AutoCloseable {
+
+    public static final int MAGIC = 0x53575250; // SWRP
+    public static final short VERSION = 1;
+    public static final int DEFAULT_PORT = 5011;
+    public static final int DEFAULT_THREADS = 64;
+
+    /**
+     * Largest board accepted by OPEN_BOARD
+     */
+    public static final int MAX_SIZE = 1024;
+
+    public static final byte CLOSE = 0;
+    public static final byte OPEN_WORLD = 1;
+    public static final byte OPEN_BOARD = 2;
+    public static final byte PROBE = 3;
+    public static final byte MARK = 4;
+    public static final byte VIEW = 5;
+    public static final byte GIVE_UP = 6;
+    public static final byte SNAPSHOT = 7;
+    public static final byte ROLLBACK = 8;
+    public static final byte RELEASE = 9;
+
+    private final ServerSocket server;
+    private final ExecutorService connections;
+
+    /**
+     * Bind the port on localhost, serving up to DEFAULT_THREADS connections at once.
+     * @param port local port, 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public GameServer(int port) throws IOException {
+        this(port, DEFAULT_THREADS);
+    }
+
+    /**
+     * Bind the port on localhost.
+     * @param port local port, 0 for any free port
+     * @param threads maximum number of connections served at once, at least 1
+     * @throws IOException if the port cannot be bound
+     */
+    public GameServer(int port, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Server threads must be at least 1, got " + threads);
+        }
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        connections = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "game-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        int threads = DEFAULT_THREADS;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("port=")) {
+                port = Integer.parseInt(args[i].substring("port=".length()));
+            } else if (args[i].startsWith("threads=")) {
+                threads = Integer.parseInt(args[i].substring("threads=".length()));
+            }
+        }
+        try (GameServer server = new GameServer(port, threads)) {
+            server.run();
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    /**
+     * @return local port the server listens to
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Serve the connections on the threads of the server until the server is closed.
+     */
+    public void run() {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                return; // closed
+            }
+            connections.execute(() -> {
+                try (socket) {
+                    socket.setTcpNoDelay(true);
+                    serve(new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                            new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+                } catch (IOException e) {
+                    System.err.println(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stop accepting connections, and stop serving those not yet started.
+     */
+    @Override
+    public void close() throws IOException {
+        connections.shutdownNow();
+        server.close();
+    }
+
+    /**
+     * Play the game of a connection until it is closed.
+     * @param in messages of the client
+     * @param out answers to the client
+     * @throws IOException if the connection fails or the client does not speak the protocol
+     */
+    public static void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+            throw new IOException("Not a game client");
+        }
+        Game game = null;
+        while (true) {
+            byte type;
+            try {
+                type = in.readByte();
+            } catch (EOFException e) {
+                return;
+            }
+            if (type == CLOSE) {
+                return;
+            } else if (type == OPEN_WORLD || type == OPEN_BOARD) {
+                game = open(type, in, out);
+                out.flush();
+                continue;
+            } else if (game == null) {
+                throw new IOException("No game opened before message " + type);
+            }
+            switch (type) {
+                case PROBE:
+                    probe(game, in, out);
+                    out.flush();
+                    break;
+                case MARK:
+                    for (int i = in.readInt(); i > 0; i--) {
+                        game.markMine();
+                    }
+                    break;
+                case VIEW:
+                    game.updateStartMap(in.readShort(), in.readShort(), (char) in.readByte());
+                    break;
+                case GIVE_UP:
+                    game.giveUp();
+                    break;
+                case SNAPSHOT:
+                    game.snapshot();
+                    break;
+                case ROLLBACK:
+                    game.rollback();
+                    break;
+                case RELEASE:
+                    game.release();
+                    break;
+                default:
+                    throw new IOException("Unknown message " + type);
+            }
+        }
+    }
+
+    /**
+     * @return the game opened, or null if the world or board is invalid
+     */
+    private static Game open(byte type, DataInputStream in, DataOutputStream out) throws IOException {
+        Game game;
+        try {
+            if (type == OPEN_WORLD) {
+                game = new Game(World.valueOf(in.readUTF()));
+            } else {
+                int n = in.readInt();
+                if (n < 0 || n > MAX_SIZE) {
+                    out.writeByte(1);
+                    out.writeUTF("Board must be at most " + MAX_SIZE + " cells wide");
+                    out.flush();
+                    throw new IOException("Board size " + n + " out of range");
+                }
+                char[][] board = new char[n][n];
+                for (int y = 0; y < n; y++) {
+                    for (int x = 0; x < n; x++) {
+                        board[y][x] = (char) in.readByte();
+                    }
+                }
+                game = new Game(board);
+            }
+        } catch (IllegalArgumentException e) {
+            out.writeByte(1);
+            out.writeUTF(String.valueOf(e.getMessage()));
+            return null;
+        }
+        out.writeByte(0);
+        char[][] startMap = game.getStartMap();
+        out.writeInt(startMap.length);
+        for (char[] row : startMap) {
+            for (char c : row) {
+                out.writeByte(c);
+            }
+        }
+        out.writeInt(game.getSafeCount());
+        out.writeInt(game.getCoveredCount());
+        return game;
+    }
+
+    /**
+     * Probe the requested cells like Player does: the cells first, then the zero cascade of each.
+     */
+    private static void probe(Game game, DataInputStream in, DataOutputStream out) throws IOException {
+        Coord[] cells = new Coord[in.readInt()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = Coord.of(in.readShort(), in.readShort());
+        }
+        ArrayList<Coord> revealed = new ArrayList<>();
+        char[] values = game.probe(cells);
+        for (int i = 0; i < values.length; i++) {
+            game.updateStartMap(cells[i].getX(), cells[i].getY(), values[i]);
+            revealed.add(cells[i]);
+        }
+        ArrayDeque<Coord> zeros = new ArrayDeque<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == '0') {
+                zeros.add(cells[i]);
+            }
+        }
+        char[][] startMap = game.getStartMap();
+        while (!zeros.isEmpty()) {
+            for (Coord n : zeros.poll().neighbors()) {
+                if (game.isValidCoord(n) && startMap[n.getY()][n.getX()] == '?') {
+                    char c = game.probe(n);
+                    game.updateStartMap(n.getX(), n.getY(), c);
+                    revealed.add(n);
+                    if (c == '0') {
+                        zeros.add(n);
+                    }
+                }
+            }
+        }
+
+        out.writeInt(revealed.size());
+        for (Coord c : revealed) {
+            out.writeShort(c.getX());
+            out.writeShort(c.getY());
+            out.writeByte(startMap[c.getY()][c.getX()]);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * HintPlanes finds every cell that the single point strategy decides in one sweep of the view:
+ * a covered neighbor of a hint whose marked neighbors already account for its mines is safe,
+ * and a covered neighbor of a hint whose remaining mines equal its covered neighbors is a mine.
+ *
+ * The view is packed into planes of byte lanes, 8 cells to a long, each row padded with an empty lane on both sides:
+ * --- covered: 1 for a covered cell
+ * --- marked: 1 for a cell marked as a mine
+ * --- hint: the number of a probed hint, NOT_HINT otherwise
+ * The covered and marked neighbor counts of every cell are the sums of the 3x3 blocks of the planes less the cell,
+ * computed for 8 cells at a time with shifts and additions within the longs: a lane never exceeds 9,
+ * so no sum carries into the next lane. The hints are then compared with the counts lane by lane,
+ * and the safe and mined cells are the covered cells next to a hint that decides them.
+ * The scalar sweep computes the same planes cell by cell. It is the reference of the packed sweep, and is used
+ * instead if the system property hintPlanes.scalar is true.
+ *
+ * A cell next to a hint deciding it safe and to a hint deciding it a mine, possible only if a mark is wrong,
+ * is reported as both.
+ */
+public class HintPlanes {
+
+    /**
+     * Lane value of a cell that is not a probed hint, above any count of neighbors
+     */
+    public static final int NOT_HINT = 0x7F;
+
+    private static final long LOW = 0x0101010101010101L;
+    private static final long HIGH = 0x8080808080808080L;
+    private static final long SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    /**
+     * True to use the packed sweep, false for the scalar sweep, set by the system property hintPlanes.scalar
+     */
+    public static final boolean PACKED = !Boolean.getBoolean("hintPlanes.scalar");
+
+    private final int n;
+    private final int words;
+
+    /**
+     * Planes of the rows, row y of the view at index y + 1 with an empty row on both sides
+     */
+    private final long[][] covered;
+    private final long[][] marked;
+    private final long[][] hints;
+
+    /**
+     * Results of the sweep for every cell
+     */
+    private final long[][] coveredCounts;
+    private final long[][] markedCounts;
+    private final long[][] safe;
+    private final long[][] mines;
+
+    /**
+     * Pack the view and sweep it, packed if PACKED.
+     * @param view view of the player, ? for covered cells, * for marked mines and digits for hints
+     */
+    public HintPlanes(char[][] view) {
+        this(view, PACKED);
+    }
+
+    /**
+     * @param view view of the player, ? for covered cells, * for marked mines and digits for hints
+     * @param packed true for the packed sweep, false for the scalar sweep
+     */
+    public HintPlanes(char[][] view, boolean packed) {
+        n = view.length;
+        words = (n + 2 + 7) / 8;
+        covered = new long[n + 2][words];
+        marked = new long[n + 2][words];
+        hints = new long[n + 2][words];
+        coveredCounts = new long[n + 2][words];
+        markedCounts = new long[n + 2][words];
+        safe = new long[n + 2][words];
+        mines = new long[n + 2][words];
+        for (long[] row : hints) {
+            Arrays.fill(row, LOW * NOT_HINT);
+        }
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                char c = view[y][x];
+                if (c == '?') {
+                    setLane(covered, x, y, 1);
+                } else if (c == '*') {
+                    setLane(marked, x, y, 1);
+                } else if (c >= '0' && c <= '9') {
+                    setLane(hints, x, y, c - '0');
+                }
+            }
+        }
+        if (packed) {
+            sweepPacked();
+        } else {
+            sweepScalar();
+        }
+    }
+
+    private void sweepPacked() {
+        long[] decidedSafe = new long[words];
+        long[] decidedMine = new long[words];
+        long[][] safeHints = new long[n + 2][];
+        long[][] mineHints = new long[n + 2][];
+        safeHints[0] = new long[words];
+        mineHints[0] = new long[words];
+        safeHints[n + 1] = new long[words];
+        mineHints[n + 1] = new long[words];
+        for (int y = 1; y <= n; y++) {
+            blockSum(covered, y, coveredCounts[y]);
+            blockSum(marked, y, markedCounts[y]);
+            safeHints[y] = new long[words];
+            mineHints[y] = new long[words];
+            for (int w = 0; w < words; w++) {
+                long remaining = subtract(hints[y][w], markedCounts[y][w]);
+                long hasCovered = ~equalLanes(coveredCounts[y][w], 0) & HIGH;
+                safeHints[y][w] = equalLanes(remaining, 0) & hasCovered;
+                mineHints[y][w] = equalLanes(remaining, coveredCounts[y][w]) & hasCovered;
+            }
+        }
+        for (int y = 1; y <= n; y++) {
+            blockOr(safeHints, y, decidedSafe);
+            blockOr(mineHints, y, decidedMine);
+            for (int w = 0; w < words; w++) {
+                safe[y][w] = (decidedSafe[w] >>> 7) & covered[y][w];
+                mines[y][w] = (decidedMine[w] >>> 7) & covered[y][w];
+            }
+        }
+    }
+
+    private void sweepScalar() {
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                int coveredCount = 0;
+                int markedCount = 0;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        if (dx != 0 || dy != 0) {
+                            coveredCount += lane(covered, x + dx, y + dy);
+                            markedCount += lane(marked, x + dx, y + dy);
+                        }
+                    }
+                }
+                setLane(coveredCounts, x, y, coveredCount);
+                setLane(markedCounts, x, y, markedCount);
+            }
+        }
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                int hint = lane(hints, x, y);
+                int coveredCount = lane(coveredCounts, x, y);
+                if (hint == NOT_HINT || coveredCount == 0) {
+                    continue;
+                }
+                int remaining = hint - lane(markedCounts, x, y);
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        if (lane(covered, x + dx, y + dy) == 1) {
+                            if (remaining == 0) {
+                                setLane(safe, x + dx, y + dy, 1);
+                            }
+                            if (remaining == coveredCount) {
+                                setLane(mines, x + dx, y + dy, 1);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sum the lanes of the 3x3 blocks centered on the cells of row y of the plane, less the center cells.
+     */
+    private void blockSum(long[][] plane, int y, long[] sums) {
+        for (int w = 0; w < words; w++) {
+            sums[w] = rowSum(plane[y - 1], w) + rowSum(plane[y], w) - plane[y][w] + rowSum(plane[y + 1], w);
+        }
+    }
+
+    /**
+     * @return each lane of the word plus its left and right lanes, across the neighboring words
+     */
+    private long rowSum(long[] row, int w) {
+        long word = row[w];
+        long left = word << 8 | (w > 0 ? row[w - 1] >>> 56 : 0);
+        long right = word >>> 8 | (w + 1 < words ? row[w + 1] << 56 : 0);
+        return word + left + right;
+    }
+
+    /**
+     * Or the high bits of the 3x3 blocks centered on the cells of row y of the masks.
+     */
+    private void blockOr(long[][] masks, int y, long[] result) {
+        for (int w = 0; w < words; w++) {
+            result[w] = rowOr(masks[y - 1], w) | rowOr(masks[y], w) | rowOr(masks[y + 1], w);
+        }
+    }
+
+    private long rowOr(long[] row, int w) {
+        long word = row[w];
+        long left = word << 8 | (w > 0 ? row[w - 1] >>> 56 : 0);
+        long right = word >>> 8 | (w + 1 < words ? row[w + 1] << 56 : 0);
+        return word | left | right;
+    }
+
+    /**
+     * @return lanes of a - b, each within its lane without borrowing from the next one
+     */
+    private static long subtract(long a, long b) {
+        return ((a | HIGH) - (b & SEVEN_BITS)) ^ ((a ^ ~b) & HIGH);
+    }
+
+    /**
+     * @return the high bit of every lane where a and b are equal, for lanes below 0x80
+     */
+    private static long equalLanes(long a, long b) {
+        long x = a ^ b;
+        long nonZero = ((x & SEVEN_BITS) + SEVEN_BITS | x) & HIGH;
+        return ~nonZero & HIGH;
+    }
+
+    /**
+     * @return value of the lane of (x, y) in the plane, 0 outside the board
+     */
+    private int lane(long[][] plane, int x, int y) {
+        if (x < 0 || y < 0 || x >= n || y >= n) {
+            return 0;
+        }
+        int lane = x + 1;
+        return (int) (plane[y + 1][lane >>> 3] >>> ((lane & 7) << 3)) & 0xFF;
+    }
+
+    private void setLane(long[][] plane, int x, int y, int value) {
+        int lane = x + 1;
+        int shift = (lane & 7) << 3;
+        long[] row = plane[y + 1];
+        row[lane >>> 3] = row[lane >>> 3] & ~(0xFFL << shift) | (long) value << shift;
+    }
+
+    /**
+     * @return number of covered neighbors of the cell
+     */
+    public int getCoveredCount(Coord cell) {
+        return lane(coveredCounts, cell.getX(), cell.getY());
+    }
+
+    /**
+     * @return number of neighbors of the cell marked as mines
+     */
+    public int getMarkedCount(Coord cell) {
+        return lane(markedCounts, cell.getX(), cell.getY());
+    }
+
+    /**
+     * @return covered cells next to a hint with no mine left, in reading order
+     */
+    public List<Coord> getSafeCells() {
+        return cells(safe);
+    }
+
+    /**
+     * @return covered cells next to a hint with as many mines left as covered neighbors, in reading order
+     */
+    public List<Coord> getMineCells() {
+        return cells(mines);
+    }
+
+    private List<Coord> cells(long[][] plane) {
+        List<Coord> cells = new ArrayList<>();
+        for (int y = 0; y < n; y++) {
+            long[] row = plane[y + 1];
+            for (int w = 0; w < words; w++) {
+                long word = row[w];
+                while (word != 0) {
+                    int lane = w * 8 + (Long.numberOfTrailingZeros(word) >>> 3);
+                    cells.add(Coord.of(lane - 1, y));
+                    word &= word - 1;
+                }
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,422 @@
+package main;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * LinearSystem deduces cells by Gaussian elimination over the hints written as linear equations.
+ * A hint states that the sum of the mine variables of its covered neighbors equals its remaining mines:
+ * --- x1 + x2 + ... + xn = k, where xi = 1 if the cell is a mine else 0
+ *
+ * The equations are kept in reduced row echelon form with integer coefficients, and each new equation is
+ * reduced against the rows as it arrives. A row whose bounds allow only one value for a variable fixes it:
+ * --- min = sum of the negative coefficients, max = sum of the positive coefficients
+ * --- xj = 1 is impossible if the row cannot reach its right side with it, and so is xj = 0
+ * A fixed value is substituted into every row, which may fix further variables.
+ *
+ * Variables are the literals of the cells (Coord.literal). Every deduction is entailed by the equations,
+ * so a LinearSystem is a sound but incomplete tier in front of the satisfiability test.
+ *
+ * The system can be saved with snapshot() and restored with rollback(). While a snapshot is open, the rows
+ * replaced and the variables fixed are recorded in a Trail, so a rollback costs O(changes) instead of a copy.
+ */
+public class LinearSystem {
+
+    /**
+     * Value of a variable that is not fixed by the equations
+     */
+    public static final int UNKNOWN = -1;
+
+    // trail values of the changes, keyed by the column of the pivot row or of the variable
+    private static final int PIVOT = 0;
+    private static final int KNOWN = 1;
+    private static final int INCONSISTENT = 2;
+
+    /**
+     * An equation sum(coefs[i] * cols[i]) = rhs, with cols sorted. Rows are never modified once built.
+     */
+    private static final class Row {
+        final int[] cols;
+        final long[] coefs;
+        final long rhs;
+
+        Row(int[] cols, long[] coefs, long rhs) {
+            this.cols = cols;
+            this.coefs = coefs;
+            this.rhs = rhs;
+        }
+
+        long coefOf(int col) {
+            int i = Arrays.binarySearch(cols, col);
+            return i < 0 ? 0 : coefs[i];
+        }
+    }
+
+    /**
+     * Rows by pivot column. The pivot column of a row appears in no other row.
+     */
+    private final HashMap<Integer, Row> pivots;
+
+    /**
+     * Fixed value of each variable, no row contains a fixed variable
+     */
+    private final HashMap<Integer, Integer> known;
+
+    private final ArrayDeque<int[]> pendingFixes = new ArrayDeque<>();
+    private boolean inconsistent = false;
+
+    private final Trail trail = new Trail();
+
+    public LinearSystem() {
+        pivots = new HashMap<>();
+        known = new HashMap<>();
+    }
+
+    private LinearSystem(LinearSystem other) {
+        pivots = new HashMap<>(other.pivots);
+        known = new HashMap<>(other.known);
+        inconsistent = other.inconsistent;
+    }
+
+    /**
+     * @return an independent copy of the system, without its snapshots
+     */
+    public LinearSystem copy() {
+        return new LinearSystem(this);
+    }
+
+    /**
+     * Save the current state of the system. Snapshots can be nested.
+     */
+    public void snapshot() {
+        trail.openLevel();
+    }
+
+    /**
+     * Undo every change made since the most recent snapshot and close it.
+     */
+    public void rollback() {
+        int start = trail.levelStart();
+        while (trail.size() > start) {
+            int key = trail.lastKey();
+            switch (trail.lastValue()) {
+                case PIVOT:
+                    Row row = (Row) trail.lastObject();
+                    if (row == null) {
+                        pivots.remove(key);
+                    } else {
+                        pivots.put(key, row);
+                    }
+                    break;
+                case KNOWN:
+                    known.remove(key);
+                    break;
+                default:
+                    inconsistent = false;
+            }
+            trail.pop();
+        }
+        trail.closeLevel();
+    }
+
+    /**
+     * Close the most recent snapshot and keep the changes made since.
+     */
+    public void release() {
+        trail.closeLevel();
+    }
+
+    /**
+     * Add the equation that exactly k of the variables are 1.
+     * @param literals variables of the equation
+     * @param k right side of the equation
+     */
+    public void addEquation(int[] literals, int k) {
+        int[] cols = Arrays.stream(literals).sorted().distinct().toArray();
+        long[] coefs = new long[cols.length];
+        Arrays.fill(coefs, 1);
+        insert(new Row(cols, coefs, k));
+        propagate();
+    }
+
+    /**
+     * Fix a variable, e.g. a cell that has been probed or marked.
+     * @param literal variable to fix
+     * @param value 1 for a mine, 0 for a safe cell
+     */
+    public void fix(int literal, int value) {
+        pendingFixes.add(new int[] {literal, value});
+        propagate();
+    }
+
+    /**
+     * @param literal variable of a cell
+     * @return 1 if the equations entail a mine, 0 if they entail a safe cell, otherwise UNKNOWN
+     */
+    public int valueOf(int literal) {
+        if (inconsistent) {
+            return UNKNOWN; // everything is entailed, leave it to the satisfiability test
+        }
+        Integer value = known.get(literal);
+        return value == null ? UNKNOWN : value;
+    }
+
+    /**
+     * @return true if the equations have no 0/1 solution
+     */
+    public boolean isInconsistent() {
+        return inconsistent;
+    }
+
+    public int getRowCount() {
+        return pivots.size();
+    }
+
+    /**
+     * @return number of variables fixed or deduced
+     */
+    public int getKnownCount() {
+        return known.size();
+    }
+
+    /**
+     * Reduce the row against the pivot rows, then make it a pivot row and eliminate its pivot from the others.
+     * A row whose coefficients overflow is dropped, which only weakens the deductions.
+     */
+    private void insert(Row row) {
+        if (inconsistent) {
+            return;
+        }
+        try {
+            row = substituteKnown(row);
+            for (int col : row.cols) {
+                Row pivotRow = pivots.get(col);
+                if (pivotRow != null && row.coefOf(col) != 0) {
+                    row = eliminate(row, pivotRow, col);
+                }
+            }
+        } catch (ArithmeticException e) {
+            return;
+        }
+        if (row.cols.length == 0) {
+            if (row.rhs != 0) {
+                setInconsistent();
+            }
+            return;
+        }
+
+        int pivot = row.cols[0];
+        ArrayList<Integer> others = new ArrayList<>();
+        for (Map.Entry<Integer, Row> other : pivots.entrySet()) {
+            if (other.getValue().coefOf(pivot) != 0) {
+                others.add(other.getKey());
+            }
+        }
+        for (int otherPivot : others) {
+            Row other = pivots.get(otherPivot);
+            try {
+                Row reduced = eliminate(other, row, pivot);
+                setPivot(otherPivot, reduced);
+                deduce(reduced);
+            } catch (ArithmeticException e) {
+                setPivot(otherPivot, null);
+            }
+        }
+        setPivot(pivot, row);
+        deduce(row);
+    }
+
+    /**
+     * Replace the row of a pivot column, recording the previous row while a snapshot is open.
+     * @param row new row, or null to remove it
+     */
+    private void setPivot(int pivot, Row row) {
+        if (trail.isRecording()) {
+            trail.push(pivot, PIVOT, pivots.get(pivot));
+        }
+        if (row == null) {
+            pivots.remove(pivot);
+        } else {
+            pivots.put(pivot, row);
+        }
+    }
+
+    private void setKnown(int literal, int value) {
+        if (trail.isRecording()) {
+            trail.push(literal, KNOWN);
+        }
+        known.put(literal, value);
+    }
+
+    private void setInconsistent() {
+        if (!inconsistent && trail.isRecording()) {
+            trail.push(0, INCONSISTENT);
+        }
+        inconsistent = true;
+    }
+
+    /**
+     * Apply the pending fixes until no row fixes a new variable.
+     */
+    private void propagate() {
+        while (!pendingFixes.isEmpty()) {
+            int[] fix = pendingFixes.poll();
+            if (!inconsistent) {
+                apply(fix[0], fix[1]);
+            }
+        }
+    }
+
+    private void apply(int literal, int value) {
+        Integer current = known.get(literal);
+        if (current != null) {
+            if (current != value) {
+                setInconsistent();
+            }
+            return;
+        }
+        setKnown(literal, value);
+
+        ArrayList<Integer> affected = new ArrayList<>();
+        for (Map.Entry<Integer, Row> row : pivots.entrySet()) {
+            if (row.getValue().coefOf(literal) != 0) {
+                affected.add(row.getKey());
+            }
+        }
+        for (int pivot : affected) {
+            Row row = pivots.get(pivot);
+            if (row == null) { // dropped by an overflow
+                continue;
+            }
+            Row substituted = substituteKnown(row);
+            if (pivot == literal) { // the row lost its pivot, the remaining columns may be pivots of other rows
+                setPivot(pivot, null);
+                insert(substituted);
+            } else {
+                setPivot(pivot, substituted);
+                deduce(substituted);
+            }
+        }
+    }
+
+    /**
+     * Queue the variables whose value is forced by the bounds of the row.
+     */
+    private void deduce(Row row) {
+        long min = 0;
+        long max = 0;
+        for (long coef : row.coefs) {
+            if (coef < 0) {
+                min += coef;
+            } else {
+                max += coef;
+            }
+        }
+        if (row.rhs < min || row.rhs > max) {
+            setInconsistent();
+            return;
+        }
+        for (int i = 0; i < row.cols.length; i++) {
+            long coef = row.coefs[i];
+            boolean oneImpossible = coef > 0 ? min + coef > row.rhs : max + coef < row.rhs;
+            boolean zeroImpossible = coef > 0 ? max - coef < row.rhs : min - coef > row.rhs;
+            if (oneImpossible) {
+                pendingFixes.add(new int[] {row.cols[i], 0});
+            } else if (zeroImpossible) {
+                pendingFixes.add(new int[] {row.cols[i], 1});
+            }
+        }
+    }
+
+    /**
+     * @return row with the fixed variables moved to the right side
+     */
+    private Row substituteKnown(Row row) {
+        int count = 0;
+        long rhs = row.rhs;
+        for (int i = 0; i < row.cols.length; i++) {
+            Integer value = known.get(row.cols[i]);
+            if (value == null) {
+                count++;
+            } else {
+                rhs -= row.coefs[i] * value;
+            }
+        }
+        if (count == row.cols.length) {
+            return row;
+        }
+        int[] cols = new int[count];
+        long[] coefs = new long[count];
+        int j = 0;
+        for (int i = 0; i < row.cols.length; i++) {
+            if (!known.containsKey(row.cols[i])) {
+                cols[j] = row.cols[i];
+                coefs[j] = row.coefs[i];
+                j++;
+            }
+        }
+        return new Row(cols, coefs, rhs);
+    }
+
+    /**
+     * Fraction-free elimination of col from row: pivotCoef * row - rowCoef * pivotRow, divided by the gcd.
+     * @throws ArithmeticException if a coefficient overflows
+     */
+    private static Row eliminate(Row row, Row pivotRow, int col) {
+        long a = pivotRow.coefOf(col);
+        long b = row.coefOf(col);
+        int[] cols = new int[row.cols.length + pivotRow.cols.length];
+        long[] coefs = new long[cols.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < row.cols.length || j < pivotRow.cols.length) {
+            int c;
+            long coef;
+            if (j == pivotRow.cols.length || (i < row.cols.length && row.cols[i] < pivotRow.cols[j])) {
+                c = row.cols[i];
+                coef = Math.multiplyExact(a, row.coefs[i++]);
+            } else if (i == row.cols.length || pivotRow.cols[j] < row.cols[i]) {
+                c = pivotRow.cols[j];
+                coef = -Math.multiplyExact(b, pivotRow.coefs[j++]);
+            } else {
+                c = row.cols[i];
+                coef = Math.subtractExact(Math.multiplyExact(a, row.coefs[i++]),
+                        Math.multiplyExact(b, pivotRow.coefs[j++]));
+            }
+            if (coef != 0) {
+                cols[n] = c;
+                coefs[n] = coef;
+                n++;
+            }
+        }
+        long rhs = Math.subtractExact(Math.multiplyExact(a, row.rhs), Math.multiplyExact(b, pivotRow.rhs));
+
+        long gcd = Math.abs(rhs);
+        for (int k = 0; k < n; k++) {
+            gcd = gcd(gcd, Math.abs(coefs[k]));
+        }
+        if (n > 0 && coefs[0] < 0) {
+            gcd = -gcd;
+        }
+        if (gcd != 0 && gcd != 1) {
+            for (int k = 0; k < n; k++) {
+                coefs[k] /= gcd;
+            }
+            rhs /= gcd;
+        }
+        return new Row(Arrays.copyOf(cols, n), Arrays.copyOf(coefs, n), rhs);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
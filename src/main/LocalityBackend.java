@@ -0,0 +1,291 @@
+package main;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * LocalityBackend decides a query with the hint formulas near the queried cell first, on another backend.
+ * The hint formulas of the cell's component, those connected to it by shared cells, are ordered by their distance
+ * to the cell: the smallest Chebyshev distance from one of their cells. A query is solved:
+ * --- with the hint formulas within the radius, then
+ * --- if they are satisfiable with the assumption, widened by one cell at a time, skipping the radii that add
+ *     no hint formula, until the whole component is given.
+ * Unsatisfiability of a subset of the hint formulas proves the query unsatisfiable, so an entailment is usually
+ * proved by a handful of hints, and a satisfiable query is only answered once the whole component is satisfiable.
+ * Hint formulas outside the component share no cell with it and are assumed satisfiable, as the KBU of a game is.
+ *
+ * Literals are cells as in the KBU, see Coord.literal. A hint formula with no cell of the board is given last,
+ * and a query whose assumptions are not cells is solved with every hint formula. The counter variables of merged
+ * cells read as cells of the first rows, which only changes the order the hint formulas are given in.
+ * The other backend is given the hint formulas of each query anew, and its limits are shared by the steps.
+ */
+public class LocalityBackend implements SatBackend {
+
+    private final SatBackend inner;
+    private final int radius;
+
+    private final int size;
+
+    /**
+     * Cell of each variable of the board seen so far, filled as the variables are met
+     */
+    private final HashMap<Integer, Coord> cells = new HashMap<>();
+
+    private final ArrayList<int[][]> hintFormulas = new ArrayList<>();
+    private final ArrayList<NormalForm> forms = new ArrayList<>();
+
+    /**
+     * Hint formulas of each variable, by index
+     */
+    private final HashMap<Integer, ArrayList<Integer>> formulasOf = new HashMap<>();
+
+    private long lastConflicts = 0;
+    private long widenings = 0;
+    private boolean satisfied = false;
+
+    /**
+     * @param inner backend solving the hint formulas near the queried cells
+     * @param radius distance from the queried cell of the hint formulas of the first step, at least 0
+     * @param size number of cells on each side of the board
+     */
+    public LocalityBackend(SatBackend inner, int radius, int size) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Locality radius must be at least 0, got " + radius);
+        }
+        this.inner = inner;
+        this.radius = radius;
+        this.size = size;
+    }
+
+    @Override
+    public void addHintFormula(int[][] hintFormula, NormalForm form) {
+        satisfied = false;
+        int index = hintFormulas.size();
+        hintFormulas.add(hintFormula);
+        forms.add(form);
+        int[][] clauses = form == NormalForm.CARDINALITY ? new int[][] {hintFormula[0]} : hintFormula;
+        for (int[] clause : clauses) {
+            for (int literal : clause) {
+                ArrayList<Integer> formulas = formulasOf.computeIfAbsent(Math.abs(literal), l -> new ArrayList<>());
+                if (formulas.isEmpty() || formulas.get(formulas.size() - 1) != index) {
+                    formulas.add(index);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Result solve(int[] assumptions, long millis, long maxConflicts) {
+        return solve(assumptions, millis, maxConflicts, () -> false);
+    }
+
+    @Override
+    public Result solve(int[] assumptions, long millis, long maxConflicts, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        lastConflicts = 0;
+        Coord[] targets = targets(assumptions);
+        int[] order = component(assumptions, targets);
+        int[] distances = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            distances[i] = targets == null ? 0 : distance(order[i], targets);
+        }
+        sortByDistance(order, distances);
+
+        inner.reset();
+        int given = 0;
+        Result result = Result.SAT;
+        while (given < order.length) {
+            int limit = Math.max(radius, distances[given]);
+            if (given > 0) {
+                widenings++;
+            }
+            while (given < order.length && distances[given] <= limit) {
+                inner.addHintFormula(hintFormulas.get(order[given]), forms.get(order[given]));
+                given++;
+            }
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            result = inner.solve(assumptions, millis == Long.MAX_VALUE ? millis : Math.max(0, millis - elapsed),
+                    maxConflicts == Long.MAX_VALUE ? maxConflicts : Math.max(0, maxConflicts - lastConflicts),
+                    cancelled);
+            lastConflicts += inner.getLastConflicts();
+            if (result != Result.SAT) {
+                break;
+            }
+        }
+        satisfied = result == Result.SAT;
+        return result;
+    }
+
+    /**
+     * @return indices of the hint formulas connected to the assumptions by shared variables, in index order,
+     * or every hint formula if an assumption is not a cell
+     */
+    private int[] component(int[] assumptions, Coord[] targets) {
+        if (targets == null) {
+            int[] all = new int[hintFormulas.size()];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        boolean[] reached = new boolean[hintFormulas.size()];
+        ArrayDeque<Integer> variables = new ArrayDeque<>();
+        HashMap<Integer, Boolean> visited = new HashMap<>();
+        for (int literal : assumptions) {
+            variables.add(Math.abs(literal));
+            visited.put(Math.abs(literal), true);
+        }
+        int count = 0;
+        while (!variables.isEmpty()) {
+            ArrayList<Integer> formulas = formulasOf.get(variables.poll());
+            if (formulas == null) {
+                continue;
+            }
+            for (int formula : formulas) {
+                if (reached[formula]) {
+                    continue;
+                }
+                reached[formula] = true;
+                count++;
+                int[][] hintFormula = hintFormulas.get(formula);
+                int[][] clauses = forms.get(formula) == NormalForm.CARDINALITY
+                        ? new int[][] {hintFormula[0]} : hintFormula;
+                for (int[] clause : clauses) {
+                    for (int literal : clause) {
+                        if (visited.putIfAbsent(Math.abs(literal), true) == null) {
+                            variables.add(Math.abs(literal));
+                        }
+                    }
+                }
+            }
+        }
+        int[] component = new int[count];
+        for (int i = 0, c = 0; i < reached.length; i++) {
+            if (reached[i]) {
+                component[c++] = i;
+            }
+        }
+        return component;
+    }
+
+    /**
+     * @return cells of the assumptions, null if one of them is not a cell
+     */
+    private Coord[] targets(int[] assumptions) {
+        Coord[] targets = new Coord[assumptions.length];
+        for (int i = 0; i < assumptions.length; i++) {
+            targets[i] = cellOf(assumptions[i]);
+            if (targets[i] == null) {
+                return null;
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * @return smallest Chebyshev distance between a cell of the hint formula and a target,
+     * Integer.MAX_VALUE if the hint formula has no cell
+     */
+    private int distance(int formula, Coord[] targets) {
+        int[][] hintFormula = hintFormulas.get(formula);
+        int[][] clauses = forms.get(formula) == NormalForm.CARDINALITY ? new int[][] {hintFormula[0]} : hintFormula;
+        int distance = Integer.MAX_VALUE;
+        for (int[] clause : clauses) {
+            for (int literal : clause) {
+                Coord cell = cellOf(literal);
+                if (cell == null) {
+                    continue;
+                }
+                for (Coord target : targets) {
+                    distance = Math.min(distance, Math.max(Math.abs(cell.getX() - target.getX()),
+                            Math.abs(cell.getY() - target.getY())));
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * @return cell of the literal, null if it is not a cell of the board
+     */
+    private Coord cellOf(int literal) {
+        return cells.computeIfAbsent(Math.abs(literal), variable -> {
+            Coord cell = Coord.ofLiteral(variable);
+            return cell.getX() < size && cell.getY() < size ? cell : null;
+        });
+    }
+
+    /**
+     * Sort the hint formulas by distance, stable so that equal distances keep the order they were added in.
+     */
+    private static void sortByDistance(int[] order, int[] distances) {
+        Integer[] indices = new Integer[order.length];
+        Arrays.setAll(indices, i -> i);
+        Arrays.sort(indices, (a, b) -> Integer.compare(distances[a], distances[b]));
+        int[] sortedOrder = new int[order.length];
+        int[] sortedDistances = new int[order.length];
+        for (int i = 0; i < indices.length; i++) {
+            sortedOrder[i] = order[indices[i]];
+            sortedDistances[i] = distances[indices[i]];
+        }
+        System.arraycopy(sortedOrder, 0, order, 0, order.length);
+        System.arraycopy(sortedDistances, 0, distances, 0, distances.length);
+    }
+
+    @Override
+    public void describeQuery(int componentSize, int equationCount) {
+        inner.describeQuery(componentSize, equationCount);
+    }
+
+    /**
+     * @return model of the last step of the last call to solve, over the cells of the queried component
+     * unless an assumption is not a cell
+     */
+    @Override
+    public int[] getModel() {
+        return satisfied ? inner.getModel() : null;
+    }
+
+    @Override
+    public void reset() {
+        satisfied = false;
+        hintFormulas.clear();
+        forms.clear();
+        formulasOf.clear();
+        inner.reset();
+    }
+
+    /**
+     * @return conflicts of every step of the last call to solve
+     */
+    @Override
+    public long getLastConflicts() {
+        return lastConflicts;
+    }
+
+    /**
+     * @return clauses given to the other backend by the last call to solve
+     */
+    @Override
+    public long getClauseCount() {
+        return inner.getClauseCount();
+    }
+
+    @Override
+    public String getName() {
+        return "local(" + inner.getName() + ")";
+    }
+
+    @Override
+    public String getLastEngine() {
+        return inner.getLastEngine();
+    }
+
+    /**
+     * @return number of times a query was widened past its first step
+     */
+    public long getWidenings() {
+        return widenings;
+    }
+}
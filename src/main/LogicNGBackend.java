@@ -0,0 +1,240 @@
+package main;
+
+import org.logicng.datastructures.Assignment;
+import org.logicng.datastructures.Tristate;
+import org.logicng.formulas.CType;
+import org.logicng.formulas.FType;
+import org.logicng.formulas.Formula;
+import org.logicng.formulas.FormulaFactory;
+import org.logicng.formulas.Literal;
+import org.logicng.formulas.Variable;
+import org.logicng.handlers.SATHandler;
+import org.logicng.solvers.MiniSat;
+import org.logicng.solvers.SATSolver;
+import org.logicng.transformations.cnf.CNFFactorization;
+import org.logicng.transformations.cnf.PlaistedGreenbaumTransformation;
+import org.logicng.transformations.cnf.TseitinTransformation;
+
+import java.util.ArrayList;
+import java.util.function.BooleanSupplier;
+
+/**
+ * LogicNGBackend solves the KBU with the MiniSat solver of the LogicNG library.
+ * Each literal is a LogicNG variable named by the cell's literal.
+ *
+ * Cardinality hint formulas are encoded into clauses by MiniSat.
+ * MiniSat only accepts CNF, so each DNF hint formula is transformed into CNF once with the chosen
+ * CNFTransformation when it is added, and the solver keeps it for all later queries.
+ */
+public class LogicNGBackend implements SatBackend {
+
+    /**
+     * Strategies to turn a DNF hint formula into CNF.
+     * 1. TSEITIN: auxiliary variable equivalent to each clause, linear size
+     * 2. PLAISTED_GREENBAUM: auxiliary variable implying each clause, linear size with fewer clauses than Tseitin
+     * 3. FACTORIZATION: distributes the conjunctions over the disjunction, no new variables but exponential size
+     */
+    public enum CNFTransformation {
+        TSEITIN, PLAISTED_GREENBAUM, FACTORIZATION;
+
+        /**
+         * @param formula hint formula to transform
+         * @return an equisatisfiable CNF of the hint formula
+         */
+        Formula apply(Formula formula) {
+            int boundaryForFactorization = 0; // always use the chosen strategy, even for small formulas
+            switch (this) {
+                case TSEITIN:
+                    return formula.transform(new TseitinTransformation(boundaryForFactorization));
+                case FACTORIZATION:
+                    return formula.transform(new CNFFactorization());
+                default:
+                    return formula.transform(new PlaistedGreenbaumTransformation(boundaryForFactorization));
+            }
+        }
+    }
+
+    public static final CNFTransformation DEFAULT_TRANSFORMATION = CNFTransformation.PLAISTED_GREENBAUM;
+
+    /**
+     * The formula factory is kept for the whole game so that auxiliary variables stay valid.
+     */
+    private final FormulaFactory f = new FormulaFactory();
+    private final CNFTransformation transformation;
+    private final SATSolver miniSat = MiniSat.miniSat(f);
+    private long clauseCount = 0;
+    private long lastConflicts = 0;
+    private boolean satisfied = false;
+
+    public LogicNGBackend() {
+        this(DEFAULT_TRANSFORMATION);
+    }
+
+    public LogicNGBackend(CNFTransformation transformation) {
+        this.transformation = transformation;
+    }
+
+    @Override
+    public void addHintFormula(int[][] hintFormula, NormalForm form) {
+        satisfied = false;
+        if (form == NormalForm.CARDINALITY) {
+            Literal[] literals = new Literal[hintFormula[0].length];
+            int[] coefficients = new int[literals.length];
+            for (int i = 0; i < literals.length; i++) {
+                literals[i] = toLiteral(hintFormula[0][i]);
+                coefficients[i] = 1;
+            }
+            clauseCount++;
+            miniSat.add(f.pbc(CType.EQ, hintFormula[1][0], literals, coefficients)); // encoded by the solver
+            return;
+        }
+        Formula[] clauses = new Formula[hintFormula.length];
+        for (int i = 0; i < hintFormula.length; i++) {
+            Literal[] literals = new Literal[hintFormula[i].length];
+            for (int j = 0; j < hintFormula[i].length; j++) {
+                literals[j] = toLiteral(hintFormula[i][j]);
+            }
+            clauses[i] = form == NormalForm.DNF ? f.and(literals) : f.or(literals);
+        }
+        Formula cnf;
+        if (form == NormalForm.DNF) {
+            cnf = transformation.apply(f.or(clauses));
+        } else {
+            cnf = f.and(clauses);
+        }
+        clauseCount += countClauses(cnf);
+        miniSat.add(cnf);
+    }
+
+    @Override
+    public Result solve(int[] assumptions, long millis, long maxConflicts) {
+        return solve(assumptions, millis, maxConflicts, () -> false);
+    }
+
+    @Override
+    public Result solve(int[] assumptions, long millis, long maxConflicts, BooleanSupplier cancelled) {
+        satisfied = false;
+        if (cancelled.getAsBoolean()) {
+            lastConflicts = 0;
+            return Result.UNKNOWN;
+        }
+        ArrayList<Literal> literals = new ArrayList<>(assumptions.length);
+        for (int literal : assumptions) {
+            literals.add(toLiteral(literal));
+        }
+        BudgetHandler handler = new BudgetHandler(millis, maxConflicts, cancelled);
+        Tristate result = miniSat.sat(handler, literals);
+        lastConflicts = handler.conflicts;
+        if (result == Tristate.UNDEF) {
+            return Result.UNKNOWN;
+        }
+        satisfied = result == Tristate.TRUE;
+        return satisfied ? Result.SAT : Result.UNSAT;
+    }
+
+    /**
+     * @return the value of every cell in the model of the last call to solve, the auxiliary variables
+     * of the CNF transformations and cardinality encodings left out
+     */
+    @Override
+    public int[] getModel() {
+        if (!satisfied) {
+            return null;
+        }
+        Assignment assignment = miniSat.model();
+        ArrayList<Integer> model = new ArrayList<>();
+        for (Variable variable : assignment.positiveVariables()) {
+            if (isCell(variable)) {
+                model.add(Integer.parseInt(variable.name()));
+            }
+        }
+        for (Literal literal : assignment.negativeLiterals()) {
+            if (isCell(literal.variable())) {
+                model.add(-Integer.parseInt(literal.name()));
+            }
+        }
+        return model.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static boolean isCell(Variable variable) {
+        return Character.isDigit(variable.name().charAt(0));
+    }
+
+    @Override
+    public void reset() {
+        satisfied = false;
+        miniSat.reset();
+        clauseCount = 0;
+    }
+
+    @Override
+    public long getLastConflicts() {
+        return lastConflicts;
+    }
+
+    @Override
+    public long getClauseCount() {
+        return clauseCount;
+    }
+
+    @Override
+    public String getName() {
+        return "logicng";
+    }
+
+    public CNFTransformation getTransformation() {
+        return transformation;
+    }
+
+    /**
+     * @param cnf formula in CNF
+     * @return number of clauses of the formula
+     */
+    private static long countClauses(Formula cnf) {
+        if (cnf.type() == FType.AND) {
+            return cnf.numberOfOperands();
+        }
+        return cnf.type() == FType.TRUE ? 0 : 1;
+    }
+
+    /**
+     * @param literal sign * cell.literal()
+     * @return LogicNG literal named by the cell's literal, positive if mine
+     */
+    private Literal toLiteral(int literal) {
+        return f.literal(String.valueOf(Math.abs(literal)), literal > 0);
+    }
+
+    /**
+     * BudgetHandler counts the conflicts of a MiniSat call and aborts it once the query limits are reached
+     * or the query is cancelled.
+     */
+    private static class BudgetHandler implements SATHandler {
+
+        private final long deadline;
+        private final long maxConflicts;
+        private final BooleanSupplier cancelled;
+        private long conflicts = 0;
+        private boolean aborted = false;
+
+        BudgetHandler(long millis, long maxConflicts, BooleanSupplier cancelled) {
+            long now = System.nanoTime();
+            this.deadline = millis == Long.MAX_VALUE ? Long.MAX_VALUE : now + millis * 1000000;
+            this.maxConflicts = maxConflicts;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public boolean detectedConflict() {
+            conflicts++;
+            aborted = conflicts >= maxConflicts || (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0)
+                    || cancelled.getAsBoolean();
+            return !aborted;
+        }
+
+        @Override
+        public boolean aborted() {
+            return aborted;
+        }
+    }
+}
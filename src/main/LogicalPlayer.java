@@ -3,12 +3,14 @@ package main;
 import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * A LogicalPlayer keeps a knowledge base of dangers in the game (KBU).
  * Every time a hint about the number of mines in its neighborhood is uncovered, LogicalPlayer updates its KBU.
  * It chooses its next probe target by querying whether a cell is safe against its KBU.
- * The query is done using a satisfiability test.
+ * The query is done using a satisfiability test by a SatBackend.
  *
  * LogicalPlayer's KBU contains 4 levels of information where the above contains the below:
  * 1. KBU: the entirety of knowledge about world of the LogicalPlayer
@@ -21,7 +23,27 @@ import java.util.ArrayList;
  *
  * The implemented class must implement:
  * 1. existKMines: encoding k mines exist among an array of given cells
- * 2. satTest: satisfiability test used for checking entailSafe
+ * 2. getNormalForm: how the clauses of the hint formulas from existKMines are combined
+ *
+ * Hint formulas are given to the backend as they are added to the KBU, and a query only adds its assumption,
+ * so any backend can be used with any encoding.
+ *
+ * Each hint is also kept as a linear equation in a LinearSystem. A cell fixed by Gaussian elimination is moved
+ * without a satisfiability test. Otherwise, if the cell's component of equations is small enough,
+ * a BitmaskEnumerator decides it by enumerating the component. Only the remaining cells are queried.
+ * With an AdaptiveBackend, the component is enumerated only if its cost model predicts the enumeration to be
+ * faster than the queries, and each query goes to the engine it predicts to be the fastest.
+ *
+ * Cells that are in exactly the same hints are interchangeable, so by default the backend is given the hints
+ * over groups of such cells rather than the hint formulas of the KBU, see VariableGroups.
+ * A query then decides every cell of the group.
+ *
+ * When no cell is entailed, the player gives up unless it has a Lookahead, which chooses a cell to probe
+ * by its risk and by the cells its hint would let the player deduce.
+ *
+ * If the game has a Checkpoint, the equations and the fixed cells are kept as knowledge steps and saved with
+ * the game after the inference passes. A game resumed from a checkpoint starts from its steps rather than
+ * from the initial probes.
  */
 public abstract class LogicalPlayer extends Player {
 
@@ -30,26 +52,132 @@ public abstract class LogicalPlayer extends Player {
      * int[ hintFormula ][ clause ][ literal ]
      */
     protected int[][][] KBU = new int[][][]{};
-    public LogicalPlayer(Game game, boolean verbose) {
+
+    /**
+     * KBU at each open snapshot. The KBU array is replaced rather than modified when hints are added,
+     * so keeping its reference is enough to restore it.
+     */
+    private final ArrayList<int[][][]> savedKBU = new ArrayList<>();
+
+    protected SolverBudget budget = new SolverBudget();
+    protected final SolverStats stats = new SolverStats();
+
+    protected final SatBackend backend;
+
+    /**
+     * Hint formulas of the KBU already added to the backend, in order
+     */
+    private final ArrayList<int[][]> backendKBU = new ArrayList<>();
+
+    /**
+     * Hints as linear equations, deduces cells before the satisfiability test
+     */
+    private final LinearSystem linear = new LinearSystem();
+    private boolean linearTier = true;
+
+    /**
+     * Hint formulas of the KBU as equations { literals, { k } }, replaced rather than modified like the KBU
+     */
+    private int[][][] equations = new int[][][]{};
+    private final ArrayList<int[][][]> savedEquations = new ArrayList<>();
+
+    /**
+     * Maximum number of partial assignments enumerated for a component before it is left to the backend
+     */
+    private static final long MAX_ENUMERATION_NODES = 1 << 20;
+    private int enumerationLimit = BitmaskEnumerator.MAX_CELLS;
+    private BitmaskEnumerator enumerator = null;
+    private int[][][] enumeratedEquations = null;
+
+    /**
+     * Groups of the equations given to the backend instead of the KBU, null if the backend holds the KBU
+     */
+    private boolean mergeVariables = true;
+    private VariableGroups groups = null;
+    private int[][][] groupedEquations = null;
+
+    /**
+     * Result of the satisfiability test of each group as a mine and as safe, null if not tested yet
+     */
+    private Boolean[][] groupResults;
+
+    /**
+     * Equations and fixed cells in the order they were added, kept for the checkpoint of the game
+     */
+    private final ArrayList<Checkpoint.Step> steps = new ArrayList<>();
+    private final ArrayList<Integer> savedSteps = new ArrayList<>();
+
+    /**
+     * Writes every decided query with the KBU as an instance for offline solvers, null if queries are not exported
+     */
+    private DimacsWriter export = null;
+
+    /**
+     * Chooses a cell to probe when none is entailed, null to give up instead
+     */
+    private Lookahead lookahead = null;
+
+    /**
+     * Models of the satisfiable queries answering later queries without the backend, null if models are not kept,
+     * with the equations they were last checked against
+     */
+    private ModelPool modelPool = null;
+    private int[][][] pooledEquations = null;
+
+    public LogicalPlayer(Game game, boolean verbose, SatBackend backend) {
         super(game, verbose);
+        this.backend = backend;
     }
 
     /**
      * First starts the game by probing the cells that are guaranteed to be safe.
      * Initialize the KBU based on hints disclosed by the probes.
      * Infer next moves until (1) the game ends with a victory or loss OR (2) no more inference can be made.
+     * With a Lookahead, a cell is guessed whenever no more inference can be made, and the inference goes on.
+     * If the solver budget of the game runs out, the game continues with the single point strategy.
+     * A game resumed from a checkpoint skips the initial probes, its KBU being rebuilt from the checkpoint.
+     * The Lookahead, if any, is closed once the game is over.
      */
     @Override
     public void play() {
-        initialProbes();
-        initializeKBU();
-        boolean changed = inferMoves();
-        while (changed) {
-            changed = inferMoves();
+        try {
+            budget.startGame();
+            Checkpoint checkpoint = game.getCheckpoint();
+            if (checkpoint != null && checkpoint.isResumed()) {
+                resume(checkpoint.takeResumedSteps(this));
+            } else {
+                initialProbes();
+                initializeKBU();
+            }
+            boolean changed = inferMoves();
+            while (changed || !budget.isGameExhausted() && guess()) {
+                changed = inferMoves();
+            }
+            if (budget.isGameExhausted()) {
+                stats.recordExhaustedGame();
+                changed = inferSinglePoint();
+                while (changed) {
+                    changed = inferSinglePoint();
+                }
+            }
+            if (!game.hasEnded()) {
+                game.giveUp();
+                printFinalView();
+            }
+            saveCostModel();
+        } finally {
+            if (lookahead != null) {
+                lookahead.close();
+            }
         }
-        if (!game.hasEnded()) {
-            game.giveUp();
-            printFinalView();
+    }
+
+    /**
+     * Save what the adaptive backend, if any, learned of the latencies of its engines.
+     */
+    void saveCostModel() {
+        if (backend instanceof AdaptiveBackend) {
+            ((AdaptiveBackend) backend).getCostModel().save();
         }
     }
 
@@ -57,36 +185,157 @@ public abstract class LogicalPlayer extends Player {
     /**
      * Infer next moves by checking whether each covered cell is safe according to KBU.
      * If confirmed to be safe, the cell is probed and its hint is added to the KBU.
+     * A cell decided by the linear equations or by the enumeration of its component is not queried.
+     * A cell whose query runs out of budget is left unknown.
+     * The pass ends with the checkpoint of the game, if any.
      * @return whether a probe has been made
      */
     private boolean inferMoves() {
+        tracePass();
         boolean changed = false;
         ArrayList<Coord> newHints = new ArrayList<>();
         for (Coord c : getAllCoveredCells()) {
             if (game.hasEnded()) {
                 break;
             }
-            if (entailSafe(c)) {
-                probe(c);
-                newHints.add(c);
-                printSteps();
-                changed = true;
-            } else if (entailMine(c)) {
-                markMine(c);
-                printSteps();
+            if (budget.isGameExhausted()) {
+                break;
+            }
+            try {
+                int value = decideWithoutQuery(c);
+                if (value == 0 || value == LinearSystem.UNKNOWN && entailSafe(c)) {
+                    fixLinear(c, 0);
+                    probe(c);
+                    newHints.add(c);
+                    printSteps();
+                    changed = true;
+                } else if (value == 1 || value == LinearSystem.UNKNOWN && entailMine(c)) {
+                    fixLinear(c, 1);
+                    markMine(c);
+                    printSteps();
+                }
+            } catch (BudgetExhaustedException e) {
+                stats.recordExhaustedQuery();
             }
         }
 
         addToKBU(newHints.toArray(Coord[]::new));
+        if (game.getCheckpoint() != null) {
+            game.getCheckpoint().passEnded(steps);
+        }
         return changed;
     }
 
+    /**
+     * Probe the cell chosen by the lookahead, and add the hints it uncovers to the KBU.
+     * The cell is not entailed, so it is not fixed in the linear equations.
+     * @return whether a cell has been probed
+     */
+    private boolean guess() {
+        if (lookahead == null || game.hasEnded()) {
+            return false;
+        }
+        Lookahead.Candidate candidate = lookahead.choose(view, equations, game.getCoveredCount() - game.getSafeCount());
+        if (candidate == null) {
+            return false;
+        }
+        Coord[] covered = getAllCoveredCells();
+        stats.recordGuess();
+        probe(candidate.getCell());
+        printSteps();
+        if (!game.hasEnded()) {
+            addToKBU(Arrays.stream(covered).filter(c -> Character.isDigit(getViewOn(c))).toArray(Coord[]::new));
+        }
+        return true;
+    }
+
+    /**
+     * Decide a cell by the linear equations, then by the enumeration of its component.
+     * The equations hold the same hints as the KBU, so a cell undetermined by the enumeration is not entailed.
+     * @param cell Coord to decide
+     * @return 0 if safe, 1 if a mine, BitmaskEnumerator.UNDETERMINED if neither is entailed,
+     * otherwise LinearSystem.UNKNOWN and the cell is left to the queries
+     */
+    private int decideWithoutQuery(Coord cell) {
+        int value = knownValue(cell.literal());
+        if (value != LinearSystem.UNKNOWN) {
+            stats.recordLinearDeduction();
+        } else if (enumerationLimit > 0) {
+            value = enumerate(cell.literal());
+            if (value == 0 || value == 1) {
+                stats.recordEnumeratedDeduction();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Decide a cell by the enumeration of its component.
+     * With an adaptive backend, a component not enumerated yet is enumerated only if the backend predicts it
+     * to be faster than the queries, and the enumeration is timed for the backend's cost model.
+     * @param literal variable of a cell
+     * @return 0 if safe, 1 if a mine, BitmaskEnumerator.UNDETERMINED if neither is entailed,
+     * BitmaskEnumerator.UNKNOWN if the component is not enumerated
+     */
+    private int enumerate(int literal) {
+        BitmaskEnumerator enumerator = getEnumerator();
+        if (!(backend instanceof AdaptiveBackend) || !enumerator.isPending(literal)) {
+            return enumerator.valueOf(literal);
+        }
+        AdaptiveBackend adaptive = (AdaptiveBackend) backend;
+        int size = enumerator.getComponentSize(literal);
+        int equationCount = enumerator.getEquationCount(literal);
+        if (!adaptive.preferEnumeration(size, equationCount)) {
+            return BitmaskEnumerator.UNKNOWN;
+        }
+        long start = System.nanoTime();
+        int value = enumerator.valueOf(literal);
+        adaptive.observeEnumeration(size, equationCount, System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * The enumerator is rebuilt when equations are added or rolled back. Cells entailed in the meantime
+     * do not change the models, so it stays valid while they are moved.
+     * @return enumerator of the components of the current equations
+     */
+    private BitmaskEnumerator getEnumerator() {
+        if (enumerator == null || enumeratedEquations != equations) {
+            enumerator = new BitmaskEnumerator(equations, this::knownValue, enumerationLimit, MAX_ENUMERATION_NODES);
+            enumeratedEquations = equations;
+        }
+        return enumerator;
+    }
+
+    /**
+     * @param literal variable of a cell
+     * @return value of the cell fixed or deduced by the linear equations, LinearSystem.UNKNOWN if none
+     */
+    private int knownValue(int literal) {
+        return linearTier ? linear.valueOf(literal) : LinearSystem.UNKNOWN;
+    }
+
+    /**
+     * Fix a cell entailed by the KBU in the linear equations.
+     * Cells uncovered by the cascade of a probe are not fixed, so the equations never know more than the KBU.
+     * @param cell Coord of the entailed cell
+     * @param value 1 for a mine, 0 for a safe cell
+     */
+    private void fixLinear(Coord cell, int value) {
+        if (linearTier) {
+            linear.fix(cell.literal(), value);
+            if (game.getCheckpoint() != null) {
+                steps.add(new Checkpoint.Step(null, new int[] {cell.literal()}, value));
+            }
+        }
+    }
+
     /**
      * Check entailment of safety by testing the satisfiability of the KBU and the cell as a mine.
      * @param cell Coord object of the cell under safety check
      * @return boolean true if KBU entails the safety of the cell, false if not entails
      */
-    private boolean entailSafe(Coord cell) {
+    private boolean entailSafe(Coord cell) throws BudgetExhaustedException {
         int mineSign = 1;
         return satTest(cell, mineSign);
     }
@@ -96,22 +345,85 @@ public abstract class LogicalPlayer extends Player {
      * @param cell Coord object of the cell under danger check
      * @return boolean true if KBU entails the danger of the cell, false if not entails
      */
-    private boolean entailMine(Coord cell) {
+    private boolean entailMine(Coord cell) throws BudgetExhaustedException {
         int safeSign = -1;
         return satTest(cell, safeSign);
     }
 
+    /**
+     * Single point strategy used once the solver budget of the game is exhausted.
+     * A hint whose remaining mines are 0 makes its covered neighbors safe,
+     * a hint whose remaining mines equal its covered neighbors makes them all mines.
+     * @return whether a move has been made
+     */
+    private boolean inferSinglePoint() {
+        boolean changed = false;
+        for (Coord hint : getActiveHints()) {
+            if (game.hasEnded()) {
+                break;
+            }
+            Coord[] covered = getCoveredNeighbors(hint);
+            int remainingMines = Character.getNumericValue(getViewOn(hint)) - getMarkedNeighbors(hint).length;
+            if (covered.length == 0) {
+                continue;
+            }
+            if (remainingMines == 0) {
+                for (Coord c : covered) {
+                    if (!game.hasEnded() && probe(c)) {
+                        printSteps();
+                    }
+                }
+                changed = true;
+            } else if (remainingMines == covered.length) {
+                for (Coord c : covered) {
+                    if (!game.hasEnded() && markMine(c)) {
+                        printSteps();
+                    }
+                }
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
     /**
      * Add new rules inferred by the given hints to the KBU.
      * @param hints Coord object of the cell that contains the number of mines in its neighborhood.
      */
-    private void addToKBU(Coord[] hints) {
+    protected void addToKBU(Coord[] hints) {
         for (Coord hint: hints) {
             Coord[] neighbors = getCoveredNeighbors(hint);
             int k = Character.getNumericValue(getViewOn(hint));
             int markCount = getMarkedNeighbors(hint).length;
-            int[][] newRules = existKMines(k-markCount, neighbors);
-            addHintFormulaToKBU(newRules);
+            addEquation(k-markCount, neighbors);
+        }
+    }
+
+    /**
+     * Add that exactly k of the cells are mines to the KBU, to the equations and to the linear equations.
+     * @param k number of mines
+     * @param cells Coord that potentially has mines
+     */
+    protected void addEquation(int k, Coord[] cells) {
+        addEquation(existKMines(k, cells), ClauseTemplates.literalsOf(cells), k);
+    }
+
+    /**
+     * Add an equation with its hint formula, kept as a step if the game has a checkpoint.
+     * @param hintFormula hint formula of the equation from existKMines
+     * @param literals cells of the equation
+     * @param k number of mines
+     */
+    private void addEquation(int[][] hintFormula, int[] literals, int k) {
+        addHintFormulaToKBU(hintFormula);
+        if (literals.length > 0) {
+            equations = ArrayUtils.addAll(equations, new int[][][]{{literals, {k}}});
+        }
+        if (linearTier) {
+            linear.addEquation(literals, k);
+        }
+        if (game.getCheckpoint() != null) {
+            steps.add(new Checkpoint.Step(hintFormula, literals, k));
         }
     }
 
@@ -122,12 +434,266 @@ public abstract class LogicalPlayer extends Player {
         addToKBU(getActiveHints());
     }
 
-    private void addHintFormulaToKBU(int[][] hintFormula) {
+    /**
+     * Rebuild the KBU and the linear equations of a game resumed from a checkpoint, whose view is restored.
+     * @param resumedSteps steps of the checkpoint in the order they were taken
+     */
+    private void resume(List<Checkpoint.Step> resumedSteps) {
+        for (Checkpoint.Step step : resumedSteps) {
+            if (step.hintFormula == null) {
+                if (linearTier) {
+                    linear.fix(step.literals[0], step.value);
+                }
+                steps.add(step);
+            } else {
+                addEquation(step.hintFormula, step.literals, step.value);
+            }
+        }
+        resumed();
+    }
+
+    /**
+     * Called once the KBU of a resumed game is rebuilt, for the state a subclass keeps beside the KBU.
+     */
+    protected void resumed() {
+    }
+
+    /**
+     * Save the state of the game, the view and the KBU.
+     */
+    @Override
+    public void snapshot() {
+        super.snapshot();
+        savedKBU.add(KBU);
+        savedEquations.add(equations);
+        linear.snapshot();
+        savedSteps.add(steps.size());
+    }
+
+    /**
+     * Restore the game, the view and the KBU to the most recent snapshot.
+     */
+    @Override
+    public void rollback() {
+        super.rollback();
+        KBU = savedKBU.remove(savedKBU.size() - 1);
+        equations = savedEquations.remove(savedEquations.size() - 1);
+        linear.rollback();
+        steps.subList(savedSteps.remove(savedSteps.size() - 1), steps.size()).clear();
+    }
+
+    @Override
+    public void release() {
+        super.release();
+        savedKBU.remove(savedKBU.size() - 1);
+        savedEquations.remove(savedEquations.size() - 1);
+        linear.release();
+        savedSteps.remove(savedSteps.size() - 1);
+    }
+
+    protected void addHintFormulaToKBU(int[][] hintFormula) {
         if (hintFormula.length != 0 && hintFormula[0].length != 0) {
             KBU = ArrayUtils.addAll(KBU, new int[][][]{hintFormula});
         }
     }
 
+    /**
+     * Test satisfiability of the conjunction of the KBU and the information about the cell.
+     * If sign is -1, test satisfiability for KBU and cell is safe.
+     * If sign is 1, test satisfiability for KBU and cell is danger.
+     * The test stays within the query and game limits of the budget and records its work in the stats,
+     * with the engine that answered and the size of the cell's component. The query is written to the trace
+     * of the game if it is recorded, and exported with the KBU if queries are exported.
+     * With merged variables the cell's group is tested instead, once for all of its cells:
+     * as a mine, whether it has a mine, and as safe, whether it has a safe cell.
+     * With a ModelPool, a query satisfied by the model of an earlier query is not solved, and the model of
+     * every satisfiable query is added to the pool.
+     * @param cell Coord to query
+     * @param sign 1 to test the cell as a mine, -1 to test the cell as safe
+     * @return true if the KBU and the cell with the sign are unsatisfiable
+     * @throws BudgetExhaustedException if the budget runs out before the test is decided
+     */
+    protected boolean satTest(Coord cell, int sign) throws BudgetExhaustedException {
+        int[] assumptions = new int[] {sign * cell.literal()};
+        int group = -1;
+        if (mergeVariables) {
+            syncGroups();
+            group = groups.groupOf(cell.literal());
+            if (groups.isInconsistent() || group < 0) {
+                return groups.isInconsistent(); // a cell in no hint is never entailed
+            }
+            Boolean known = groupResults[group][sign == 1 ? 0 : 1];
+            if (known != null) {
+                stats.recordMergedDeduction();
+                return known;
+            }
+            assumptions[0] = sign == 1 ? groups.atLeast(group, 1) : -groups.atLeast(group, groups.sizeOf(group));
+        } else {
+            syncBackend();
+        }
+        if (modelPool != null) {
+            if (pooledEquations != equations) {
+                modelPool.retainConsistent(equations);
+                pooledEquations = equations;
+            }
+            if (modelPool.satisfies(assumptions)) {
+                stats.recordPooledRefutation();
+                if (group >= 0) {
+                    groupResults[group][sign == 1 ? 0 : 1] = false;
+                }
+                return false;
+            }
+        }
+        backend.describeQuery(getEnumerator().getComponentSize(cell.literal()),
+                getEnumerator().getEquationCount(cell.literal()));
+        SatBackend.Result result = backend.solve(assumptions, budget.queryMillisLeft(), budget.queryConflictsLeft());
+        long conflicts = backend.getLastConflicts();
+        budget.addConflicts(conflicts);
+        TraceRecorder trace = game.getTrace();
+        if (trace != null) {
+            trace.record(TraceRecorder.QUERY, cell.getX(), cell.getY(), sign, result.ordinal(), conflicts);
+        }
+        if (result == SatBackend.Result.UNKNOWN) {
+            throw new BudgetExhaustedException("Query on " + cell + " stopped after " + conflicts + " conflicts");
+        }
+        stats.recordQuery(conflicts);
+        stats.recordEngine(backend.getLastEngine(), getEnumerator().getComponentSize(cell.literal()));
+        if (export != null) {
+            export.write(KBU, getNormalForm(), cell, sign, result);
+        }
+        if (group >= 0) {
+            groupResults[group][sign == 1 ? 0 : 1] = result == SatBackend.Result.UNSAT;
+        }
+        if (modelPool != null && result == SatBackend.Result.SAT) {
+            modelPool.add(backend.getModel());
+        }
+        return result == SatBackend.Result.UNSAT;
+    }
+
+    /**
+     * Give the backend the current equations over groups of cells, if they changed since it was last given.
+     * Cells entailed in the meantime do not change the models, so the results of the groups stay valid.
+     */
+    private void syncGroups() {
+        if (groups == null || groupedEquations != equations) {
+            groups = new VariableGroups(equations, this::knownValue);
+            groupedEquations = equations;
+            groupResults = new Boolean[groups.getGroupCount()][2];
+            if (modelPool != null) {
+                modelPool.clear(); // the variables of the groups are renumbered
+            }
+            backend.reset();
+            backendKBU.clear();
+            groups.addTo(backend, getNormalForm() == SatBackend.NormalForm.CARDINALITY
+                    ? SatBackend.NormalForm.CARDINALITY : SatBackend.NormalForm.CNF);
+        }
+    }
+
+    /**
+     * Add the hint formulas of the KBU that the backend does not have yet.
+     * If the KBU was rolled back to a state the backend has gone past, the backend is rebuilt.
+     */
+    private void syncBackend() {
+        if (groups != null) {
+            backend.reset();
+            backendKBU.clear();
+            groups = null;
+        }
+        int synced = 0;
+        while (synced < backendKBU.size() && synced < KBU.length && backendKBU.get(synced) == KBU[synced]) {
+            synced++;
+        }
+        if (synced < backendKBU.size()) {
+            backend.reset();
+            backendKBU.clear();
+            synced = 0;
+        }
+        for (int i = synced; i < KBU.length; i++) {
+            backend.addHintFormula(KBU[i], getNormalForm());
+            backendKBU.add(KBU[i]);
+        }
+    }
+
+    public SatBackend getBackend() {
+        return backend;
+    }
+
+    public void setBudget(SolverBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @param linearTier false to decide every cell by the satisfiability test only
+     */
+    public void setLinearTier(boolean linearTier) {
+        this.linearTier = linearTier;
+    }
+
+    public boolean isLinearTier() {
+        return linearTier;
+    }
+
+    /**
+     * @param enumerationLimit maximum number of cells of a component decided by enumeration, 0 to disable it
+     */
+    public void setEnumerationLimit(int enumerationLimit) {
+        this.enumerationLimit = enumerationLimit;
+    }
+
+    public int getEnumerationLimit() {
+        return enumerationLimit;
+    }
+
+    /**
+     * @param mergeVariables false to give the backend the hint formulas of the KBU, with a variable for each cell
+     */
+    public void setMergeVariables(boolean mergeVariables) {
+        this.mergeVariables = mergeVariables;
+    }
+
+    public boolean isMergeVariables() {
+        return mergeVariables;
+    }
+
+    /**
+     * @param export writer of the decided queries with the KBU, see DimacsWriter, or null to stop exporting them
+     */
+    public void setExport(DimacsWriter export) {
+        this.export = export;
+    }
+
+    /**
+     * @param lookahead chooses a cell to probe when none is entailed, or null to give up instead,
+     * closed at the end of the game
+     */
+    public void setLookahead(Lookahead lookahead) {
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * @param modelPool keeps the models of the satisfiable queries to answer later queries, or null to solve them all
+     */
+    public void setModelPool(ModelPool modelPool) {
+        this.modelPool = modelPool;
+        pooledEquations = null;
+    }
+
+    public ModelPool getModelPool() {
+        return modelPool;
+    }
+
+    public SolverBudget getBudget() {
+        return budget;
+    }
+
+    public SolverStats getStats() {
+        return stats;
+    }
+
     public abstract int[][] existKMines(int i, Coord[] neighbors);
-    protected abstract boolean satTest(Coord cell, int sign);
+
+    /**
+     * @return normal form of the hint formulas created by existKMines
+     */
+    protected abstract SatBackend.NormalForm getNormalForm();
 }
@@ -0,0 +1,324 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lookahead chooses the cell to probe when no cell is entailed, by weighing for each candidate the risk of a mine
+ * against what its hint would let the player deduce next.
+ *
+ * For each candidate cell:
+ * --- the risk is its mine probability: the share of the models of its component where it is a mine,
+ *     see BitmaskEnumerator, estimated by a MineSampler if one is set for a component too large to enumerate,
+ *     or for a cell in no enumerated or sampled component the density of the mines left elsewhere
+ * --- each plausible hint value has the probability of that many mines among its covered neighbors,
+ *     taking the neighbors as independent with their own mine probabilities
+ * --- the deductions of a hint value are the cells the linear equations fix once the candidate is safe and its
+ *     hint is added, on a copy of the equations, see LinearSystem. A value that makes them inconsistent is dropped.
+ * The candidate chosen has the best expected information per risk: (1 - p) * (1 + expected deductions) / p.
+ * Ties go to the first candidate in reading order, so the choice does not depend on the number of threads.
+ *
+ * Candidates are the covered cells of the equations, and the covered cells in no equation with the fewest covered
+ * neighbors, up to MAX_OTHER_CANDIDATES. They are evaluated in parallel on a ForkJoinPool, each worker on its own
+ * copies of the equations. The pool is shut down by close, after which the Lookahead is not to be used.
+ */
+public class Lookahead implements AutoCloseable {
+
+    /**
+     * Maximum number of covered cells in no equation evaluated, those with the fewest covered neighbors
+     */
+    public static final int MAX_OTHER_CANDIDATES = 8;
+
+    /**
+     * Number of candidates evaluated by a task without splitting it
+     */
+    private static final int LEAF_CANDIDATES = 4;
+    private static final long MAX_ENUMERATION_NODES = 1 << 20;
+    private static final double MIN_RISK = 1e-9;
+
+    /**
+     * A candidate cell with its mine probability and the expected number of cells deduced after probing it
+     */
+    public static final class Candidate {
+        private final Coord cell;
+        private final double risk;
+        private double expectedDeductions = 0;
+
+        Candidate(Coord cell, double risk) {
+            this.cell = cell;
+            this.risk = risk;
+        }
+
+        public Coord getCell() {
+            return cell;
+        }
+
+        public double getRisk() {
+            return risk;
+        }
+
+        public double getExpectedDeductions() {
+            return expectedDeductions;
+        }
+
+        /**
+         * @return expected information per risk, (1 - p) * (1 + expected deductions) / p
+         */
+        public double getScore() {
+            return (1 - risk) * (1 + expectedDeductions) / Math.max(risk, MIN_RISK);
+        }
+
+        @Override
+        public String toString() {
+            return cell + " risk " + risk + " deductions " + expectedDeductions;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private MineSampler sampler = null;
+    private long sampleMillis = 0;
+
+    /**
+     * @param threads number of workers evaluating the candidates, daemon threads that end when closed
+     */
+    public Lookahead(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Lookahead threads must be at least 1, got " + threads);
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Stop the workers once they are idle, and close the sampler if any.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        if (sampler != null) {
+            sampler.close();
+        }
+    }
+
+    /**
+     * @param sampler estimates the mine probabilities of the components too large to enumerate, or null,
+     * closed with the Lookahead
+     * @param millis time budget of each estimate
+     */
+    public void setSampler(MineSampler sampler, long millis) {
+        this.sampler = sampler;
+        this.sampleMillis = millis;
+    }
+
+    /**
+     * @param view view of the player, ? for covered cells and * for marked mines
+     * @param equations equations { literals, { k } } of the hints, see LogicalPlayer
+     * @param remainingMines number of mines not marked yet
+     * @return the candidate with the best expected information per risk, null if no cell is covered
+     */
+    public Candidate choose(char[][] view, int[][][] equations, int remainingMines) {
+        List<Candidate> candidates = evaluate(view, equations, remainingMines);
+        return candidates.stream().max(Comparator.comparingDouble(Candidate::getScore)).orElse(null);
+    }
+
+    /**
+     * Evaluate every candidate.
+     * @param view view of the player, ? for covered cells and * for marked mines
+     * @param equations equations { literals, { k } } of the hints, see LogicalPlayer
+     * @param remainingMines number of mines not marked yet
+     * @return the candidates in reading order
+     */
+    public List<Candidate> evaluate(char[][] view, int[][][] equations, int remainingMines) {
+        int n = view.length;
+        // values of the cells uncovered since their equations were added
+        HashMap<Integer, Integer> values = new HashMap<>();
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                if (view[y][x] != '?') {
+                    values.put(Coord.of(x, y).literal(), view[y][x] == '*' ? 1 : 0);
+                }
+            }
+        }
+        HashMap<Integer, Integer> known = new HashMap<>();
+        for (int[][] equation : equations) {
+            for (int literal : equation[0]) {
+                if (values.containsKey(literal)) {
+                    known.put(literal, values.get(literal));
+                }
+            }
+        }
+        BitmaskEnumerator enumerator = new BitmaskEnumerator(equations,
+                literal -> known.getOrDefault(literal, LinearSystem.UNKNOWN), BitmaskEnumerator.MAX_CELLS,
+                MAX_ENUMERATION_NODES);
+        Map<Integer, MineSampler.Estimate> estimates = sample(equations, known, enumerator);
+        LinearSystem base = new LinearSystem();
+        for (int[][] equation : equations) {
+            base.addEquation(equation[0], equation[1][0]);
+        }
+        known.forEach(base::fix);
+
+        // mine probability of every covered cell, the cells outside the enumerated components share the mines left
+        double[][] risk = new double[n][n];
+        ArrayList<Coord> others = new ArrayList<>();
+        double frontierMines = 0;
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                if (view[y][x] != '?') {
+                    continue;
+                }
+                int literal = Coord.of(x, y).literal();
+                long models = enumerator.getModelCount(literal);
+                if (models > 0) {
+                    risk[y][x] = (double) enumerator.getMineCount(literal) / models;
+                    frontierMines += risk[y][x];
+                } else if (estimates.containsKey(literal)) {
+                    risk[y][x] = estimates.get(literal).getProbability();
+                    frontierMines += risk[y][x];
+                } else {
+                    others.add(Coord.of(x, y));
+                }
+            }
+        }
+        double density = others.isEmpty() ? 0
+                : Math.min(1, Math.max(0, (remainingMines - frontierMines) / others.size()));
+        for (Coord c : others) {
+            risk[c.getY()][c.getX()] = density;
+        }
+
+        ArrayList<Candidate> candidates = new ArrayList<>();
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                int literal = Coord.of(x, y).literal();
+                if (view[y][x] == '?' && (enumerator.getModelCount(literal) > 0 || estimates.containsKey(literal))) {
+                    candidates.add(new Candidate(Coord.of(x, y), risk[y][x]));
+                }
+            }
+        }
+        others.stream()
+                .sorted(Comparator.comparingInt(c -> coveredNeighbors(view, c).size())) // stable, so in reading order
+                .limit(MAX_OTHER_CANDIDATES)
+                .forEach(c -> candidates.add(new Candidate(c, density)));
+        candidates.sort(Comparator.comparingInt((Candidate c) -> c.cell.getY()).thenComparingInt(c -> c.cell.getX()));
+
+        Candidate[] array = candidates.toArray(new Candidate[0]);
+        pool.invoke(new Evaluation(array, 0, array.length, view, risk, base));
+        return Arrays.asList(array);
+    }
+
+    /**
+     * Estimate the mine probabilities of the components too large to enumerate, or whose enumeration ran out of nodes.
+     * @return estimate of each of their cells, empty without a sampler
+     */
+    private Map<Integer, MineSampler.Estimate> sample(int[][][] equations, HashMap<Integer, Integer> known,
+                                                      BitmaskEnumerator enumerator) {
+        if (sampler == null) {
+            return new HashMap<>();
+        }
+        ArrayList<int[][]> unenumerated = new ArrayList<>();
+        for (int[][] equation : equations) {
+            for (int literal : equation[0]) {
+                if (!known.containsKey(literal)) {
+                    if (enumerator.getModelCount(literal) < 0) {
+                        unenumerated.add(equation);
+                    }
+                    break;
+                }
+            }
+        }
+        if (unenumerated.isEmpty()) {
+            return new HashMap<>();
+        }
+        return sampler.estimate(unenumerated.toArray(new int[0][][]),
+                literal -> known.getOrDefault(literal, BitmaskEnumerator.UNKNOWN), sampleMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * Evaluates a range of candidates, split in halves until it is small enough
+     */
+    private static final class Evaluation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Candidate[] candidates;
+        private final int from;
+        private final int to;
+        private final char[][] view;
+        private final double[][] risk;
+        private final LinearSystem base;
+
+        Evaluation(Candidate[] candidates, int from, int to, char[][] view, double[][] risk, LinearSystem base) {
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.view = view;
+            this.risk = risk;
+            this.base = base;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_CANDIDATES) {
+                for (int i = from; i < to; i++) {
+                    evaluate(candidates[i], view, risk, base);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Evaluation(candidates, from, middle, view, risk, base),
+                    new Evaluation(candidates, middle, to, view, risk, base));
+        }
+    }
+
+    /**
+     * Set the expected deductions of a candidate over the plausible values of its hint.
+     */
+    private static void evaluate(Candidate candidate, char[][] view, double[][] risk, LinearSystem base) {
+        ArrayList<Coord> covered = coveredNeighbors(view, candidate.cell);
+        int[] literals = new int[covered.size()];
+        // distribution[m] = probability of m mines among the covered neighbors
+        double[] distribution = new double[covered.size() + 1];
+        distribution[0] = 1;
+        for (int i = 0; i < covered.size(); i++) {
+            Coord c = covered.get(i);
+            literals[i] = c.literal();
+            double p = risk[c.getY()][c.getX()];
+            for (int m = i + 1; m > 0; m--) {
+                distribution[m] = distribution[m] * (1 - p) + distribution[m - 1] * p;
+            }
+            distribution[0] *= 1 - p;
+        }
+
+        double weight = 0;
+        double deductions = 0;
+        for (int m = 0; m < distribution.length; m++) {
+            if (distribution[m] <= 0) {
+                continue;
+            }
+            LinearSystem next = base.copy();
+            next.fix(candidate.cell.literal(), 0);
+            next.addEquation(literals, m);
+            if (next.isInconsistent()) {
+                continue;
+            }
+            int known = base.valueOf(candidate.cell.literal()) == LinearSystem.UNKNOWN ? 1 : 0;
+            weight += distribution[m];
+            deductions += distribution[m] * (next.getKnownCount() - base.getKnownCount() - known);
+        }
+        candidate.expectedDeductions = weight > 0 ? deductions / weight : 0;
+    }
+
+    private static ArrayList<Coord> coveredNeighbors(char[][] view, Coord cell) {
+        ArrayList<Coord> covered = new ArrayList<>();
+        for (Coord c : cell.neighbors()) {
+            if (c.getX() >= 0 && c.getY() >= 0 && c.getX() < view.length && c.getY() < view.length
+                    && view[c.getY()][c.getX()] == '?') {
+                covered.add(c);
+            }
+        }
+        return covered;
+    }
+}
@@ -0,0 +1,502 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * MineSampler estimates the mine probability of the cells of frontier components too large to enumerate,
+ * the share of the consistent assignments of their equations where each cell is a mine, as BitmaskEnumerator
+ * counts it exactly for small components.
+ *
+ * Each chain samples the consistent assignments with a Markov chain:
+ * --- it starts from a consistent assignment found by a randomized backtracking search, component by component,
+ *     with the cells in breadth first order and each equation checked as its cells are assigned
+ * --- each step picks a cell at random and redraws its block, the cell and the nearest cells sharing equations
+ *     with it up to BLOCK_CELLS, uniformly among the assignments of the block consistent with the rest
+ * A block update leaves the uniform distribution over consistent assignments unchanged, and unlike flipping
+ * a single cell, which always breaks its equations, it can move a mine along a hint.
+ * After BURN_IN_SWEEPS sweeps of as many steps as cells, every sweep counts the mines of each cell.
+ *
+ * The chains run in parallel on a ForkJoinPool, each with its own seed, until the time budget or the maximum
+ * number of sweeps, so with no time budget the estimates do not depend on the number of threads.
+ * The probability of a cell is its share of mines over all the samples, with confidence bounds at Z standard
+ * errors: the spread of the means of the chains, or if larger the error of as many independent samples.
+ * The pool is shut down by close, after which the sampler is not to be used.
+ */
+public class MineSampler implements AutoCloseable {
+
+    /**
+     * Maximum number of cells redrawn together
+     */
+    public static final int BLOCK_CELLS = 12;
+
+    /**
+     * Sweeps of each chain before its samples are counted
+     */
+    public static final int BURN_IN_SWEEPS = 8;
+
+    /**
+     * Standard errors from the estimate to its bounds, 95% confidence
+     */
+    public static final double Z = 1.96;
+
+    private static final long MAX_SEED_NODES = 1 << 22;
+
+    /**
+     * Mine probability of a cell with its confidence bounds
+     */
+    public static final class Estimate {
+        private final double probability;
+        private final double lower;
+        private final double upper;
+        private final long samples;
+
+        Estimate(double probability, double lower, double upper, long samples) {
+            this.probability = probability;
+            this.lower = lower;
+            this.upper = upper;
+            this.samples = samples;
+        }
+
+        public double getProbability() {
+            return probability;
+        }
+
+        public double getLower() {
+            return lower;
+        }
+
+        public double getUpper() {
+            return upper;
+        }
+
+        /**
+         * @return number of assignments sampled over all chains
+         */
+        public long getSamples() {
+            return samples;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3f [%.3f, %.3f]", probability, lower, upper);
+        }
+    }
+
+    private final int chains;
+    private final long seed;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param chains number of chains sampled, at least 1
+     * @param threads number of workers running the chains, daemon threads that end when closed
+     * @param seed seed of the first chain, the others have the next seeds
+     */
+    public MineSampler(int chains, int threads, long seed) {
+        if (chains < 1 || threads < 1) {
+            throw new IllegalArgumentException("Sampler chains and threads must be at least 1, got "
+                    + chains + " and " + threads);
+        }
+        this.chains = chains;
+        this.seed = seed;
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Stop the workers once they are idle.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Sample the assignments of the equations.
+     * @param equations equations { literals, { k } } that exactly k of the literals are true
+     * @param known value of a literal already entailed (0 or 1), or BitmaskEnumerator.UNKNOWN,
+     * substituted into the equations
+     * @param millis time budget, Long.MAX_VALUE for none
+     * @param maxSweeps maximum number of sweeps of each chain, burn in included
+     * @return estimate of every unknown literal of the equations in the order they appear,
+     * empty if no chain has sampled an assignment in time
+     */
+    public Map<Integer, Estimate> estimate(int[][][] equations, IntUnaryOperator known, long millis,
+                                           long maxSweeps) {
+        long deadline = millis == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + millis * 1_000_000;
+        Model model = new Model(equations, known);
+        Chain[] runs = new Chain[chains];
+        for (int i = 0; i < chains; i++) {
+            runs[i] = new Chain(model, new Random(seed + i), deadline, maxSweeps);
+        }
+        pool.invoke(new Sampling(runs, 0, runs.length));
+
+        LinkedHashMap<Integer, Estimate> estimates = new LinkedHashMap<>();
+        long samples = Arrays.stream(runs).mapToLong(r -> r.samples).sum();
+        if (samples == 0) {
+            return estimates;
+        }
+        int sampled = (int) Arrays.stream(runs).filter(r -> r.samples > 0).count();
+        for (int c = 0; c < model.literals.length; c++) {
+            long mines = 0;
+            for (Chain run : runs) {
+                mines += run.mines[c];
+            }
+            double p = (double) mines / samples;
+            double spread = 0;
+            if (sampled > 1) {
+                for (Chain run : runs) {
+                    if (run.samples > 0) {
+                        double d = (double) run.mines[c] / run.samples - p;
+                        spread += d * d;
+                    }
+                }
+                spread /= (sampled - 1) * sampled;
+            }
+            double error = Math.sqrt(Math.max(spread, p * (1 - p) / samples));
+            estimates.put(model.literals[c], new Estimate(p, Math.max(0, p - Z * error),
+                    Math.min(1, p + Z * error), samples));
+        }
+        return estimates;
+    }
+
+    /**
+     * Equations over cell indices with the components and blocks of the cells, shared by the chains
+     */
+    private static final class Model {
+        final int[] literals;
+        final int[][] cellsOf; // cells of each equation
+        final int[] ks;
+        final int[][] equationsOf; // equations of each cell
+        final int[][] components; // cells of each component in breadth first order
+        final Block[] blocks; // block of each cell
+
+        Model(int[][][] equations, IntUnaryOperator known) {
+            LinkedHashMap<Integer, Integer> index = new LinkedHashMap<>();
+            ArrayList<int[]> cells = new ArrayList<>();
+            ArrayList<Integer> kOf = new ArrayList<>();
+            for (int[][] equation : equations) {
+                int k = equation[1][0];
+                int[] unknown = new int[equation[0].length];
+                int count = 0;
+                for (int literal : equation[0]) {
+                    int value = known.applyAsInt(literal);
+                    if (value == BitmaskEnumerator.UNKNOWN) {
+                        unknown[count++] = index.computeIfAbsent(literal, l -> index.size());
+                    } else {
+                        k -= value;
+                    }
+                }
+                if (count > 0) {
+                    cells.add(Arrays.copyOf(unknown, count));
+                    kOf.add(k);
+                }
+            }
+            literals = index.keySet().stream().mapToInt(Integer::intValue).toArray();
+            cellsOf = cells.toArray(new int[0][]);
+            ks = kOf.stream().mapToInt(Integer::intValue).toArray();
+
+            int m = literals.length;
+            ArrayList<ArrayList<Integer>> equationLists = new ArrayList<>();
+            for (int c = 0; c < m; c++) {
+                equationLists.add(new ArrayList<>());
+            }
+            for (int e = 0; e < cellsOf.length; e++) {
+                for (int c : cellsOf[e]) {
+                    equationLists.get(c).add(e);
+                }
+            }
+            equationsOf = new int[m][];
+            for (int c = 0; c < m; c++) {
+                equationsOf[c] = equationLists.get(c).stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            ArrayList<int[]> componentList = new ArrayList<>();
+            boolean[] reached = new boolean[m];
+            for (int c = 0; c < m; c++) {
+                if (!reached[c]) {
+                    reached[c] = true;
+                    componentList.add(breadthFirst(c, Integer.MAX_VALUE, reached));
+                }
+            }
+            components = componentList.toArray(new int[0][]);
+
+            blocks = new Block[m];
+            boolean[] inBlock = new boolean[m];
+            int[] localOf = new int[cellsOf.length];
+            Arrays.fill(localOf, -1);
+            for (int c = 0; c < m; c++) {
+                inBlock[c] = true;
+                int[] block = breadthFirst(c, BLOCK_CELLS, inBlock);
+                for (int b : block) {
+                    inBlock[b] = false;
+                }
+                blocks[c] = new Block(block, equationsOf, localOf);
+            }
+        }
+
+        /**
+         * @return up to limit cells reached from the start through shared equations, nearest first,
+         * marking them in reached, where the start is marked already
+         */
+        private int[] breadthFirst(int start, int limit, boolean[] reached) {
+            int[] queue = new int[Math.min(limit, literals.length)];
+            int size = 0;
+            queue[size++] = start;
+            for (int head = 0; head < size && size < queue.length; head++) {
+                for (int e : equationsOf[queue[head]]) {
+                    for (int c : cellsOf[e]) {
+                        if (size < queue.length && !reached[c]) {
+                            reached[c] = true;
+                            queue[size++] = c;
+                        }
+                    }
+                }
+            }
+            return Arrays.copyOf(queue, size);
+        }
+    }
+
+    /**
+     * Cells redrawn together, with the equations they are in over their bits
+     */
+    private static final class Block {
+        final int[] cells;
+        final int[] equations;
+        final int[] masks; // cells of the block in each equation as bits
+        final int[][] equationsOf; // local equations of each cell
+
+        Block(int[] cells, int[][] cellEquations, int[] localOf) {
+            this.cells = cells;
+            int[] found = new int[cells.length * 8];
+            int count = 0;
+            equationsOf = new int[cells.length][];
+            for (int i = 0; i < cells.length; i++) {
+                int[] of = cellEquations[cells[i]];
+                equationsOf[i] = new int[of.length];
+                for (int j = 0; j < of.length; j++) {
+                    if (localOf[of[j]] == -1) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, 2 * count);
+                        }
+                        localOf[of[j]] = count;
+                        found[count++] = of[j];
+                    }
+                    equationsOf[i][j] = localOf[of[j]];
+                }
+            }
+            equations = Arrays.copyOf(found, count);
+            masks = new int[count];
+            for (int i = 0; i < cells.length; i++) {
+                for (int e : equationsOf[i]) {
+                    masks[e] |= 1 << i;
+                }
+            }
+            for (int e : equations) {
+                localOf[e] = -1;
+            }
+        }
+    }
+
+    /**
+     * Runs a range of chains, split in halves until a single chain is left
+     */
+    private static final class Sampling extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Chain[] runs;
+        private final int from;
+        private final int to;
+
+        Sampling(Chain[] runs, int from, int to) {
+            this.runs = runs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                runs[from].run();
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Sampling(runs, from, middle), new Sampling(runs, middle, to));
+        }
+    }
+
+    /**
+     * A Markov chain over the consistent assignments, with its own state and counts
+     */
+    private static final class Chain {
+        private final Model model;
+        private final Random random;
+        private final long deadline;
+        private final long maxSweeps;
+
+        private final int[] values;
+        private final int[] equationMines;
+        private final long[] mines;
+        private long samples = 0;
+
+        // block being redrawn, the mines left to its equations, and the assignment kept
+        private Block block;
+        private int[] targets = new int[0];
+        private int models;
+        private int chosen;
+
+        Chain(Model model, Random random, long deadline, long maxSweeps) {
+            this.model = model;
+            this.random = random;
+            this.deadline = deadline;
+            this.maxSweeps = maxSweeps;
+            int m = model.literals.length;
+            values = new int[m];
+            equationMines = new int[model.cellsOf.length];
+            mines = new long[m];
+        }
+
+        void run() {
+            if (!seed()) {
+                return;
+            }
+            int m = model.literals.length;
+            for (long sweep = 0; sweep < maxSweeps && System.nanoTime() < deadline; sweep++) {
+                for (int step = 0; step < m; step++) {
+                    redraw(model.blocks[random.nextInt(m)]);
+                }
+                if (sweep >= BURN_IN_SWEEPS) {
+                    for (int c = 0; c < m; c++) {
+                        mines[c] += values[c];
+                    }
+                    samples++;
+                }
+            }
+        }
+
+        /**
+         * Find a consistent assignment by a randomized backtracking search.
+         * @return false if a component has none, or the search ran out of nodes or time
+         */
+        private boolean seed() {
+            int[] unassigned = new int[model.cellsOf.length];
+            for (int e = 0; e < unassigned.length; e++) {
+                unassigned[e] = model.cellsOf[e].length;
+            }
+            Arrays.fill(values, -1);
+            long nodes = 0;
+            for (int[] order : model.components) {
+                int[] attempts = new int[order.length];
+                int[] first = new int[order.length];
+                int p = 0;
+                while (p < order.length) {
+                    if (++nodes > MAX_SEED_NODES || (nodes & 1023) == 0 && System.nanoTime() > deadline) {
+                        return false;
+                    }
+                    int c = order[p];
+                    if (values[c] != -1) {
+                        assign(c, -1, unassigned);
+                    }
+                    if (attempts[p] == 2) {
+                        attempts[p] = 0;
+                        if (--p < 0) {
+                            return false;
+                        }
+                        continue;
+                    }
+                    if (attempts[p] == 0) {
+                        first[p] = random.nextInt(2);
+                    }
+                    assign(c, attempts[p]++ == 0 ? first[p] : 1 - first[p], unassigned);
+                    if (consistent(c, unassigned)) {
+                        p++;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void assign(int c, int value, int[] unassigned) {
+            int old = values[c];
+            for (int e : model.equationsOf[c]) {
+                equationMines[e] += Math.max(value, 0) - Math.max(old, 0);
+                unassigned[e] += (value == -1 ? 1 : 0) - (old == -1 ? 1 : 0);
+            }
+            values[c] = value;
+        }
+
+        private boolean consistent(int c, int[] unassigned) {
+            for (int e : model.equationsOf[c]) {
+                if (equationMines[e] > model.ks[e] || equationMines[e] + unassigned[e] < model.ks[e]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Redraw the cells of the block uniformly among the assignments consistent with the other cells.
+         */
+        private void redraw(Block block) {
+            this.block = block;
+            int current = 0;
+            for (int i = 0; i < block.cells.length; i++) {
+                current |= values[block.cells[i]] << i;
+            }
+            if (targets.length < block.equations.length) {
+                targets = new int[block.equations.length];
+            }
+            for (int j = 0; j < block.equations.length; j++) {
+                int e = block.equations[j];
+                targets[j] = model.ks[e] - equationMines[e] + Integer.bitCount(current & block.masks[j]);
+            }
+
+            models = 0;
+            chosen = current;
+            draw(0, 0);
+            for (int i = 0; i < block.cells.length; i++) {
+                int c = block.cells[i];
+                int value = chosen >>> i & 1;
+                if (values[c] != value) {
+                    for (int e : model.equationsOf[c]) {
+                        equationMines[e] += value - values[c];
+                    }
+                    values[c] = value;
+                }
+            }
+        }
+
+        /**
+         * Visit the consistent assignments of the block from cell i on, keeping one uniformly at random.
+         */
+        private void draw(int i, int assigned) {
+            if (i == block.cells.length) {
+                models++;
+                if (random.nextInt(models) == 0) {
+                    chosen = assigned;
+                }
+                return;
+            }
+            int later = -1 << (i + 1);
+            for (int value = 0; value <= 1; value++) {
+                int next = assigned | value << i;
+                boolean consistent = true;
+                for (int e : block.equationsOf[i]) {
+                    int count = Integer.bitCount(next & block.masks[e]);
+                    if (count > targets[e] || count + Integer.bitCount(block.masks[e] & later) < targets[e]) {
+                        consistent = false;
+                        break;
+                    }
+                }
+                if (consistent) {
+                    draw(i + 1, next);
+                }
+            }
+        }
+    }
+}
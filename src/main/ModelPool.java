@@ -0,0 +1,121 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * ModelPool keeps the most recent models of the KBU found by satisfiable queries. A model where the queried
+ * literals hold proves the query satisfiable, so the cell is not entailed to the opposite value and the
+ * query need not be solved. Most queries of a pass are satisfiable, and the model of one of them usually
+ * answers the queries of many other cells.
+ *
+ * A model is a set of literals, one for each variable the backend has seen, see SatBackend.getModel.
+ * It stays a model while the constraints are only removed. Once equations are added, a model is kept only if
+ * it satisfies every equation over its variables, and has either all or none of the variables of each equation:
+ * an equation over none of its variables is satisfiable apart from it, as the KBU of a game is.
+ * Models are kept in order of use, the least recently used being dropped first.
+ */
+public class ModelPool {
+
+    private final int capacity;
+
+    /**
+     * Models, the most recently used first
+     */
+    private final ArrayList<HashSet<Integer>> models = new ArrayList<>();
+
+    private long hits = 0;
+
+    /**
+     * @param capacity maximum number of models kept, at least 1
+     */
+    public ModelPool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Model pool capacity must be at least 1, got " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param assumptions literals of a query
+     * @return whether a model of the pool satisfies every literal, which is then the most recently used
+     */
+    public boolean satisfies(int[] assumptions) {
+        for (int i = 0; i < models.size(); i++) {
+            HashSet<Integer> model = models.get(i);
+            boolean satisfied = true;
+            for (int literal : assumptions) {
+                if (!model.contains(literal)) {
+                    satisfied = false;
+                    break;
+                }
+            }
+            if (satisfied) {
+                models.add(0, models.remove(i));
+                hits++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a model as the most recently used, dropping the least recently used if the pool is full.
+     * @param model literals of a model, or null for none
+     */
+    public void add(int[] model) {
+        if (model == null) {
+            return;
+        }
+        HashSet<Integer> literals = new HashSet<>(model.length * 2);
+        for (int literal : model) {
+            literals.add(literal);
+        }
+        if (models.size() == capacity) {
+            models.remove(models.size() - 1);
+        }
+        models.add(0, literals);
+    }
+
+    /**
+     * Drop the models that are not models of the equations.
+     * @param equations equations { literals, { k } } that exactly k of the literals are true
+     */
+    public void retainConsistent(int[][][] equations) {
+        models.removeIf(model -> {
+            for (int[][] equation : equations) {
+                int mines = 0;
+                int missing = 0;
+                for (int literal : equation[0]) {
+                    if (model.contains(literal)) {
+                        mines++;
+                    } else if (!model.contains(-literal)) {
+                        missing++;
+                    }
+                }
+                if (missing == equation[0].length) {
+                    continue;
+                }
+                if (missing > 0 || mines != equation[1][0]) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    public void clear() {
+        models.clear();
+    }
+
+    public int size() {
+        return models.size();
+    }
+
+    /**
+     * @return number of queries answered by a model of the pool
+     */
+    public long getHits() {
+        return hits;
+    }
+}
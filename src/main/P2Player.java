@@ -2,9 +2,13 @@ package main;
 
 /**
  * P2Player uses the single point strategy to infer whether a cell is safe or contains a mine.
+ * With the sweep, each pass decides every cell at once from the neighbor counts of all hints, see HintPlanes,
+ * instead of deducing from the hints of each covered cell in turn.
  */
 public class P2Player extends Player {
 
+    private boolean sweep = false;
+
     public P2Player(Game game, boolean verbose) {
         super(game, verbose);
     }
@@ -31,6 +35,10 @@ public class P2Player extends Player {
      * @return whether a deduction and corresponding move has been made
      */
     private boolean inferMoves() {
+        if (sweep) {
+            return sweepMoves();
+        }
+        tracePass();
         boolean changed = false;
         for (Coord c : getAllCoveredCells()) {
             for (Coord hint: getHintNeighbors(c)) {
@@ -43,6 +51,36 @@ public class P2Player extends Player {
         return changed;
     }
 
+    /**
+     * Mark the cells that the hints decide as mines and probe those they decide safe, all found in one sweep.
+     * @return whether a move has been made
+     */
+    private boolean sweepMoves() {
+        tracePass();
+        HintPlanes planes = new HintPlanes(view);
+        boolean changed = false;
+        for (Coord c : planes.getMineCells()) {
+            if (!game.hasEnded() && markMine(c)) {
+                changed = true;
+                printSteps();
+            }
+        }
+        for (Coord c : planes.getSafeCells()) {
+            if (!game.hasEnded() && probe(c)) {
+                changed = true;
+                printSteps();
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @param sweep true to decide the cells of each pass in one sweep of the view, see HintPlanes
+     */
+    public void setSweep(boolean sweep) {
+        this.sweep = sweep;
+    }
+
     /**
      * Deduce information about a given neighbor of a hint
      * by comparing the number of mines in the hint and the number of covered neighbors
@@ -69,5 +107,4 @@ public class P2Player extends Player {
         }
         return deduced;
     }
-
 }
@@ -0,0 +1,95 @@
+package main;
+
+import java.util.ArrayList;
+
+/**
+ * P5Player encodes each hint as a cardinality constraint and checks the model satisfiability using the
+ * pseudo-boolean solver of the SAT4J library by default, or any other SatBackend.
+ * The 4 levels of information are encoded in the KBU as follows:
+ * 1. KBU comprises a conjunction of hint formula
+ * 2. Each hint formula states that exactly k of its literals are true
+ * --- { literals, { k } }
+ * 3. The first clause holds the literals of the covered neighbors, the second holds k
+ * 4. Each literal is encoded by the cell's literal (Coord.literal) and the sign.
+ * --- literal = sign * cell.literal()
+ * --- sign = 1 if mine else -1
+ *
+ * Besides the hints, the KBU holds the global constraint that the covered cells contain exactly the mines
+ * that have not been marked yet, which allows deductions in the endgame.
+ * The cells uncovered afterwards are added as facts, so the global constraint stays true as the game goes on.
+ */
+public class P5Player extends LogicalPlayer {
+
+    /**
+     * Covered cells when the KBU was last updated, null before the global constraint is added
+     */
+    private Coord[] lastCovered = null;
+
+    public P5Player(Game game, boolean verbose) {
+        this(game, verbose, new Sat4jBackend(true));
+    }
+
+    public P5Player(Game game, boolean verbose, SatBackend backend) {
+        super(game, verbose, backend);
+    }
+
+    /**
+     * existKMines creates a hint formula that expresses there exists exactly k mines among the given cells.
+     * @param k number of mines
+     * @param cells Coord that potentially has mines
+     * @return a cardinality hint formula { literals, { k } }
+     */
+    @Override
+    public int[][] existKMines(int k, Coord[] cells) {
+        return new int[][] {ClauseTemplates.literalsOf(cells), {k}};
+    }
+
+    /**
+     * Add the hints to the KBU, then the global mine count.
+     * The global constraint is added once over the cells covered at the first update.
+     * Afterwards, the cells uncovered since the last update are added as facts: probed cells have no mines
+     * and marked cells are mines. This keeps the KBU monotonic with a single large constraint.
+     * @param hints Coord object of the cell that contains the number of mines in its neighborhood.
+     */
+    @Override
+    protected void addToKBU(Coord[] hints) {
+        super.addToKBU(hints);
+        if (lastCovered == null) {
+            lastCovered = getAllCoveredCells();
+            int remainingMines = game.getCoveredCount() - game.getSafeCount();
+            addEquation(remainingMines, lastCovered);
+            return;
+        }
+        ArrayList<Coord> probed = new ArrayList<>();
+        ArrayList<Coord> marked = new ArrayList<>();
+        for (Coord c : lastCovered) {
+            char value = getViewOn(c);
+            if (value == '*') {
+                marked.add(c);
+            } else if (value != '?') {
+                probed.add(c);
+            }
+        }
+        if (!probed.isEmpty()) {
+            addEquation(0, probed.toArray(Coord[]::new));
+        }
+        if (!marked.isEmpty()) {
+            addEquation(marked.size(), marked.toArray(Coord[]::new));
+        }
+        lastCovered = getAllCoveredCells();
+    }
+
+    /**
+     * The checkpoint is saved after the KBU is updated, so the cells covered then are those of the last update.
+     */
+    @Override
+    protected void resumed() {
+        lastCovered = getAllCoveredCells();
+    }
+
+    @Override
+    protected SatBackend.NormalForm getNormalForm() {
+        return SatBackend.NormalForm.CARDINALITY;
+    }
+
+}
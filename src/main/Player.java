@@ -1,7 +1,9 @@
 package main;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.function.IntPredicate;
 import java.util.regex.Pattern;
 
 public abstract class Player {
@@ -10,6 +12,11 @@ public abstract class Player {
     protected char[][] view;
     protected boolean verbose;
 
+    /**
+     * Number of inference passes made, for the trace
+     */
+    private long passes = 0;
+
     public Player(Game game, boolean verbose) {
         this.game = game;
         view = game.getStartMap();
@@ -29,9 +36,7 @@ public abstract class Player {
             char c = game.probe(cell);
             updateView(cell, c);
             if (c == '0') {
-                for (Coord n: getCoveredNeighbors(cell)) {
-                    probe(n);
-                }
+                cascade(cell);
             }
             return true;
         }
@@ -39,8 +44,59 @@ public abstract class Player {
         return false;
     }
 
+    /**
+     * Probe the covered neighbors of a cell with a hint of 0, and so on, depth first in the order of the neighbors.
+     * The cells to visit are kept on a stack rather than the call stack, so that the cascade of a large empty area
+     * cannot overflow it.
+     * @param zero probed cell with a hint of 0
+     */
+    private void cascade(Coord zero) {
+        ArrayDeque<Coord> pending = new ArrayDeque<>();
+        pushCoveredNeighbors(pending, zero);
+        while (!pending.isEmpty()) {
+            Coord cell = pending.pop();
+            if (getViewOn(cell) == '?') {
+                char c = game.probe(cell);
+                updateView(cell, c);
+                if (c == '0') {
+                    pushCoveredNeighbors(pending, cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Push the covered neighbors of a cell so that the first one is popped first.
+     */
+    private void pushCoveredNeighbors(ArrayDeque<Coord> pending, Coord cell) {
+        Coord[] covered = getCoveredNeighbors(cell);
+        for (int i = covered.length - 1; i >= 0; i--) {
+            pending.push(covered[i]);
+        }
+    }
+
+    /**
+     * Probe the covered cells among the given ones together, then the neighbors of each that has a hint of 0
+     * as probe(Coord) does. A remote game is asked once for all of them.
+     * @param cells cells to probe
+     * @return number of the given cells probed
+     */
+    public int probe(Coord[] cells) {
+        Coord[] covered = Arrays.stream(cells).filter(c -> getViewOn(c) == '?').distinct().toArray(Coord[]::new);
+        char[] values = game.probe(covered);
+        for (int i = 0; i < values.length; i++) {
+            updateView(covered[i], values[i]);
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == '0') {
+                cascade(covered[i]);
+            }
+        }
+        return values.length;
+    }
+
     public boolean probe(int x, int y) {
-        return probe(new Coord(x, y));
+        return probe(Coord.of(x, y));
     }
 
     /**
@@ -49,7 +105,7 @@ public abstract class Player {
     public void initialProbes() {
         printInitialView();
         int n = game.getSize();
-        Coord[] initialProbes = new Coord[] {new Coord(0,0), new Coord(n/2, n/2)};
+        Coord[] initialProbes = new Coord[] {Coord.of(0,0), Coord.of(n/2, n/2)};
         for (Coord c : initialProbes) {
             if (probe(c)) {
                 printSteps();
@@ -74,27 +130,41 @@ public abstract class Player {
      * @return all valid neighbors of the coord with the matched type
      */
     protected Coord[] getNeighbors(Coord coord, String regex) {
-        return Arrays.stream(coord.getNeighbors())
-                .filter(n -> game.isValidCoord(n))
-                .filter(n -> Pattern.matches(regex, String.valueOf(getViewOn(n))))
-                .toArray(Coord[]::new);
+        return getNeighbors(coord, c -> Pattern.matches(regex, String.valueOf((char) c)));
+    }
+
+    /**
+     * Get all neighbors in 8 directions with the type that matches the predicate, without a regular expression
+     * @param coord the cell whose neighbors are returned
+     * @param type tests the character of a cell in the view
+     * @return all valid neighbors of the coord with the matched type
+     */
+    private Coord[] getNeighbors(Coord coord, IntPredicate type) {
+        Coord[] neighbors = coord.neighbors();
+        Coord[] matched = new Coord[neighbors.length];
+        int count = 0;
+        for (Coord n : neighbors) {
+            if (game.isValidCoord(n) && type.test(getViewOn(n))) {
+                matched[count++] = n;
+            }
+        }
+        return count == matched.length ? matched : Arrays.copyOf(matched, count);
     }
 
     public Coord[] getNeighbors(Coord coord) {
-        return getNeighbors(coord, "."); // neighbors of all types
+        return getNeighbors(coord, c -> true); // neighbors of all types
     }
 
     public Coord[] getCoveredNeighbors(Coord coord) {
-        String coveredChar = "\\?";
-        return getNeighbors(coord, coveredChar);
+        return getNeighbors(coord, c -> c == '?');
     }
 
     public Coord[] getHintNeighbors(Coord coord) {
-        return getNeighbors(coord, "\\d"); // neighbors that have been probed and contains a number hint
+        return getNeighbors(coord, c -> c >= '0' && c <= '9'); // neighbors that have been probed and contains a number hint
     }
 
     public Coord[] getMarkedNeighbors(Coord coord) {
-        return getNeighbors(coord, "\\*"); // neighbors marked as mine
+        return getNeighbors(coord, c -> c == '*'); // neighbors marked as mine
     }
 
     /**
@@ -107,7 +177,7 @@ public abstract class Player {
         int n = game.getSize();
         for (int y = 0; y < n; y++) {
             for (int x = 0; x < n; x++) {
-                Coord coord = new Coord(x, y);
+                Coord coord = Coord.of(x, y);
                 if (getViewOn(coord) == '?') {
                     covered[index] = coord;
                     index++;
@@ -135,7 +205,39 @@ public abstract class Player {
     }
 
     private void updateView(Coord coord, char c) {
-        view[coord.getY()][coord.getX()] = c;
+        game.updateStartMap(coord.getX(), coord.getY(), c);
+    }
+
+    /**
+     * Save the state of the game and of the player's view, e.g. before probing a cell in a lookahead.
+     * Snapshots can be nested and are undone in reverse order.
+     */
+    public void snapshot() {
+        game.snapshot();
+    }
+
+    /**
+     * Restore the game and the player's view to the most recent snapshot.
+     */
+    public void rollback() {
+        game.rollback();
+    }
+
+    /**
+     * Keep the changes made since the most recent snapshot and discard it.
+     */
+    public void release() {
+        game.release();
+    }
+
+    /**
+     * Record the start of an inference pass in the trace of the game, if the game is recorded.
+     */
+    protected void tracePass() {
+        TraceRecorder trace = game.getTrace();
+        if (trace != null) {
+            trace.record(TraceRecorder.PASS, 0, 0, 0, 0, ++passes);
+        }
     }
 
     public char[][] getView() {
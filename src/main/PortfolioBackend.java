@@ -0,0 +1,180 @@
+package main;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * PortfolioBackend races several backends on every query and takes the first definitive answer.
+ * Each member keeps its own copy of the constraints, so members can differ in solver and in encoding,
+ * e.g. sat4j against LogicNG with the Tseitin transformation.
+ *
+ * A query is solved by all members concurrently. Once one of them answers SAT or UNSAT the others are cancelled
+ * through the cancelled supplier they poll during their search, and the query returns when all of them
+ * have stopped, so the members are never solving while constraints are added.
+ * The member that answered is reported by getLastEngine.
+ */
+public class PortfolioBackend implements SatBackend {
+
+    private final SatBackend[] members;
+
+    /**
+     * One thread per member, idle threads end so that a finished game does not keep them
+     */
+    private final ThreadPoolExecutor pool;
+
+    private long lastConflicts = 0;
+    private String lastEngine;
+    private int lastWinner = -1;
+
+    public PortfolioBackend(SatBackend... members) {
+        if (members.length == 0) {
+            throw new IllegalArgumentException("A portfolio needs a backend");
+        }
+        this.members = members;
+        pool = new ThreadPoolExecutor(members.length, members.length, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "portfolio");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        lastEngine = members[0].getName();
+    }
+
+    @Override
+    public void addHintFormula(int[][] hintFormula, NormalForm form) {
+        for (SatBackend member : members) {
+            member.addHintFormula(hintFormula, form);
+        }
+    }
+
+    @Override
+    public void describeQuery(int componentSize, int equationCount) {
+        for (SatBackend member : members) {
+            member.describeQuery(componentSize, equationCount);
+        }
+    }
+
+    @Override
+    public Result solve(int[] assumptions, long millis, long maxConflicts) {
+        return solve(assumptions, millis, maxConflicts, () -> false);
+    }
+
+    @Override
+    public Result solve(int[] assumptions, long millis, long maxConflicts, BooleanSupplier cancelled) {
+        AtomicBoolean decided = new AtomicBoolean(false);
+        BooleanSupplier stop = () -> decided.get() || cancelled.getAsBoolean();
+        ExecutorCompletionService<Integer> race = new ExecutorCompletionService<>(pool);
+        Result[] results = new Result[members.length];
+        for (int i = 0; i < members.length; i++) {
+            int member = i;
+            race.submit(() -> {
+                results[member] = members[member].solve(assumptions, millis, maxConflicts, stop);
+                return member;
+            });
+        }
+
+        int winner = -1;
+        boolean interrupted = false;
+        Throwable failure = null;
+        for (int i = 0; i < members.length; i++) { // wait for every member, the losers stop once decided
+            try {
+                int member = race.take().get();
+                if (winner < 0 && failure == null && results[member] != Result.UNKNOWN) {
+                    winner = member;
+                    decided.set(true);
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                decided.set(true);
+                i--;
+            } catch (ExecutionException e) {
+                // the other members are stopped and joined before the failure is thrown
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+                decided.set(true);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            lastWinner = -1;
+            throw new IllegalStateException("Backend failed", failure);
+        }
+
+        lastWinner = winner;
+        if (winner < 0) {
+            lastEngine = getName();
+            lastConflicts = 0;
+            for (SatBackend member : members) {
+                lastConflicts = Math.max(lastConflicts, member.getLastConflicts());
+            }
+            return Result.UNKNOWN;
+        }
+        lastEngine = engineName(winner);
+        lastConflicts = members[winner].getLastConflicts();
+        return results[winner];
+    }
+
+    /**
+     * @return model of the member that answered the last call to solve
+     */
+    @Override
+    public int[] getModel() {
+        return lastWinner < 0 ? null : members[lastWinner].getModel();
+    }
+
+    @Override
+    public void reset() {
+        for (SatBackend member : members) {
+            member.reset();
+        }
+    }
+
+    /**
+     * @return conflicts of the member that answered, or the most of any member if none did
+     */
+    @Override
+    public long getLastConflicts() {
+        return lastConflicts;
+    }
+
+    @Override
+    public long getClauseCount() {
+        return members[0].getClauseCount();
+    }
+
+    @Override
+    public String getName() {
+        StringBuilder sb = new StringBuilder("portfolio");
+        for (int i = 0; i < members.length; i++) {
+            sb.append(i == 0 ? "(" : ",").append(members[i].getName());
+        }
+        return sb.append(")").toString();
+    }
+
+    @Override
+    public String getLastEngine() {
+        return lastEngine;
+    }
+
+    /**
+     * @return name of the member, with its position if another member has the same name
+     */
+    private String engineName(int member) {
+        String name = members[member].getName();
+        for (int i = 0; i < members.length; i++) {
+            if (i != member && members[i].getName().equals(name)) {
+                return name + "#" + member;
+            }
+        }
+        return name;
+    }
+}
@@ -0,0 +1,341 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * RegionPlayer solves large boards by tiling them into square regions that are solved in parallel.
+ * Each region has its own local KBU: the equations of the hints next to its cells, encoded like the hints of
+ * the given LogicalPlayer and checked by its own backend after the linear equations and the enumeration,
+ * as enabled on that player. The queries of every region are limited by the SolverBudget of that player,
+ * the game budget being shared by the workers.
+ *
+ * The game is played in rounds of 2 phases:
+ * 1. inference: every region whose neighborhood changed decides its covered cells on a worker thread.
+ *    The workers only read the view, which is not written during this phase, so it needs no locks.
+ * 2. moves: the decided cells are probed together, then marked, in region order on the calling thread, which makes
+ *    the game deterministic for any number of workers. The hints revealed and the cells resolved near the edge of
+ *    a region are the boundary facts of its neighbors, which are solved again in the next round.
+ * The game ends when a round decides no cell.
+ *
+ * Unlike the KBU of a LogicalPlayer, a local KBU is built from the current view, so the probed cells are
+ * known to be safe and the marked cells to be mines. Its cells keep their literals on the board, see Coord.literal.
+ */
+public class RegionPlayer extends Player {
+
+    /**
+     * Maximum number of partial assignments enumerated for a component before it is left to the backend
+     */
+    private static final long MAX_ENUMERATION_NODES = 1 << 16;
+
+    /**
+     * Largest region size, the size of the largest board
+     */
+    public static final int MAX_REGION_SIZE = Coord.MAX_SIZE;
+
+    private final LogicalPlayer encoding;
+    private final Supplier<SatBackend> backends;
+    private final int regionSize;
+    private final int threads;
+    private final SolverStats stats = new SolverStats();
+
+    /**
+     * @param game game to be played
+     * @param verbose prints agent's view at each step if true
+     * @param encoding player whose existKMines and normal form encode the hints of the local KBUs
+     * @param backends creates the backend of a local KBU
+     * @param regionSize width and height of a region in cells
+     * @param threads number of workers
+     */
+    public RegionPlayer(Game game, boolean verbose, LogicalPlayer encoding, Supplier<SatBackend> backends,
+                        int regionSize, int threads) {
+        super(game, verbose);
+        if (regionSize < 1 || regionSize > MAX_REGION_SIZE || threads < 1) {
+            throw new IllegalArgumentException("Region size must be 1 to " + MAX_REGION_SIZE
+                    + " and threads positive");
+        }
+        this.encoding = encoding;
+        this.backends = backends;
+        this.regionSize = regionSize;
+        this.threads = threads;
+    }
+
+    @Override
+    public void play() {
+        startGame();
+        int n = game.getSize();
+        int regionsPerSide = (n + regionSize - 1) / regionSize;
+        boolean[] dirty = new boolean[regionsPerSide * regionsPerSide];
+        Arrays.fill(dirty, true);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            boolean changed = true;
+            while (changed && !game.hasEnded()) {
+                tracePass();
+                List<List<int[]>> decisions = inferRegions(pool, dirty, regionsPerSide);
+                char[][] before = copyView();
+                changed = applyMoves(decisions);
+                markDirtyRegions(before, dirty, regionsPerSide);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        endGame();
+    }
+
+    /**
+     * Start the game budget of the encoding player and make the initial probes.
+     */
+    protected void startGame() {
+        encoding.getBudget().startGame();
+        initialProbes();
+    }
+
+    /**
+     * Give up the game if it has not ended, once no more inference can be made.
+     */
+    protected void endGame() {
+        if (encoding.getBudget().isGameExhausted()) {
+            stats.recordExhaustedGame();
+        }
+        if (!game.hasEnded()) {
+            game.giveUp();
+            printFinalView();
+        }
+        encoding.saveCostModel();
+    }
+
+    /**
+     * Decide the covered cells of a rectangle of the board with its local KBU, on the calling thread.
+     * @param left x of the leftmost column
+     * @param top y of the top row
+     * @param width number of columns
+     * @param height number of rows, at most MAX_REGION_SIZE
+     * @return decisions of the rectangle { x, y, 1 if mine else 0 }
+     */
+    protected List<int[]> solveRegion(int left, int top, int width, int height) {
+        Region region = new Region(left, top, width, height);
+        region.solve();
+        stats.merge(region.stats);
+        return region.decisions;
+    }
+
+    /**
+     * Decide the covered cells of every dirty region, in parallel.
+     * @return decisions of each region in region order, each { x, y, 1 if mine else 0 }
+     */
+    private List<List<int[]>> inferRegions(ExecutorService pool, boolean[] dirty, int regionsPerSide) {
+        List<Callable<Region>> tasks = new ArrayList<>();
+        for (int r = 0; r < dirty.length; r++) {
+            if (dirty[r]) {
+                dirty[r] = false;
+                Region region = new Region((r % regionsPerSide) * regionSize, (r / regionsPerSide) * regionSize,
+                        regionSize, regionSize);
+                tasks.add(() -> {
+                    region.solve();
+                    return region;
+                });
+            }
+        }
+        List<List<int[]>> decisions = new ArrayList<>();
+        try {
+            for (Future<Region> future : pool.invokeAll(tasks)) {
+                Region region = future.get();
+                decisions.add(region.decisions);
+                stats.merge(region.stats);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Region failed", e.getCause());
+        }
+        return decisions;
+    }
+
+    /**
+     * Probe the safe cells of every region together, so that a remote game is asked once per round,
+     * then mark the mines.
+     * @return whether a move has been made
+     */
+    protected boolean applyMoves(List<List<int[]>> decisions) {
+        ArrayList<Coord> safe = new ArrayList<>();
+        ArrayList<Coord> mines = new ArrayList<>();
+        for (List<int[]> region : decisions) {
+            for (int[] decision : region) {
+                (decision[2] == 1 ? mines : safe).add(Coord.of(decision[0], decision[1]));
+            }
+        }
+        boolean changed = probe(safe.toArray(new Coord[0])) > 0;
+        if (changed) {
+            printSteps();
+        }
+        for (Coord c : mines) {
+            if (game.hasEnded()) {
+                break;
+            }
+            if (markMine(c)) {
+                printSteps();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private char[][] copyView() {
+        char[][] copy = new char[view.length][];
+        for (int y = 0; y < view.length; y++) {
+            copy[y] = view[y].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Mark the regions within 2 cells of a changed cell, whose local KBU contains the cell or its hint.
+     */
+    private void markDirtyRegions(char[][] before, boolean[] dirty, int regionsPerSide) {
+        int n = game.getSize();
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                if (before[y][x] != view[y][x]) {
+                    int fromX = Math.max(0, x - 2) / regionSize;
+                    int toX = Math.min(n - 1, x + 2) / regionSize;
+                    int fromY = Math.max(0, y - 2) / regionSize;
+                    int toY = Math.min(n - 1, y + 2) / regionSize;
+                    for (int ry = fromY; ry <= toY; ry++) {
+                        for (int rx = fromX; rx <= toX; rx++) {
+                            dirty[ry * regionsPerSide + rx] = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * A region and its local KBU, solved on a worker
+     */
+    private final class Region {
+        final int left;
+        final int top;
+        final int width;
+        final int height;
+        final List<int[]> decisions = new ArrayList<>();
+        final SolverStats stats = new SolverStats();
+
+        Region(int left, int top, int width, int height) {
+            this.left = left;
+            this.top = top;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Build the local KBU from the hints within 1 cell of the region and decide its covered cells.
+         */
+        void solve() {
+            int n = game.getSize();
+            int right = Math.min(n, left + width);
+            int bottom = Math.min(n, top + height);
+
+            ArrayList<int[][]> equations = new ArrayList<>();
+            ArrayList<int[][]> hintFormulas = new ArrayList<>();
+            LinearSystem linear = new LinearSystem();
+            for (int y = Math.max(0, top - 1); y < Math.min(n, bottom + 1); y++) {
+                for (int x = Math.max(0, left - 1); x < Math.min(n, right + 1); x++) {
+                    Coord hint = Coord.of(x, y);
+                    if (!Character.isDigit(getViewOn(hint))) {
+                        continue;
+                    }
+                    Coord[] covered = getCoveredNeighbors(hint);
+                    if (covered.length == 0) {
+                        continue;
+                    }
+                    int k = Character.getNumericValue(getViewOn(hint)) - getMarkedNeighbors(hint).length;
+                    int[] literals = ClauseTemplates.literalsOf(covered);
+                    equations.add(new int[][] {literals, {k}});
+                    hintFormulas.add(encoding.existKMines(k, covered));
+                    linear.addEquation(literals, k);
+                }
+            }
+            if (equations.isEmpty()) {
+                return;
+            }
+
+            IntUnaryOperator known = encoding.isLinearTier() ? linear::valueOf : literal -> LinearSystem.UNKNOWN;
+            BitmaskEnumerator enumerator = new BitmaskEnumerator(equations.toArray(new int[0][][]),
+                    known, encoding.getEnumerationLimit(), MAX_ENUMERATION_NODES);
+            SatBackend backend = null;
+            for (int y = top; y < bottom; y++) {
+                for (int x = left; x < right; x++) {
+                    Coord c = Coord.of(x, y);
+                    if (getViewOn(c) != '?') {
+                        continue;
+                    }
+                    int literal = c.literal();
+                    int value = known.applyAsInt(literal);
+                    if (value != LinearSystem.UNKNOWN) {
+                        stats.recordLinearDeduction();
+                    } else if (encoding.getEnumerationLimit() > 0) {
+                        value = enumerator.valueOf(literal);
+                        if (value == 0 || value == 1) {
+                            stats.recordEnumeratedDeduction();
+                        }
+                    }
+                    if (value == LinearSystem.UNKNOWN && enumerator.getComponentSize(literal) > 0) {
+                        if (backend == null) {
+                            backend = backends.get();
+                            for (int[][] hintFormula : hintFormulas) {
+                                backend.addHintFormula(hintFormula, encoding.getNormalForm());
+                            }
+                        }
+                        backend.describeQuery(enumerator.getComponentSize(literal), enumerator.getEquationCount(literal));
+                        value = query(backend, literal, enumerator.getComponentSize(literal));
+                    }
+                    if (value == 0 || value == 1) {
+                        decisions.add(new int[] {x, y, value});
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return 0 if the cell is entailed safe, 1 if entailed a mine, otherwise UNKNOWN,
+         * also if the budget of the query or of the game runs out
+         */
+        private int query(SatBackend backend, int literal, int componentSize) {
+            SolverBudget budget = encoding.getBudget();
+            for (int sign : new int[] {1, -1}) {
+                if (budget.isGameExhausted()) {
+                    stats.recordExhaustedQuery();
+                    return LinearSystem.UNKNOWN;
+                }
+                SatBackend.Result result = backend.solve(new int[] {sign * literal}, budget.queryMillisLeft(),
+                        budget.queryConflictsLeft());
+                budget.addConflicts(backend.getLastConflicts());
+                if (result == SatBackend.Result.UNKNOWN) {
+                    stats.recordExhaustedQuery();
+                    return LinearSystem.UNKNOWN;
+                }
+                stats.recordQuery(backend.getLastConflicts());
+                stats.recordEngine(backend.getLastEngine(), componentSize);
+                if (result == SatBackend.Result.UNSAT) {
+                    return sign == 1 ? 0 : 1;
+                }
+            }
+            return LinearSystem.UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.HashMap;
+
+/**
+ * RemoteGame plays a game held by a GameServer in another process, so an agent can play it like a local Game.
+ * The counters and the start map are kept on both sides: the client applies every change itself
+ * and sends it to the server, so only the characters of the board cross the connection.
+ *
+ * Round trips are kept to the probes:
+ * --- changes that are not answered (marks, views, give up, snapshots) are buffered and written out
+ *     with the next request, and consecutive marks are sent as a single count
+ * --- a probe of a 0 is answered with its whole zero cascade, which the server probes itself,
+ *     so the probes of the cascade made by the player are answered without asking
+ * --- probe(Coord[]) asks for many cells at once
+ *
+ * Snapshots are only taken between the probes of a player, when every cascade has been probed by the player too.
+ * A remote game cannot be traced as its board is not known, trace it on the server instead.
+ */
+public class RemoteGame extends Game implements AutoCloseable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * Cells probed by the server in a cascade and not yet by the player, by cell, with their characters
+     */
+    private final HashMap<Coord, Character> cascaded = new HashMap<>();
+    private int unsentMarks = 0;
+    private long roundTrips = 0;
+
+    private RemoteGame(Socket socket, DataInputStream in, DataOutputStream out,
+                       char[][] startMap, int safeCount, int coveredCount) {
+        super(startMap, safeCount, coveredCount);
+        this.socket = socket;
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * Open a game of a World on a server.
+     * @param host host of the server
+     * @param port port of the server
+     * @param world world to be played
+     * @return the game, to be closed after it is played
+     * @throws IOException if the server cannot be reached or refuses the game
+     */
+    public static RemoteGame connect(String host, int port, World world) throws IOException {
+        return connect(host, port, null, world.name());
+    }
+
+    /**
+     * Open a game of a board on a server.
+     * @param host host of the server
+     * @param port port of the server
+     * @param board square board of hints, 'm' for mines and 'b' for blocked cells
+     * @return the game, to be closed after it is played
+     * @throws IOException if the server cannot be reached or refuses the game
+     * @throws IllegalArgumentException if the board is not square or is wider than GameServer.MAX_SIZE
+     */
+    public static RemoteGame connect(String host, int port, char[][] board) throws IOException {
+        if (board.length > GameServer.MAX_SIZE) {
+            throw new IllegalArgumentException("Board must be at most " + GameServer.MAX_SIZE + " cells wide");
+        }
+        for (char[] row : board) {
+            if (row.length != board.length) {
+                throw new IllegalArgumentException("Board must be square");
+            }
+        }
+        return connect(host, port, board, null);
+    }
+
+    /**
+     * Open a game of a World or of a board on a server.
+     * @param address host:port of the server
+     * @param world world to be played, or null to play the board
+     * @param board board to be played if the world is null
+     * @return the game, to be closed after it is played
+     * @throws IOException if the server cannot be reached or refuses the game
+     */
+    public static RemoteGame connect(String address, World world, char[][] board) throws IOException {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected host:port, got " + address);
+        }
+        String host = address.substring(0, colon);
+        int port = Integer.parseInt(address.substring(colon + 1));
+        return world != null ? connect(host, port, world) : connect(host, port, board);
+    }
+
+    private static RemoteGame connect(String host, int port, char[][] board, String worldName) throws IOException {
+        Socket socket = new Socket(host, port);
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(GameServer.MAGIC);
+            out.writeShort(GameServer.VERSION);
+            if (board == null) {
+                out.writeByte(GameServer.OPEN_WORLD);
+                out.writeUTF(worldName);
+            } else {
+                out.writeByte(GameServer.OPEN_BOARD);
+                out.writeInt(board.length);
+                for (char[] row : board) {
+                    for (char c : row) {
+                        out.writeByte(c);
+                    }
+                }
+            }
+            out.flush();
+            if (in.readByte() != 0) {
+                throw new IOException("Game refused: " + in.readUTF());
+            }
+            int n = in.readInt();
+            char[][] startMap = new char[n][n];
+            for (int y = 0; y < n; y++) {
+                for (int x = 0; x < n; x++) {
+                    startMap[y][x] = (char) in.readByte();
+                }
+            }
+            RemoteGame game = new RemoteGame(socket, in, out, startMap, in.readInt(), in.readInt());
+            game.roundTrips = 1;
+            return game;
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the character of a cell probed in a cascade, or of the cell probed by a round trip
+     * @throws UncheckedIOException if the connection fails
+     * @throws IllegalStateException if the server did not probe the cell, e.g. as its game has ended
+     */
+    @Override
+    protected char reveal(int x, int y) {
+        Character value = cascaded.remove(Coord.of(x, y));
+        if (value == null) {
+            request(new Coord[] {Coord.of(x, y)});
+            value = cascaded.remove(Coord.of(x, y));
+            if (value == null) {
+                throw new IllegalStateException("The server did not probe (" + x + "," + y + ")");
+            }
+        }
+        return value == '-' ? 'm' : value;
+    }
+
+    /**
+     * Probe the cells and their zero cascades in a single round trip.
+     * @throws UncheckedIOException if the connection fails
+     */
+    @Override
+    public char[] probe(Coord[] cells) {
+        if (cells.length > 0 && !hasEnded()) {
+            request(cells);
+        }
+        return super.probe(cells);
+    }
+
+    /**
+     * Send a probe of the cells with the changes buffered before it, and keep the characters of the answer.
+     */
+    private void request(Coord[] cells) {
+        try {
+            sendMarks();
+            out.writeByte(GameServer.PROBE);
+            out.writeInt(cells.length);
+            for (Coord c : cells) {
+                out.writeShort(c.getX());
+                out.writeShort(c.getY());
+            }
+            out.flush();
+            roundTrips++;
+            for (int i = in.readInt(); i > 0; i--) {
+                cascaded.put(Coord.of(in.readShort(), in.readShort()), (char) in.readByte());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void markMine() {
+        super.markMine();
+        unsentMarks++;
+    }
+
+    @Override
+    public void giveUp() {
+        super.giveUp();
+        send(GameServer.GIVE_UP);
+    }
+
+    @Override
+    public void updateStartMap(int x, int y, char c) {
+        super.updateStartMap(x, y, c);
+        try {
+            out.writeByte(GameServer.VIEW);
+            out.writeShort(x);
+            out.writeShort(y);
+            out.writeByte(c);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int snapshot() {
+        send(GameServer.SNAPSHOT);
+        return super.snapshot();
+    }
+
+    @Override
+    public void rollback() {
+        super.rollback();
+        send(GameServer.ROLLBACK);
+    }
+
+    @Override
+    public void release() {
+        super.release();
+        send(GameServer.RELEASE);
+    }
+
+    /**
+     * Buffer a change without fields, after the marks made before it.
+     */
+    private void send(byte type) {
+        try {
+            sendMarks();
+            out.writeByte(type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void sendMarks() throws IOException {
+        if (unsentMarks > 0) {
+            out.writeByte(GameServer.MARK);
+            out.writeInt(unsentMarks);
+            unsentMarks = 0;
+        }
+    }
+
+    /**
+     * @return number of times the game waited for the server, including opening the game
+     */
+    public long getRoundTrips() {
+        return roundTrips;
+    }
+
+    /**
+     * @return null, the map is hidden as the board is held by the server
+     */
+    @Override
+    char[][] getMap() {
+        return null;
+    }
+
+    /**
+     * Send the buffered changes and close the connection.
+     * @throws UncheckedIOException if the connection fails
+     */
+    @Override
+    public void close() {
+        try (socket) {
+            sendMarks();
+            out.writeByte(GameServer.CLOSE);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package main;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.IConstr;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.ISolverService;
+import org.sat4j.specs.TimeoutException;
+import org.sat4j.tools.SearchListenerAdapter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sat4jBackend solves the KBU with the default MiniSat solver of the SAT4J library,
+ * or with its pseudo-boolean solver which propagates cardinality constraints natively.
+ * The solver is kept between queries, so clauses are added once and queries are solved under assumptions.
+ *
+ * Cells are mapped to consecutive sat4j variables as they appear.
+ * A DNF hint formula is added with one auxiliary variable per clause that implies the clause's literals,
+ * and a clause stating that at least one auxiliary variable holds.
+ */
+public class Sat4jBackend implements SatBackend {
+
+    /**
+     * Default sat4j timeout in seconds, used when a query is not limited
+     */
+    private static final int NO_TIMEOUT = Integer.MAX_VALUE / 1000;
+
+    private final boolean pseudoBoolean;
+    private ISolver solver;
+    private final HashMap<Integer, Integer> variables = new HashMap<>();
+    private int maxVar = 0;
+    private boolean contradiction = false;
+    private long clauseCount = 0;
+    private long lastConflicts = 0;
+    private long maxConflicts = Long.MAX_VALUE;
+    private long queryConflicts = 0;
+    private BooleanSupplier cancelled = () -> false;
+    private boolean satisfied = false;
+
+    public Sat4jBackend() {
+        this(false);
+    }
+
+    /**
+     * @param pseudoBoolean true to use the pseudo-boolean solver of sat4j-pb
+     */
+    public Sat4jBackend(boolean pseudoBoolean) {
+        this.pseudoBoolean = pseudoBoolean;
+        reset();
+    }
+
+    @Override
+    public void addHintFormula(int[][] hintFormula, NormalForm form) {
+        satisfied = false;
+        if (form == NormalForm.CARDINALITY) {
+            addExactly(toSolverLiterals(hintFormula[0]), hintFormula[1][0]);
+            return;
+        } else if (form == NormalForm.CNF) {
+            for (int[] clause : hintFormula) {
+                addClause(toSolverLiterals(clause));
+            }
+            return;
+        }
+        int[] someClause = new int[hintFormula.length];
+        for (int i = 0; i < hintFormula.length; i++) {
+            int[] literals = toSolverLiterals(hintFormula[i]);
+            if (literals.length == 1) {
+                someClause[i] = literals[0];
+                continue;
+            }
+            int aux = ++maxVar;
+            for (int literal : literals) {
+                addClause(new int[] {-aux, literal});
+            }
+            someClause[i] = aux;
+        }
+        addClause(someClause);
+    }
+
+    @Override
+    public Result solve(int[] assumptions, long millis, long maxConflicts) {
+        return solve(assumptions, millis, maxConflicts, () -> false);
+    }
+
+    @Override
+    public Result solve(int[] assumptions, long millis, long maxConflicts, BooleanSupplier cancelled) {
+        lastConflicts = 0;
+        satisfied = false;
+        if (contradiction) {
+            return Result.UNSAT;
+        } else if (cancelled.getAsBoolean()) {
+            return Result.UNKNOWN;
+        }
+        this.cancelled = cancelled;
+        if (millis == Long.MAX_VALUE) {
+            solver.setTimeout(NO_TIMEOUT);
+        } else {
+            solver.setTimeoutMs(Math.max(1, millis));
+        }
+        this.maxConflicts = maxConflicts;
+        queryConflicts = 0;
+        try {
+            int[] solverAssumptions = new int[assumptions.length];
+            for (int i = 0; i < assumptions.length; i++) {
+                solverAssumptions[i] = toSolverLiteral(assumptions[i]);
+            }
+            solver.newVar(maxVar);
+            satisfied = solver.isSatisfiable(new VecInt(solverAssumptions));
+            return satisfied ? Result.SAT : Result.UNSAT;
+        } catch (TimeoutException e) {
+            return Result.UNKNOWN;
+        } finally {
+            lastConflicts = queryConflicts;
+        }
+    }
+
+    /**
+     * @return the value of every cell in the model of the last call to solve, the auxiliary variables left out
+     */
+    @Override
+    public int[] getModel() {
+        if (!satisfied) {
+            return null;
+        }
+        int[] model = new int[variables.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> variable : variables.entrySet()) {
+            model[i++] = solver.model(variable.getValue()) ? variable.getKey() : -variable.getKey();
+        }
+        return model;
+    }
+
+    @Override
+    public void reset() {
+        satisfied = false;
+        solver = pseudoBoolean ? org.sat4j.pb.SolverFactory.newDefault() : SolverFactory.newDefault();
+        variables.clear();
+        maxVar = 0;
+        contradiction = false;
+        clauseCount = 0;
+        // sat4j has a single timeout, so the conflict limit and the cancellation expire the timeout
+        // from a search listener
+        solver.setSearchListener(new SearchListenerAdapter<ISolverService>() {
+            @Override
+            public void conflictFound(IConstr confl, int dlevel, int trailLevel) {
+                queryConflicts++;
+                if (queryConflicts >= maxConflicts || cancelled.getAsBoolean()) {
+                    solver.expireTimeout();
+                }
+            }
+        });
+    }
+
+    @Override
+    public long getLastConflicts() {
+        return lastConflicts;
+    }
+
+    @Override
+    public long getClauseCount() {
+        return clauseCount;
+    }
+
+    @Override
+    public String getName() {
+        return pseudoBoolean ? "sat4j-pb" : "sat4j";
+    }
+
+    private void addClause(int[] clause) {
+        clauseCount++;
+        if (contradiction) {
+            return;
+        }
+        try {
+            solver.newVar(maxVar);
+            solver.addClause(new VecInt(clause));
+        } catch (ContradictionException e) {
+            contradiction = true; // the KBU is unsatisfiable whatever the query
+        }
+    }
+
+    private void addExactly(int[] literals, int k) {
+        clauseCount++;
+        if (contradiction) {
+            return;
+        }
+        try {
+            solver.newVar(maxVar);
+            solver.addExactly(new VecInt(literals), k);
+        } catch (ContradictionException e) {
+            contradiction = true;
+        }
+    }
+
+    private int[] toSolverLiterals(int[] literals) {
+        int[] solverLiterals = new int[literals.length];
+        for (int i = 0; i < literals.length; i++) {
+            solverLiterals[i] = toSolverLiteral(literals[i]);
+        }
+        return solverLiterals;
+    }
+
+    /**
+     * @param literal sign * cell.literal()
+     * @return the literal of the cell's sat4j variable with the same sign
+     */
+    private int toSolverLiteral(int literal) {
+        int var = variables.computeIfAbsent(Math.abs(literal), cell -> ++maxVar);
+        return literal > 0 ? var : -var;
+    }
+}
@@ -0,0 +1,98 @@
+package main;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * SatBackend is the satisfiability solver behind the KBU of a LogicalPlayer.
+ * Hint formulas are added as they are learned and queries are solved under assumptions,
+ * so a backend can keep its solver state between queries.
+ *
+ * Literals use the encoding of the KBU: literal = sign * cell.literal(), sign = 1 if mine else -1.
+ */
+public interface SatBackend {
+
+    /**
+     * Normal form of a hint formula.
+     * 1. CNF: conjunction of clauses, each a disjunction of literals
+     * 2. DNF: disjunction of clauses, each a conjunction of literals
+     * 3. CARDINALITY: exactly k of the literals are true, written as { literals, { k } }
+     */
+    enum NormalForm { CNF, DNF, CARDINALITY }
+
+    enum Result { SAT, UNSAT, UNKNOWN }
+
+    /**
+     * Add a hint formula to the constraints of the solver.
+     * @param hintFormula int[ clause ][ literal ]
+     * @param form how the clauses and literals of the hint formula are combined
+     */
+    void addHintFormula(int[][] hintFormula, NormalForm form);
+
+    /**
+     * Test the satisfiability of the constraints with the assumed literals.
+     * @param assumptions literals assumed true for this query only
+     * @param millis wall time limit of the query, Long.MAX_VALUE if unlimited
+     * @param maxConflicts conflict limit of the query, Long.MAX_VALUE if unlimited
+     * @return SAT, UNSAT or UNKNOWN if a limit is reached first
+     */
+    Result solve(int[] assumptions, long millis, long maxConflicts);
+
+    /**
+     * Test the satisfiability of the constraints with the assumed literals, stopping with UNKNOWN once cancelled,
+     * e.g. when another backend of a portfolio has answered the query. A backend that cannot be cancelled ignores it.
+     * @param assumptions literals assumed true for this query only
+     * @param millis wall time limit of the query, Long.MAX_VALUE if unlimited
+     * @param maxConflicts conflict limit of the query, Long.MAX_VALUE if unlimited
+     * @param cancelled polled by the solver during the search, may be called from the solving thread only
+     * @return SAT, UNSAT or UNKNOWN if a limit is reached or the query is cancelled first
+     */
+    default Result solve(int[] assumptions, long millis, long maxConflicts, BooleanSupplier cancelled) {
+        return solve(assumptions, millis, maxConflicts);
+    }
+
+    /**
+     * Describe the next query, for a backend that routes its queries by their features, see AdaptiveBackend.
+     * Other backends ignore it.
+     * @param componentSize number of cells of the component of the queried cell, 0 if unknown
+     * @param equationCount number of equations of the component
+     */
+    default void describeQuery(int componentSize, int equationCount) {
+    }
+
+    /**
+     * @return literals of a model of the constraints and assumptions of the last call to solve, one for each variable
+     * given to the backend, or null if the call did not return SAT, constraints were added since,
+     * or the backend does not keep its models
+     */
+    default int[] getModel() {
+        return null;
+    }
+
+    /**
+     * Remove all constraints.
+     */
+    void reset();
+
+    /**
+     * @return number of conflicts of the last call to solve
+     */
+    long getLastConflicts();
+
+    /**
+     * @return number of clauses and cardinality constraints given to the solver since the last reset,
+     * including auxiliary clauses
+     */
+    long getClauseCount();
+
+    /**
+     * @return name of the backend as used by the backend option
+     */
+    String getName();
+
+    /**
+     * @return name of the engine that answered the last call to solve, the backend itself unless it is a portfolio
+     */
+    default String getLastEngine() {
+        return getName();
+    }
+}
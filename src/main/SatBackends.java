@@ -0,0 +1,80 @@
+package main;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SatBackends creates the SatBackend named by the backend option.
+ * 1. sat4j: Sat4jBackend
+ * 2. sat4j-pb: Sat4jBackend with the pseudo-boolean solver
+ * 3. logicng: LogicNGBackend, with the cnf option for its CNFTransformation
+ * 4. portfolio: PortfolioBackend racing the backends of the portfolio option, e.g. sat4j,logicng:TSEITIN
+ *    where a suffix after ':' is the cnf option of that member
+ * 5. adaptive: AdaptiveBackend routing each query among the backends of the adaptive option, e.g. sat4j,logicng,
+ *    by the CostModel of the costModel option file, or by the model of the JVM that is not saved
+ * 6. any other name is loaded as the class name of a SatBackend with a public no-argument constructor
+ */
+public final class SatBackends {
+
+    /**
+     * Members of the portfolio backend if the portfolio option is not given
+     */
+    public static final String DEFAULT_PORTFOLIO = "sat4j,logicng";
+
+    private SatBackends() {
+    }
+
+    /**
+     * @param name name of the backend
+     * @param options agent options, e.g. cnf for LogicNG or portfolio for the portfolio
+     * @return a new backend with no constraints
+     * @throws IllegalArgumentException if no backend has the name
+     */
+    public static SatBackend create(String name, Map<String, String> options) {
+        switch (name.toLowerCase()) {
+            case "sat4j":
+                return new Sat4jBackend();
+            case "sat4j-pb":
+                return new Sat4jBackend(true);
+            case "logicng":
+                LogicNGBackend.CNFTransformation cnf = LogicNGBackend.DEFAULT_TRANSFORMATION;
+                if (options.containsKey("cnf")) {
+                    cnf = LogicNGBackend.CNFTransformation.valueOf(options.get("cnf").toUpperCase());
+                }
+                return new LogicNGBackend(cnf);
+            case "portfolio":
+                String[] specs = options.getOrDefault("portfolio", DEFAULT_PORTFOLIO).split(",");
+                SatBackend[] members = new SatBackend[specs.length];
+                for (int i = 0; i < specs.length; i++) {
+                    String[] spec = specs[i].trim().split(":", 2);
+                    if (spec[0].equalsIgnoreCase("portfolio")) {
+                        throw new IllegalArgumentException("A portfolio cannot contain a portfolio");
+                    }
+                    Map<String, String> memberOptions = new HashMap<>(options);
+                    if (spec.length == 2) {
+                        memberOptions.put("cnf", spec[1]);
+                    }
+                    members[i] = create(spec[0], memberOptions);
+                }
+                return new PortfolioBackend(members);
+            case "adaptive":
+                String[] names = options.getOrDefault("adaptive", AdaptiveBackend.DEFAULT_MEMBERS).split(",");
+                SatBackend[] routed = new SatBackend[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    if (names[i].trim().equalsIgnoreCase("adaptive")) {
+                        throw new IllegalArgumentException("An adaptive backend cannot contain an adaptive backend");
+                    }
+                    routed[i] = create(names[i].trim(), options);
+                }
+                return new AdaptiveBackend(CostModel.shared(
+                        options.containsKey("costModel") ? Paths.get(options.get("costModel")) : null), routed);
+            default:
+                try {
+                    return Class.forName(name).asSubclass(SatBackend.class).getConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException("Unknown backend " + name, e);
+                }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package main;
+
+/**
+ * SolverBudget limits the work of the satisfiability tests of a LogicalPlayer per query and per game,
+ * in wall time and in solver conflicts. A limit of 0 means unlimited.
+ *
+ * A query that runs out of budget leaves its cell unknown.
+ * Once the game budget is used up, the player stops querying the solver and falls back to cheaper reasoning.
+ * The conflicts of the game are counted under a lock, so the workers of a RegionPlayer can share a budget.
+ */
+public class SolverBudget {
+
+    private final long queryMillis;
+    private final long queryConflicts;
+    private final long gameMillis;
+    private final long gameConflicts;
+
+    private long gameStart;
+    private long conflictsUsed = 0;
+
+    /**
+     * Budget without any limit
+     */
+    public SolverBudget() {
+        this(0, 0, 0, 0);
+    }
+
+    /**
+     * @param queryMillis wall time of a single satisfiability test
+     * @param queryConflicts conflicts of a single satisfiability test
+     * @param gameMillis wall time of a game, from the first call of startGame
+     * @param gameConflicts conflicts of all satisfiability tests of a game
+     */
+    public SolverBudget(long queryMillis, long queryConflicts, long gameMillis, long gameConflicts) {
+        this.queryMillis = queryMillis;
+        this.queryConflicts = queryConflicts;
+        this.gameMillis = gameMillis;
+        this.gameConflicts = gameConflicts;
+        gameStart = System.nanoTime();
+    }
+
+    /**
+     * Start the clock of the game budget.
+     */
+    public synchronized void startGame() {
+        gameStart = System.nanoTime();
+        conflictsUsed = 0;
+    }
+
+    /**
+     * @return milliseconds left for the next query, Long.MAX_VALUE if unlimited
+     */
+    public long queryMillisLeft() {
+        long left = Long.MAX_VALUE;
+        if (queryMillis > 0) {
+            left = queryMillis;
+        }
+        if (gameMillis > 0) {
+            long elapsed = (System.nanoTime() - gameStart) / 1000000;
+            left = Math.min(left, Math.max(0, gameMillis - elapsed));
+        }
+        return left;
+    }
+
+    /**
+     * @return conflicts allowed for the next query, Long.MAX_VALUE if unlimited
+     */
+    public synchronized long queryConflictsLeft() {
+        long left = Long.MAX_VALUE;
+        if (queryConflicts > 0) {
+            left = queryConflicts;
+        }
+        if (gameConflicts > 0) {
+            left = Math.min(left, Math.max(0, gameConflicts - conflictsUsed));
+        }
+        return left;
+    }
+
+    /**
+     * Charge the conflicts of a finished query to the game budget.
+     * @param conflicts number of conflicts of the query
+     */
+    public synchronized void addConflicts(long conflicts) {
+        conflictsUsed += conflicts;
+    }
+
+    /**
+     * @return true if no more queries can be made in this game
+     */
+    public boolean isGameExhausted() {
+        return queryMillisLeft() == 0 || queryConflictsLeft() == 0;
+    }
+
+    public boolean isUnlimited() {
+        return queryMillis <= 0 && queryConflicts <= 0 && gameMillis <= 0 && gameConflicts <= 0;
+    }
+}
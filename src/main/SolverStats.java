@@ -0,0 +1,168 @@
+package main;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SolverStats counts the work done by the satisfiability tests, the linear equations, the enumeration and the merged variables of a LogicalPlayer in a game,
+ * and the guesses it made.
+ */
+public class SolverStats {
+
+    private long queries = 0;
+    private long conflicts = 0;
+    private long exhaustedQueries = 0;
+    private boolean gameExhausted = false;
+    private long linearDeductions = 0;
+    private long enumeratedDeductions = 0;
+    private long mergedDeductions = 0;
+    private long guesses = 0;
+    private long pooledRefutations = 0;
+
+    /**
+     * Queries answered by each engine, by size class of the queried cell's component.
+     * Size class b holds the components of 2^(b-1) to 2^b - 1 cells, class 0 the cells in no component.
+     */
+    private final TreeMap<String, long[]> engineQueries = new TreeMap<>();
+
+    /**
+     * Count a finished query.
+     * @param conflicts number of conflicts found by the solver during the query
+     */
+    public void recordQuery(long conflicts) {
+        queries++;
+        this.conflicts += conflicts;
+    }
+
+    /**
+     * Count a query answered by an engine, e.g. the winner of a portfolio.
+     * @param engine name of the engine
+     * @param componentSize number of cells of the component of the queried cell
+     */
+    public void recordEngine(String engine, int componentSize) {
+        long[] counts = engineQueries.computeIfAbsent(engine, e -> new long[Integer.SIZE + 1]);
+        counts[Integer.SIZE - Integer.numberOfLeadingZeros(componentSize)]++;
+    }
+
+    /**
+     * Count a query that ran out of budget before it was decided.
+     */
+    public void recordExhaustedQuery() {
+        exhaustedQueries++;
+    }
+
+    /**
+     * Count a cell decided by the linear equations without a query.
+     */
+    public void recordLinearDeduction() {
+        linearDeductions++;
+    }
+
+    /**
+     * Count a cell decided by the enumeration of its component without a query.
+     */
+    public void recordEnumeratedDeduction() {
+        enumeratedDeductions++;
+    }
+
+    /**
+     * Count a cell decided by an earlier query on its group of merged variables.
+     */
+    public void recordMergedDeduction() {
+        mergedDeductions++;
+    }
+
+    /**
+     * Count a query answered by a model of an earlier query instead of the backend.
+     */
+    public void recordPooledRefutation() {
+        pooledRefutations++;
+    }
+
+    /**
+     * Count a cell probed by a guess, as no cell was entailed.
+     */
+    public void recordGuess() {
+        guesses++;
+    }
+
+    /**
+     * Record that the game budget ran out.
+     */
+    public void recordExhaustedGame() {
+        gameExhausted = true;
+    }
+
+    /**
+     * Add the counts of another game part, e.g. a region solved on another thread.
+     * @param other counts to add
+     */
+    public void merge(SolverStats other) {
+        queries += other.queries;
+        conflicts += other.conflicts;
+        exhaustedQueries += other.exhaustedQueries;
+        gameExhausted |= other.gameExhausted;
+        linearDeductions += other.linearDeductions;
+        enumeratedDeductions += other.enumeratedDeductions;
+        mergedDeductions += other.mergedDeductions;
+        guesses += other.guesses;
+        pooledRefutations += other.pooledRefutations;
+        other.engineQueries.forEach((engine, counts) -> {
+            long[] sum = engineQueries.computeIfAbsent(engine, e -> new long[Integer.SIZE + 1]);
+            for (int i = 0; i < counts.length; i++) {
+                sum[i] += counts[i];
+            }
+        });
+    }
+
+    public long getQueries() {
+        return queries;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public long getExhaustedQueries() {
+        return exhaustedQueries;
+    }
+
+    public long getLinearDeductions() {
+        return linearDeductions;
+    }
+
+    public long getEnumeratedDeductions() {
+        return enumeratedDeductions;
+    }
+
+    public long getMergedDeductions() {
+        return mergedDeductions;
+    }
+
+    public long getGuesses() {
+        return guesses;
+    }
+
+    public long getPooledRefutations() {
+        return pooledRefutations;
+    }
+
+    /**
+     * @return for each engine, the number of queries it answered by size class of the component
+     */
+    public Map<String, long[]> getEngineQueries() {
+        return engineQueries;
+    }
+
+    /**
+     * @param sizeClass index into the counts of getEngineQueries
+     * @return largest component size of the size class
+     */
+    public static int sizeClassLimit(int sizeClass) {
+        return sizeClass >= Integer.SIZE - 1 ? Integer.MAX_VALUE : (1 << sizeClass) - 1;
+    }
+
+    public boolean isGameExhausted() {
+        return gameExhausted;
+    }
+}
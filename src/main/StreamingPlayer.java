@@ -0,0 +1,118 @@
+package main;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * StreamingPlayer solves a board in bands of full rows, one band at a time from the top down, so that the solver
+ * state never holds more than one band: the local KBU of a band, as built by RegionPlayer from the current view
+ * and the hints just outside it, is discarded once the band is solved.
+ *
+ * A band is solved until it decides no more cells, then the next band below is built. The rows at the top of the
+ * board with no covered cell left are finished: no move can change them, so they are flushed to the output file
+ * and never visited again. Once the last band is solved, the board is swept again from the first unfinished row,
+ * as the moves of the lower bands may have given the upper bands new hints, until a sweep makes no move.
+ * The rows left unfinished are written at the end of the game, so the output file is the final view.
+ *
+ * The game itself holds the board and the view, so the memory bound is that of the solver state, the part
+ * that grows with the number of hints.
+ */
+public class StreamingPlayer extends RegionPlayer {
+
+    private final int bandHeight;
+    private final Path output;
+
+    /**
+     * Rows written to the output file, all finished but those written at the end of the game
+     */
+    private int flushedRows = 0;
+
+    /**
+     * Rows flushed while the game was being played
+     */
+    private int evictedRows = 0;
+
+    /**
+     * @param game game to be played
+     * @param verbose prints agent's view at each step if true
+     * @param encoding player whose existKMines and normal form encode the hints of the bands
+     * @param backends creates the backend of the local KBU of a band
+     * @param bandHeight number of rows of a band, 1 to MAX_REGION_SIZE
+     * @param output file the rows are written to as they are finished, null to keep them in the view only
+     */
+    public StreamingPlayer(Game game, boolean verbose, LogicalPlayer encoding, Supplier<SatBackend> backends,
+                           int bandHeight, Path output) {
+        super(game, verbose, encoding, backends, bandHeight, 1);
+        this.bandHeight = bandHeight;
+        this.output = output;
+    }
+
+    @Override
+    public void play() {
+        startGame();
+        int n = game.getSize();
+        try (BufferedWriter out = output == null ? null : Files.newBufferedWriter(output)) {
+            boolean changed = true;
+            while (changed && !game.hasEnded()) {
+                changed = false;
+                for (int top = flushedRows; top < n && !game.hasEnded(); top += bandHeight) {
+                    changed |= solveBand(top);
+                    flushFinishedRows(out);
+                }
+            }
+            evictedRows = flushedRows;
+            while (flushedRows < n) {
+                flushRow(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        endGame();
+    }
+
+    /**
+     * Solve the band from the top row until it decides no more cells.
+     * @return whether a move has been made
+     */
+    private boolean solveBand(int top) {
+        boolean changed = false;
+        boolean moved = true;
+        while (moved && !game.hasEnded()) {
+            tracePass();
+            List<int[]> decisions = solveRegion(0, top, game.getSize(), bandHeight);
+            moved = applyMoves(Collections.singletonList(decisions));
+            changed |= moved;
+        }
+        return changed;
+    }
+
+    /**
+     * Flush the rows at the top of the unfinished rows that have no covered cell.
+     */
+    private void flushFinishedRows(BufferedWriter out) throws IOException {
+        while (flushedRows < game.getSize() && new String(view[flushedRows]).indexOf('?') < 0) {
+            flushRow(out);
+        }
+    }
+
+    private void flushRow(BufferedWriter out) throws IOException {
+        if (out != null) {
+            out.write(view[flushedRows]);
+            out.newLine();
+        }
+        flushedRows++;
+    }
+
+    /**
+     * @return number of rows finished and flushed while the game was being played
+     */
+    public int getEvictedRows() {
+        return evictedRows;
+    }
+}
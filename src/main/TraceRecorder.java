@@ -0,0 +1,140 @@
+package main;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TraceRecorder writes a compact binary trace of a game: every change made to the Game,
+ * and the inference passes and solver queries of its player, each with the time since recording started.
+ * The trace is replayed by TraceReplayer without running the player.
+ *
+ * Records are written to a direct buffer and the buffer to a FileChannel when it is full or closed,
+ * so recording an event costs a few stores.
+ *
+ * Format (big-endian):
+ * --- header: MAGIC (int), VERSION (short), board size n (int), n * n cells of the board (byte each)
+ * --- record: type (byte), x (short), y (short), value (short), result (byte), nanos (long), extra (long)
+ * Record fields by type, numbered by the type byte:
+ * 1. PROBE: x, y, value = character uncovered
+ * 2. MARK: a mine is marked, the marked cell follows as a VIEW
+ * 3. VIEW: x, y, value = new character of the start map
+ * 4. GIVE_UP: no fields
+ * 5. SNAPSHOT: no fields
+ * 6. ROLLBACK: no fields
+ * 7. RELEASE: no fields
+ * 8. PASS: extra = number of the inference pass in the game, starting at 1
+ * 9. QUERY: x, y, value = sign of the query, result = SatBackend.Result ordinal, extra = conflicts
+ */
+public class TraceRecorder implements AutoCloseable {
+
+    public static final int MAGIC = 0x53575452; // SWTR
+    public static final short VERSION = 1;
+    public static final int RECORD_SIZE = 24;
+
+    public static final byte PROBE = 1;
+    public static final byte MARK = 2;
+    public static final byte VIEW = 3;
+    public static final byte GIVE_UP = 4;
+    public static final byte SNAPSHOT = 5;
+    public static final byte ROLLBACK = 6;
+    public static final byte RELEASE = 7;
+    public static final byte PASS = 8;
+    public static final byte QUERY = 9;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final long start = System.nanoTime();
+
+    /**
+     * Create the trace file and write the header with the board of the game.
+     * @param path file to write, replaced if it exists
+     * @param game game to be recorded, before any move is made
+     * @throws IOException if the file cannot be created
+     * @throws UnsupportedOperationException if the board of the game is not known, e.g. a RemoteGame
+     */
+    public TraceRecorder(Path path, Game game) throws IOException {
+        char[][] map = game.getMap();
+        if (map == null) {
+            throw new UnsupportedOperationException("The board of the game is not known");
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(10 + map.length * map.length);
+        header.putInt(MAGIC).putShort(VERSION).putInt(map.length);
+        for (char[] row : map) {
+            for (char c : row) {
+                header.put((byte) c);
+            }
+        }
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    /**
+     * Record an event without fields.
+     * @param type event type
+     */
+    public void record(byte type) {
+        record(type, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Record an event.
+     * @param type event type
+     * @param x coordinate of the cell of the event
+     * @param y coordinate of the cell of the event
+     * @param value character or sign, see the format
+     * @param result result of a query
+     * @param extra pass number or conflicts
+     * @throws UncheckedIOException if the buffer cannot be written
+     */
+    public void record(byte type, int x, int y, int value, int result, long extra) {
+        if (buffer.remaining() < RECORD_SIZE) {
+            flush();
+        }
+        buffer.put(type).putShort((short) x).putShort((short) y).putShort((short) value).put((byte) result)
+                .putLong(System.nanoTime() - start).putLong(extra);
+    }
+
+    /**
+     * Write the buffered records to the file.
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Write the buffered records and close the file.
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
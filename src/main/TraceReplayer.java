@@ -0,0 +1,167 @@
+package main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TraceReplayer reads a trace written by TraceRecorder and re-drives a Game from it without running the player,
+ * e.g. to diff two runs or to profile the time between events offline.
+ *
+ * Usage: java main.A2main replay [trace file] [events]
+ * Prints the final map and result of the replayed game, and every event of the trace as a line if events is given:
+ * --- nanos type x y value result extra, with the value of PROBE and VIEW shown as a character
+ */
+public class TraceReplayer {
+
+    private static final String[] TYPE_NAMES = {
+            "", "PROBE", "MARK", "VIEW", "GIVE_UP", "SNAPSHOT", "ROLLBACK", "RELEASE", "PASS", "QUERY"};
+
+    /**
+     * A record of the trace, see TraceRecorder for the fields of each type
+     */
+    public static final class Event {
+        public final byte type;
+        public final int x;
+        public final int y;
+        public final int value;
+        public final int result;
+        public final long nanos;
+        public final long extra;
+
+        Event(byte type, int x, int y, int value, int result, long nanos, long extra) {
+            this.type = type;
+            this.x = x;
+            this.y = y;
+            this.value = value;
+            this.result = result;
+            this.nanos = nanos;
+            this.extra = extra;
+        }
+
+        @Override
+        public String toString() {
+            String name = type > 0 && type < TYPE_NAMES.length ? TYPE_NAMES[type] : String.valueOf(type);
+            String shown = type == TraceRecorder.PROBE || type == TraceRecorder.VIEW
+                    ? String.valueOf((char) value) : String.valueOf(value);
+            return nanos + " " + name + " " + x + " " + y + " " + shown + " " + result + " " + extra;
+        }
+    }
+
+    private final char[][] map;
+    private final List<Event> events;
+
+    private TraceReplayer(char[][] map, List<Event> events) {
+        this.map = map;
+        this.events = events;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java main.A2main replay [trace file] [events]");
+            return;
+        }
+        try {
+            TraceReplayer replayer = read(Paths.get(args[1]));
+            if (args.length > 2 && args[2].equals("events")) {
+                for (Event event : replayer.getEvents()) {
+                    System.out.println(event);
+                }
+            }
+            Game game = replayer.replay();
+            System.out.println("Final map");
+            A2main.printBoard(game.getStartMap());
+            game.printResult();
+        } catch (IOException | IllegalStateException e) {
+            System.err.println(e);
+        }
+    }
+
+    /**
+     * @param path trace file
+     * @return the board and the events of the trace
+     * @throws IOException if the file cannot be read or is not a trace
+     */
+    public static TraceReplayer read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read the whole file
+            }
+            buffer.flip();
+            if (buffer.remaining() < 10 || buffer.getInt() != TraceRecorder.MAGIC
+                    || buffer.getShort() != TraceRecorder.VERSION) {
+                throw new IOException("Not a trace file: " + path);
+            }
+            int n = buffer.getInt();
+            if (n < 0 || buffer.remaining() < n * n) {
+                throw new IOException("Truncated trace file: " + path);
+            }
+            char[][] map = new char[n][n];
+            for (int y = 0; y < n; y++) {
+                for (int x = 0; x < n; x++) {
+                    map[y][x] = (char) buffer.get();
+                }
+            }
+            List<Event> events = new ArrayList<>(buffer.remaining() / TraceRecorder.RECORD_SIZE);
+            while (buffer.remaining() >= TraceRecorder.RECORD_SIZE) {
+                events.add(new Event(buffer.get(), buffer.getShort(), buffer.getShort(), buffer.getShort(),
+                        buffer.get(), buffer.getLong(), buffer.getLong()));
+            }
+            return new TraceReplayer(map, events);
+        }
+    }
+
+    /**
+     * Play the changes of the trace on a new game of its board. Passes and queries do not change the game.
+     * @return the game in its state at the end of the trace
+     * @throws IllegalStateException if a probe uncovers another character than it did in the trace
+     */
+    public Game replay() {
+        Game game = new Game(map);
+        for (Event event : events) {
+            switch (event.type) {
+                case TraceRecorder.PROBE:
+                    char c = game.probe(event.x, event.y);
+                    if (c != event.value) {
+                        throw new IllegalStateException("Probe of (" + event.x + "," + event.y + ") uncovered "
+                                + c + " instead of " + (char) event.value);
+                    }
+                    break;
+                case TraceRecorder.MARK:
+                    game.markMine();
+                    break;
+                case TraceRecorder.VIEW:
+                    game.updateStartMap(event.x, event.y, (char) event.value);
+                    break;
+                case TraceRecorder.GIVE_UP:
+                    game.giveUp();
+                    break;
+                case TraceRecorder.SNAPSHOT:
+                    game.snapshot();
+                    break;
+                case TraceRecorder.ROLLBACK:
+                    game.rollback();
+                    break;
+                case TraceRecorder.RELEASE:
+                    game.release();
+                    break;
+                default: // passes and queries
+            }
+        }
+        return game;
+    }
+
+    public char[][] getMap() {
+        return map;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+}
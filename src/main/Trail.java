@@ -0,0 +1,116 @@
+package main;
+
+import java.util.Arrays;
+
+/**
+ * Trail is an undo log of the changes made to a game, or to a LinearSystem, since a snapshot was taken.
+ * Each entry stores the key of the changed value and the value before the change, and an object for a change
+ * that an int cannot describe, so rolling back a snapshot costs O(changes) instead of a copy of the whole state.
+ *
+ * Snapshots are nested: each one opens a level on the trail and rolling back undoes the entries of the
+ * most recent level only. No entries are recorded while no snapshot is open.
+ */
+class Trail {
+
+    private int[] keys = new int[64];
+    private int[] values = new int[64];
+    private Object[] objects = new Object[64];
+    private int size = 0;
+
+    /**
+     * levels[i] is the size of the trail when snapshot i was taken
+     */
+    private int[] levels = new int[8];
+    private int depth = 0;
+
+    boolean isRecording() {
+        return depth > 0;
+    }
+
+    /**
+     * Record the value of key before it is changed.
+     * @param key identifies the changed value
+     * @param oldValue value before the change
+     */
+    void push(int key, int oldValue) {
+        push(key, oldValue, null);
+    }
+
+    /**
+     * Record the value of key before it is changed, with an object the change needs to be undone.
+     * @param key identifies the changed value
+     * @param oldValue value before the change
+     * @param oldObject object before the change, or null
+     */
+    void push(int key, int oldValue, Object oldObject) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            objects = Arrays.copyOf(objects, size * 2);
+        }
+        keys[size] = key;
+        values[size] = oldValue;
+        objects[size] = oldObject;
+        size++;
+    }
+
+    /**
+     * Open a new snapshot level.
+     * @return depth of the new level
+     */
+    int openLevel() {
+        if (depth == levels.length) {
+            levels = Arrays.copyOf(levels, depth * 2);
+        }
+        levels[depth] = size;
+        depth++;
+        return depth;
+    }
+
+    /**
+     * Close the most recent level. Its entries are kept by the enclosing level, or dropped if there is none.
+     */
+    void closeLevel() {
+        levelStart(); // fails if no level is open
+        depth--;
+        if (depth == 0) {
+            Arrays.fill(objects, 0, size, null);
+            size = 0;
+        }
+    }
+
+    /**
+     * @return size of the trail when the most recent level was opened
+     */
+    int levelStart() {
+        if (depth == 0) {
+            throw new IllegalStateException("No snapshot is open");
+        }
+        return levels[depth - 1];
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int lastKey() {
+        return keys[size - 1];
+    }
+
+    int lastValue() {
+        return values[size - 1];
+    }
+
+    Object lastObject() {
+        return objects[size - 1];
+    }
+
+    void pop() {
+        size--;
+        objects[size] = null;
+    }
+}
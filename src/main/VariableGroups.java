@@ -0,0 +1,217 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * VariableGroups merges the cells that are in exactly the same equations of a KBU.
+ * Such cells are interchangeable: any model stays a model when two of them swap values,
+ * so only the number of mines in each group matters.
+ *
+ * A group of s cells is encoded by s counter variables in the order encoding:
+ * --- variable i of the group (1 <= i <= s) is true iff the group has at least i mines
+ * --- order clauses: variable i+1 implies variable i
+ * An equation that exactly k of its cells are mines becomes a constraint on the counters of its groups.
+ * For CNF, instead of a clause for every k+1 of its cells, atMost k has a clause for every way of splitting
+ * k+1 mines among its groups, and atLeast k likewise for the safe cells. The CARDINALITY form takes every
+ * counter variable of the groups as a literal, as their sum is the number of mines.
+ *
+ * A cell is entailed safe iff its group has no mine in every model, i.e. the KBU and variable 1 is unsatisfiable,
+ * and a mine iff its group is full in every model, i.e. the KBU and not variable s is unsatisfiable.
+ * The answer holds for every cell of the group.
+ */
+public class VariableGroups {
+
+    private final HashMap<Integer, Integer> groupOf = new HashMap<>();
+    private final ArrayList<Integer> sizes = new ArrayList<>();
+
+    /**
+     * First counter variable of each group minus 1
+     */
+    private final ArrayList<Integer> bases = new ArrayList<>();
+
+    /**
+     * Each equation as { groups, { k } }
+     */
+    private final ArrayList<int[][]> constraints = new ArrayList<>();
+    private boolean inconsistent = false;
+    private int variables = 0;
+
+    /**
+     * Group the unknown cells of the equations by the set of equations they are in.
+     * @param equations equations { literals, { k } } that exactly k of the literals are true
+     * @param known value of a literal already entailed (0 or 1), or LinearSystem.UNKNOWN, substituted into the equations
+     */
+    public VariableGroups(int[][][] equations, IntUnaryOperator known) {
+        LinkedHashMap<Integer, BitSet> signatures = new LinkedHashMap<>();
+        int[] ks = new int[equations.length];
+        for (int e = 0; e < equations.length; e++) {
+            ks[e] = equations[e][1][0];
+            for (int literal : equations[e][0]) {
+                int value = known.applyAsInt(literal);
+                if (value == LinearSystem.UNKNOWN) {
+                    signatures.computeIfAbsent(literal, l -> new BitSet()).set(e);
+                } else {
+                    ks[e] -= value;
+                }
+            }
+        }
+
+        HashMap<BitSet, Integer> groupBySignature = new HashMap<>();
+        for (Map.Entry<Integer, BitSet> cell : signatures.entrySet()) {
+            int group = groupBySignature.computeIfAbsent(cell.getValue(), s -> {
+                sizes.add(0);
+                return sizes.size() - 1;
+            });
+            sizes.set(group, sizes.get(group) + 1);
+            groupOf.put(cell.getKey(), group);
+        }
+        for (int size : sizes) {
+            bases.add(variables);
+            variables += size;
+        }
+
+        ArrayList<ArrayList<Integer>> groupsOf = new ArrayList<>();
+        for (int e = 0; e < equations.length; e++) {
+            groupsOf.add(new ArrayList<>());
+        }
+        groupBySignature.forEach((signature, group) -> signature.stream().forEach(e -> groupsOf.get(e).add(group)));
+        for (int e = 0; e < equations.length; e++) {
+            int[] groups = groupsOf.get(e).stream().mapToInt(Integer::intValue).sorted().toArray();
+            int cells = 0;
+            for (int group : groups) {
+                cells += sizes.get(group);
+            }
+            if (ks[e] < 0 || ks[e] > cells) {
+                inconsistent = true;
+            } else if (groups.length > 0) {
+                constraints.add(new int[][] {groups, {ks[e]}});
+            }
+        }
+    }
+
+    /**
+     * @param literal variable of a cell
+     * @return group of the cell, -1 if the cell is in no equation or known
+     */
+    public int groupOf(int literal) {
+        return groupOf.getOrDefault(literal, -1);
+    }
+
+    public int getGroupCount() {
+        return sizes.size();
+    }
+
+    /**
+     * @param group index of a group
+     * @return number of cells of the group
+     */
+    public int sizeOf(int group) {
+        return sizes.get(group);
+    }
+
+    /**
+     * @param group index of a group
+     * @param count number of mines, 1 to the size of the group
+     * @return variable that is true iff the group has at least count mines
+     */
+    public int atLeast(int group, int count) {
+        return bases.get(group) + count;
+    }
+
+    /**
+     * @return whether an equation cannot hold whatever the values of its cells, so the KBU is unsatisfiable
+     */
+    public boolean isInconsistent() {
+        return inconsistent;
+    }
+
+    /**
+     * @return number of counter variables
+     */
+    public int getVariableCount() {
+        return variables;
+    }
+
+    /**
+     * Add the order clauses and the constraints of the equations to a backend.
+     * @param backend backend without constraints
+     * @param form CARDINALITY if the backend takes cardinality constraints, otherwise the constraints are CNF
+     */
+    public void addTo(SatBackend backend, SatBackend.NormalForm form) {
+        for (int group = 0; group < sizes.size(); group++) {
+            int[][] order = new int[sizes.get(group) - 1][];
+            for (int i = 1; i < sizes.get(group); i++) {
+                order[i - 1] = new int[] {-atLeast(group, i + 1), atLeast(group, i)};
+            }
+            if (order.length > 0) {
+                backend.addHintFormula(order, SatBackend.NormalForm.CNF);
+            }
+        }
+        for (int[][] constraint : constraints) {
+            int[] groups = constraint[0];
+            int k = constraint[1][0];
+            if (form == SatBackend.NormalForm.CARDINALITY) {
+                ArrayList<Integer> literals = new ArrayList<>();
+                for (int group : groups) {
+                    for (int i = 1; i <= sizes.get(group); i++) {
+                        literals.add(atLeast(group, i));
+                    }
+                }
+                backend.addHintFormula(new int[][] {literals.stream().mapToInt(Integer::intValue).toArray(), {k}},
+                        SatBackend.NormalForm.CARDINALITY);
+            } else {
+                ArrayList<int[]> clauses = new ArrayList<>();
+                int cells = 0;
+                for (int group : groups) {
+                    cells += sizes.get(group);
+                }
+                split(groups, 0, k + 1, new int[groups.length], true, clauses);
+                split(groups, 0, cells - k + 1, new int[groups.length], false, clauses);
+                if (!clauses.isEmpty()) {
+                    backend.addHintFormula(clauses.toArray(new int[0][]), SatBackend.NormalForm.CNF);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a clause for every split of the given number of mines (or safe cells) among the groups,
+     * excluding the assignments with at least that many.
+     * @param groups groups of an equation
+     * @param from first group left to split among
+     * @param left number still to split
+     * @param counts number given to each group so far
+     * @param mines true to exclude too many mines, false to exclude too many safe cells
+     * @param clauses clauses found
+     */
+    private void split(int[] groups, int from, int left, int[] counts, boolean mines, ArrayList<int[]> clauses) {
+        if (left == 0) {
+            int[] clause = new int[groups.length];
+            int length = 0;
+            for (int j = 0; j < groups.length; j++) {
+                if (counts[j] > 0) {
+                    int size = sizes.get(groups[j]);
+                    // at least counts[j] mines, or at most size - counts[j] mines
+                    clause[length++] = mines ? -atLeast(groups[j], counts[j]) : atLeast(groups[j], size - counts[j] + 1);
+                }
+            }
+            clauses.add(Arrays.copyOf(clause, length));
+            return;
+        }
+        if (from == groups.length) {
+            return;
+        }
+        int size = sizes.get(groups[from]);
+        for (int count = Math.min(size, left); count >= 0; count--) {
+            counts[from] = count;
+            split(groups, from + 1, left - count, counts, mines, clauses);
+        }
+        counts[from] = 0;
+    }
+}
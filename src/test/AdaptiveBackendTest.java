@@ -0,0 +1,108 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBackendTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * "linear" takes 1000 ns per cell of the component, "constant" 20000 ns whatever the component
+     */
+    private static CostModel trained(Path file) {
+        CostModel model = new CostModel(file);
+        for (int i = 0; i < 4 * CostModel.MIN_SAMPLES; i++) {
+            int size = 1 + i % 40;
+            model.observe("linear", CostModel.features(size, size / 2, 100), 1000L * size);
+            model.observe("constant", CostModel.features(size, size / 2, 100), 20000);
+        }
+        return model;
+    }
+
+    @Test
+    void chooseByPredictedLatency() {
+        CostModel model = new CostModel(null);
+        String[] engines = {"linear", "constant"};
+        // engines not observed enough are chosen first
+        assertEquals(0, model.choose(engines, CostModel.features(30, 15, 100)));
+        assertTrue(Double.isNaN(model.predict("linear", CostModel.features(30, 15, 100))));
+
+        model = trained(null);
+        double small = model.predict("linear", CostModel.features(4, 2, 100));
+        double large = model.predict("linear", CostModel.features(36, 18, 100));
+        assertTrue(small < large, small + " " + large);
+        assertEquals(20000, model.predict("constant", CostModel.features(10, 5, 100)), 2000);
+        assertEquals(0, model.choose(engines, CostModel.features(4, 2, 100)));
+        assertEquals(1, model.choose(engines, CostModel.features(36, 18, 100)));
+    }
+
+    @Test
+    void savedAndLoaded() throws IOException {
+        Path file = dir.resolve("model.txt");
+        CostModel model = trained(file);
+        model.save();
+        CostModel loaded = CostModel.load(file);
+        for (String engine : new String[] {"linear", "constant"}) {
+            assertEquals(model.getSamples(engine), loaded.getSamples(engine));
+            for (int size : new int[] {3, 20, 37}) {
+                double[] features = CostModel.features(size, size / 2, 100);
+                assertEquals(model.predict(engine, features), loaded.predict(engine, features), 1e-6);
+            }
+        }
+        assertEquals(0, CostModel.load(dir.resolve("missing.txt")).getSamples("linear"));
+
+        Path bad = dir.resolve("bad.txt");
+        Files.write(bad, "linear 1 2 3\n".getBytes());
+        assertThrows(IOException.class, () -> CostModel.load(bad));
+    }
+
+    @Test
+    void routesToEveryMember() {
+        CostModel model = new CostModel(null);
+        AdaptiveBackend backend = new AdaptiveBackend(model, new Sat4jBackend(),
+                new LogicNGBackend(LogicNGBackend.DEFAULT_TRANSFORMATION));
+        Game game = new Game(World.LARGE3);
+        P4Player player = new P4Player(game, false, backend);
+        player.setLinearTier(false);
+        player.setEnumerationLimit(0);
+        player.play();
+
+        Game fixed = new Game(World.LARGE3);
+        new P4Player(fixed, false).play();
+        assertArrayEquals(fixed.getStartMap(), game.getStartMap());
+        assertTrue(model.getSamples("sat4j") >= CostModel.MIN_SAMPLES);
+        assertTrue(model.getSamples("logicng") >= CostModel.MIN_SAMPLES);
+        assertEquals(player.getStats().getQueries(), model.getSamples("sat4j") + model.getSamples("logicng"));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBackend(model, new Sat4jBackend(),
+                new Sat4jBackend()));
+    }
+
+    @Test
+    void samePlayAsFixedBackends() {
+        Path file = dir.resolve("games.txt");
+        for (String agent : new String[] {"P3", "P4", "P5"}) {
+            for (World world : new World[] {World.MEDIUM5, World.LARGE6}) {
+                Map<String, String> options = new HashMap<>();
+                options.put("backend", "adaptive");
+                options.put("adaptive", agent.equals("P5") ? "sat4j-pb,logicng" : "sat4j,logicng");
+                options.put("costModel", file.toString());
+                Game game = new Game(world);
+                A2main.createPlayer(agent, game, false, options).play();
+                Game fixed = new Game(world);
+                A2main.createPlayer(agent, fixed, false, new HashMap<>()).play();
+                assertArrayEquals(fixed.getStartMap(), game.getStartMap(), agent + " " + world);
+                assertEquals(fixed.hasWon(), game.hasWon(), agent + " " + world);
+            }
+        }
+        assertTrue(Files.exists(file));
+    }
+}
@@ -0,0 +1,83 @@
+import main.BatchRunner;
+import main.Coord;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+
+    @Test
+    void playWorld() {
+        String result = BatchRunner.play("{\"id\": 7, \"agent\": \"P3\", \"world\": \"TEST3\"}");
+        assertTrue(result.startsWith("{\"id\":7,\"agent\":\"P3\",\"world\":\"TEST3\",\"result\":\"won\""));
+        assertTrue(result.endsWith("\"map\":[\"00b\",\"111\",\"1*1\"]}"));
+    }
+
+    @Test
+    void playBoard() {
+        String result = BatchRunner.play(
+                "{\"id\": \"a\", \"agent\": \"P3\", \"board\": [\"0bb\", \"b3b\", \"mmm\"], \"options\": {\"cnf\": \"tseitin\"}}");
+        assertTrue(result.contains("\"id\":\"a\""));
+        assertTrue(result.contains("\"result\":\"won\""));
+        assertTrue(result.contains("\"map\":[\"0bb\",\"b3b\",\"***\"]"));
+    }
+
+    @Test
+    void playInvalid() {
+        assertTrue(BatchRunner.play("not json").startsWith("{\"id\":null,\"error\":"));
+        assertTrue(BatchRunner.play("{\"id\": 1, \"agent\": \"P9\", \"world\": \"TEST1\"}").contains("Unknown agent P9"));
+        assertTrue(BatchRunner.play("{\"id\": 2, \"agent\": \"P2\", \"board\": [\"0b\", \"b\"]}").contains("square"));
+    }
+
+    /**
+     * Boards wider than 31 cells, where the cells of two columns once shared a literal
+     */
+    @Test
+    void playLargeBoards() {
+        for (String agent : new String[] {"P3", "P4", "P5"}) {
+            for (long seed = 1; seed <= 5; seed++) {
+                StringBuilder request = new StringBuilder("{\"id\": 1, \"agent\": \"" + agent + "\", \"board\": [");
+                char[][] board = Boards.random(40, 0.12, seed);
+                for (int y = 0; y < board.length; y++) {
+                    request.append(y == 0 ? "\"" : ", \"").append(board[y]).append('"');
+                }
+                String result = BatchRunner.play(request.append("]}").toString());
+                assertFalse(result.contains("\"result\":\"lost\""), agent + " seed " + seed + ": " + result);
+                assertTrue(result.contains("\"result\""), result);
+            }
+        }
+        assertTrue(BatchRunner.play("{\"id\": 2, \"agent\": \"P2\", \"board\": [" + "\"\", ".repeat(Coord.MAX_SIZE)
+                + "\"\"]}").contains("wide"));
+    }
+
+    @Test
+    void playDeepRequests() {
+        // a board opened by a single zero cascade
+        StringBuilder request = new StringBuilder("{\"id\": 3, \"agent\": \"P2\", \"board\": [");
+        String row = "\"" + "0".repeat(300) + "\"";
+        request.append(String.join(", ", Collections.nCopies(300, row))).append("]}");
+        assertTrue(BatchRunner.play(request.toString()).contains("\"result\":\"won\""));
+
+        // nested deeper than the stack of the parser
+        String nested = "{\"id\": 4, \"options\": " + "[".repeat(1_000_000) + "]".repeat(1_000_000) + "}";
+        assertTrue(BatchRunner.play(nested).contains("StackOverflowError"));
+    }
+
+    @Test
+    void serve() throws IOException {
+        String requests = "{\"id\": 1, \"agent\": \"P2\", \"world\": \"SMALL1\"}\n\n{\"id\": 2, \"agent\": \"P2\", \"world\": \"TEST1\"}\n";
+        StringWriter results = new StringWriter();
+        try (BatchRunner runner = new BatchRunner(2)) {
+            runner.serve(new BufferedReader(new StringReader(requests)), new PrintWriter(results));
+        }
+        String[] lines = results.toString().trim().split("\n");
+        assertEquals(2, lines.length);
+    }
+}
@@ -0,0 +1,64 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmaskEnumeratorTest {
+
+    @Test
+    void enumerate() {
+        // x0 + x1 = 1, x1 + x2 = 1: models 010 and 101
+        long[] mineCounts = new long[3];
+        long models = BitmaskEnumerator.enumerate(new long[] {0b011, 0b110}, new int[] {1, 1}, 3, 1000, mineCounts);
+        assertEquals(2, models);
+        assertArrayEquals(new long[] {1, 1, 1}, mineCounts);
+        // out of nodes
+        assertEquals(-1, BitmaskEnumerator.enumerate(new long[] {0b011, 0b110}, new int[] {1, 1}, 3, 2, new long[3]));
+    }
+
+    @Test
+    void components() {
+        // {1, 2, 3} = 1 and {3, 4} = 2 force 3 and 4, then 1 and 2 are safe; {5, 6} = 1 is a separate component
+        int[][][] equations = {{{1, 2, 3}, {1}}, {{3, 4}, {2}}, {{5, 6}, {1}}};
+        BitmaskEnumerator enumerator = new BitmaskEnumerator(equations, literal -> BitmaskEnumerator.UNKNOWN,
+                BitmaskEnumerator.MAX_CELLS, 1000);
+        assertEquals(0, enumerator.valueOf(1));
+        assertEquals(1, enumerator.valueOf(4));
+        assertEquals(4, enumerator.getComponentSize(2));
+        assertEquals(BitmaskEnumerator.UNDETERMINED, enumerator.valueOf(5));
+        assertEquals(2, enumerator.getModelCount(6));
+        assertEquals(1, enumerator.getMineCount(6));
+        assertEquals(BitmaskEnumerator.UNDETERMINED, enumerator.valueOf(7)); // in no equation
+
+        // known values are substituted, components above the limit are not enumerated
+        BitmaskEnumerator known = new BitmaskEnumerator(equations, literal -> literal == 5 ? 1 : -1, 2, 1000);
+        assertEquals(1, known.valueOf(5));
+        assertEquals(0, known.valueOf(6));
+        assertEquals(BitmaskEnumerator.UNKNOWN, known.valueOf(1));
+        assertEquals(-1, known.getModelCount(1));
+    }
+
+    @Test
+    void enumerationTier() {
+        for (World w : new World[] {World.SMALL3, World.MEDIUM3, World.LARGE7}) {
+            Game enumeratedGame = new Game(w);
+            P4Player enumeratedPlayer = new P4Player(enumeratedGame, false);
+            enumeratedPlayer.setLinearTier(false);
+            enumeratedPlayer.play();
+            Game satGame = new Game(w);
+            P4Player satPlayer = new P4Player(satGame, false);
+            satPlayer.setLinearTier(false);
+            satPlayer.setEnumerationLimit(0);
+            satPlayer.play();
+            assertArrayEquals(satGame.getStartMap(), enumeratedGame.getStartMap());
+            assertTrue(enumeratedPlayer.getStats().getEnumeratedDeductions() > 0);
+            // only the cells the enumeration decides are counted, not those it leaves undetermined
+            long decided = Arrays.stream(enumeratedGame.getStartMap()).flatMapToInt(row -> new String(row).chars())
+                    .filter(c -> c != '?' && c != 'b').count();
+            assertTrue(enumeratedPlayer.getStats().getEnumeratedDeductions() <= decided);
+            assertTrue(enumeratedPlayer.getStats().getQueries() < satPlayer.getStats().getQueries());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.Random;
+
+/**
+ * Boards generated for the tests that need more or larger boards than World has.
+ */
+final class Boards {
+
+    private Boards() {
+    }
+
+    /**
+     * A board of the given size with mines at random, without mines around the initial probes.
+     * @param n size of the board
+     * @param density probability of a mine in each cell
+     * @param seed seed of the mines, the same seed giving the same board
+     */
+    static char[][] random(int n, double density, long seed) {
+        Random random = new Random(seed);
+        boolean[][] mines = new boolean[n][n];
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                boolean nearProbe = Math.max(x, y) <= 1 || Math.abs(x - n / 2) <= 1 && Math.abs(y - n / 2) <= 1;
+                mines[y][x] = !nearProbe && random.nextDouble() < density;
+            }
+        }
+        char[][] map = new char[n][n];
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                int count = 0;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if (nx >= 0 && ny >= 0 && nx < n && ny < n && mines[ny][nx]) {
+                            count++;
+                        }
+                    }
+                }
+                map[y][x] = mines[y][x] ? 'm' : (char) ('0' + count);
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,115 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    private Map<String, String> checkpointOptions(Path file) {
+        Map<String, String> options = new HashMap<>();
+        options.put("checkpoint", file.toString());
+        return options;
+    }
+
+    /**
+     * Play a game with a checkpoint after every pass, then resume it from copies of the file cut at several points,
+     * one in the middle of a record as if the process died while writing it.
+     */
+    private void resumeAtEveryCut(String agent, World world, char[][] board) throws IOException {
+        Path file = dir.resolve(agent + ".checkpoint");
+        Game game = A2main.createGame(world, board, checkpointOptions(file));
+        A2main.createPlayer(agent, game, false, checkpointOptions(file)).play();
+        A2main.closeGame(game);
+        byte[] bytes = Files.readAllBytes(file);
+        int n = game.getSize();
+        int header = Integer.BYTES + Short.BYTES + Short.BYTES + agent.length() + "Player".length() + Integer.BYTES + n * n;
+
+        int records = bytes.length - header;
+        for (int cut : new int[] {header, header + records / 4, header + records / 2, bytes.length - 1, bytes.length}) {
+            Path copy = dir.resolve(agent + "-" + cut + ".checkpoint");
+            Files.write(copy, Arrays.copyOf(bytes, cut));
+            Map<String, String> options = new HashMap<>();
+            options.put("resume", copy.toString());
+            Game resumed = A2main.createGame(null, null, options);
+            assertNotNull(resumed.getCheckpoint());
+            if (cut == bytes.length) {
+                // the last record is written after the last pass
+                assertArrayEquals(game.getStartMap(), resumed.getStartMap());
+            }
+            try {
+                A2main.createPlayer(agent, resumed, false, options).play();
+            } finally {
+                A2main.closeGame(resumed);
+            }
+            String message = agent + " " + (world != null ? world : "board") + " cut at " + cut + "/" + bytes.length;
+            assertArrayEquals(game.getStartMap(), resumed.getStartMap(), message);
+            assertEquals(game.getSafeCount(), resumed.getSafeCount(), message);
+            assertEquals(game.getCoveredCount(), resumed.getCoveredCount(), message);
+            assertEquals(game.hasLost(), resumed.hasLost(), message);
+
+            // the resumed game is appended to the records that were kept, and saved as far as the first game
+            assertArrayEquals(Arrays.copyOf(bytes, header), Arrays.copyOf(Files.readAllBytes(copy), header), message);
+            assertTrue(Files.size(copy) > header, message);
+        }
+    }
+
+    @Test
+    void resumesTheSameGame() throws IOException {
+        for (String agent : new String[] {"P3", "P4", "P5"}) {
+            for (World world : new World[] {World.MEDIUM5, World.LARGE3, World.LARGE6}) {
+                resumeAtEveryCut(agent, world, null);
+            }
+            resumeAtEveryCut(agent, null, Boards.random(24, 0.15, 5));
+        }
+    }
+
+    @Test
+    void recordsEveryInterval() throws IOException {
+        Path every = dir.resolve("every.checkpoint");
+        Game game = A2main.createGame(World.LARGE3, null, new HashMap<>());
+        A2main.createPlayer("P4", game, false, checkpointOptions(every)).play();
+        A2main.closeGame(game);
+
+        Path third = dir.resolve("third.checkpoint");
+        Map<String, String> options = checkpointOptions(third);
+        options.put("checkpointEvery", "3");
+        game = A2main.createGame(World.LARGE3, null, options);
+        A2main.createPlayer("P4", game, false, options).play();
+        A2main.closeGame(game);
+
+        // the same changes in fewer records
+        assertTrue(Files.size(third) < Files.size(every));
+    }
+
+    @Test
+    void refused() throws IOException {
+        Path file = dir.resolve("p4.checkpoint");
+        Game game = A2main.createGame(World.LARGE3, null, new HashMap<>());
+        A2main.createPlayer("P4", game, false, checkpointOptions(file)).play();
+        A2main.closeGame(game);
+
+        Checkpoint checkpoint = Checkpoint.resume(file, 1);
+        try {
+            P5Player other = new P5Player(checkpoint.getGame(), false);
+            assertThrows(IllegalArgumentException.class, other::play);
+        } finally {
+            checkpoint.close();
+        }
+
+        Path notCheckpoint = dir.resolve("not.checkpoint");
+        Files.write(notCheckpoint, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> Checkpoint.resume(notCheckpoint, 1));
+        assertThrows(IllegalArgumentException.class, () -> Checkpoint.resume(file, 0));
+    }
+}
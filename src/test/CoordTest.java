@@ -0,0 +1,55 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoordTest {
+
+    @Test
+    void canonical() {
+        assertSame(Coord.of(3, 4), Coord.of(3, 4));
+        assertSame(Coord.of(-1, -1), Coord.of(-1, -1));
+        assertEquals(new Coord(3, 4), Coord.of(3, 4));
+        Coord outside = Coord.of(Coord.CACHE_LIMIT, 0);
+        assertEquals(new Coord(Coord.CACHE_LIMIT, 0), outside);
+        assertNotSame(outside, Coord.of(Coord.CACHE_LIMIT, 0));
+    }
+
+    @Test
+    void hashCodeIsObjectsHash() {
+        for (int x = -1; x < 40; x++) {
+            for (int y = -1; y < 40; y++) {
+                assertEquals(Objects.hash(x, y), Coord.of(x, y).hashCode());
+            }
+        }
+    }
+
+    @Test
+    void literal() {
+        HashSet<Integer> literals = new HashSet<>();
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 40; x++) {
+                int literal = Coord.of(x, y).literal();
+                assertTrue(literal > 0);
+                assertTrue(literals.add(literal), x + " " + y);
+                assertEquals(Coord.of(x, y), Coord.ofLiteral(-literal));
+            }
+        }
+        int last = Coord.MAX_SIZE - 1;
+        assertEquals(Coord.of(last, last), Coord.ofLiteral(Coord.of(last, last).literal()));
+    }
+
+    @Test
+    void getNeighbors() {
+        Coord c = Coord.of(0, 0);
+        Coord[] neighbors = c.getNeighbors();
+        assertArrayEquals(new Coord[] {new Coord(-1, -1), new Coord(0, -1), new Coord(1, -1), new Coord(-1, 0),
+                new Coord(1, 0), new Coord(-1, 1), new Coord(0, 1), new Coord(1, 1)}, neighbors);
+        assertSame(Coord.of(1, 1), neighbors[7]);
+        neighbors[0] = null; // a copy is returned
+        assertNotNull(c.getNeighbors()[0]);
+    }
+}
@@ -0,0 +1,113 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.logicng.formulas.FormulaFactory;
+import org.logicng.solvers.MiniSat;
+import org.logicng.solvers.SATSolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DimacsTest {
+
+    @TempDir
+    Path dir;
+
+    private static String write(int[][][] kbu, SatBackend.NormalForm form, int[] assumptions) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DimacsWriter.write(Channels.newChannel(bytes), kbu, form, assumptions, "expected UNSAT");
+        return bytes.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void formats() throws IOException {
+        // cells 40 and 41, exactly one is a mine, tested with 40 as a mine and 41 as a mine
+        assertEquals("c expected UNSAT\nc assumptions 1 2 0\np cnf 2 4\n1 2 0\n-1 -2 0\n1 0\n2 0\n",
+                write(new int[][][] {{{40, 41}, {-40, -41}}}, SatBackend.NormalForm.CNF, new int[] {40, 41}));
+        assertEquals("c expected UNSAT\nc assumptions 1 2 0\np cnf 4 7\n-3 1 0\n-3 -2 0\n-4 -1 0\n-4 2 0\n3 4 0\n1 0\n2 0\n",
+                write(new int[][][] {{{40, -41}, {-40, 41}}}, SatBackend.NormalForm.DNF, new int[] {40, 41}));
+        assertEquals("* #variable= 2 #constraint= 3\n* expected UNSAT\n* assumptions 1 -2 0\n"
+                        + "+1 x1 +1 x2 = 1 ;\n+1 x1 = 1 ;\n+1 x2 = 0 ;\n",
+                write(new int[][][] {{{40, 41}, {1}}}, SatBackend.NormalForm.CARDINALITY, new int[] {40, -41}));
+    }
+
+    @Test
+    void exportedQueriesGiveTheSameResults() throws IOException {
+        for (String agent : new String[] {"P3", "P4", "P5"}) {
+            Path export = dir.resolve(agent);
+            Map<String, String> options = new HashMap<>();
+            options.put("export", export.toString());
+            options.put("merge", "false");
+            options.put("linear", "false");
+            options.put("enumerate", "0");
+            LogicalPlayer player = (LogicalPlayer) A2main.createPlayer(agent, new Game(World.MEDIUM5), false, options);
+            player.play();
+
+            int files = 0;
+            int unsat = 0;
+            try (DirectoryStream<Path> instances = Files.newDirectoryStream(export)) {
+                for (Path file : instances) {
+                    DimacsReader.Instance instance = DimacsReader.read(file);
+                    assertEquals(agent.equals("P5") ? SatBackend.NormalForm.CARDINALITY : SatBackend.NormalForm.CNF,
+                            instance.getForm());
+                    assertEquals(1, instance.getAssumptions().length);
+                    SatBackend backend = agent.equals("P5") ? new Sat4jBackend(true) : new Sat4jBackend();
+                    assertEquals(instance.getExpected(), instance.solve(backend, Long.MAX_VALUE, Long.MAX_VALUE),
+                            file.toString());
+                    files++;
+                    if (instance.getExpected() == SatBackend.Result.UNSAT) {
+                        unsat++;
+                    }
+                }
+            }
+            assertEquals(player.getStats().getQueries(), files, agent);
+            assertTrue(unsat > 0, agent);
+        }
+    }
+
+    @Test
+    void readByOtherSolvers() throws IOException {
+        // the DIMACS files are read by the parser of LogicNG, with the assumptions as unit clauses
+        Path export = dir.resolve("P4");
+        Map<String, String> options = new HashMap<>();
+        options.put("export", export.toString());
+        options.put("merge", "false");
+        options.put("enumerate", "0");
+        options.put("linear", "false");
+        A2main.createPlayer("P4", new Game(World.LARGE3), false, options).play();
+        try (DirectoryStream<Path> instances = Files.newDirectoryStream(export)) {
+            for (Path file : instances) {
+                FormulaFactory f = new FormulaFactory();
+                SATSolver solver = MiniSat.miniSat(f);
+                solver.add(org.logicng.io.readers.DimacsReader.readCNF(file.toFile(), f));
+                SatBackend.Result expected = DimacsReader.read(file).getExpected();
+                assertEquals(expected == SatBackend.Result.SAT, solver.sat() == org.logicng.datastructures.Tristate.TRUE,
+                        file.toString());
+            }
+        }
+    }
+
+    @Test
+    void plainDimacs() throws IOException {
+        Path file = dir.resolve("plain.cnf");
+        Files.write(file, "c no query\np cnf 3 3\n1 -2\n 0\n2 3 0\n-1 0\n".getBytes(StandardCharsets.US_ASCII));
+        DimacsReader.Instance instance = DimacsReader.read(file);
+        assertEquals(1, instance.getConstraintCount());
+        assertEquals(0, instance.getAssumptions().length);
+        assertNull(instance.getExpected());
+        assertEquals(SatBackend.Result.SAT, instance.solve(new Sat4jBackend(), Long.MAX_VALUE, Long.MAX_VALUE));
+
+        Path opb = dir.resolve("weighted.opb");
+        Files.write(opb, "+2 x1 +1 x2 >= 2 ;\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> DimacsReader.read(opb));
+    }
+}
@@ -95,6 +95,32 @@ class GameTest {
     }
 
 
+    @Test
+    void rollback() {
+        int safeCount = game.getSafeCount();
+        int coveredCount = game.getCoveredCount();
+
+        game.snapshot();
+        game.probe(1, 1);
+        game.updateStartMap(1, 1, '3');
+        game.snapshot(); // nested snapshot
+        game.probe(1, 2);
+        game.markMine();
+        assertTrue(game.hasLost());
+
+        game.rollback();
+        assertFalse(game.hasLost());
+        assertEquals(safeCount - 1, game.getSafeCount());
+        assertEquals('3', game.getStartMap()[1][1]);
+
+        game.rollback();
+        assertEquals(safeCount, game.getSafeCount());
+        assertEquals(coveredCount, game.getCoveredCount());
+        assertEquals('?', game.getStartMap()[1][1]);
+        assertEquals(0, game.getSnapshotDepth());
+        assertThrows(IllegalStateException.class, () -> game.rollback());
+    }
+
     @Test
     void isValidCoord() {
         int n = game.getSize();
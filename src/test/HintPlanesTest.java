@@ -0,0 +1,103 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HintPlanesTest {
+
+    /**
+     * A view of the board with some cells probed and some mines marked
+     */
+    private static char[][] view(char[][] board, double probed, Random random) {
+        int n = board.length;
+        char[][] view = new char[n][n];
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                double r = random.nextDouble();
+                if (board[y][x] == 'm') {
+                    view[y][x] = r < probed ? '*' : '?';
+                } else {
+                    view[y][x] = r < probed ? board[y][x] : '?';
+                }
+            }
+        }
+        return view;
+    }
+
+    @Test
+    void sameAsSinglePointByCell() {
+        Random random = new Random(3);
+        for (int n : new int[] {1, 3, 6, 7, 8, 15, 16, 17, 30}) {
+            for (int seed = 0; seed < 20; seed++) {
+                char[][] view = view(Boards.random(n, 0.2, seed), random.nextDouble(), random);
+                HintPlanes packed = new HintPlanes(view, true);
+                HintPlanes scalar = new HintPlanes(view, false);
+                List<Coord> safe = new ArrayList<>();
+                List<Coord> mines = new ArrayList<>();
+                for (int y = 0; y < n; y++) {
+                    for (int x = 0; x < n; x++) {
+                        int covered = 0;
+                        int marked = 0;
+                        boolean isSafe = false;
+                        boolean isMine = false;
+                        for (Coord c : Coord.of(x, y).getNeighbors()) {
+                            if (c.getX() < 0 || c.getY() < 0 || c.getX() >= n || c.getY() >= n) {
+                                continue;
+                            }
+                            covered += view[c.getY()][c.getX()] == '?' ? 1 : 0;
+                            marked += view[c.getY()][c.getX()] == '*' ? 1 : 0;
+                            if (view[y][x] == '?' && Character.isDigit(view[c.getY()][c.getX()])) {
+                                int hintCovered = 0;
+                                int hintMarked = 0;
+                                for (Coord d : c.getNeighbors()) {
+                                    if (d.getX() >= 0 && d.getY() >= 0 && d.getX() < n && d.getY() < n) {
+                                        hintCovered += view[d.getY()][d.getX()] == '?' ? 1 : 0;
+                                        hintMarked += view[d.getY()][d.getX()] == '*' ? 1 : 0;
+                                    }
+                                }
+                                int remaining = view[c.getY()][c.getX()] - '0' - hintMarked;
+                                isSafe |= remaining == 0;
+                                isMine |= remaining == hintCovered;
+                            }
+                        }
+                        String message = n + " " + seed + " (" + x + ", " + y + ")";
+                        assertEquals(covered, packed.getCoveredCount(Coord.of(x, y)), message);
+                        assertEquals(marked, packed.getMarkedCount(Coord.of(x, y)), message);
+                        assertEquals(covered, scalar.getCoveredCount(Coord.of(x, y)), message);
+                        assertEquals(marked, scalar.getMarkedCount(Coord.of(x, y)), message);
+                        if (isSafe) {
+                            safe.add(Coord.of(x, y));
+                        }
+                        if (isMine) {
+                            mines.add(Coord.of(x, y));
+                        }
+                    }
+                }
+                assertEquals(safe, packed.getSafeCells(), n + " " + seed);
+                assertEquals(mines, packed.getMineCells(), n + " " + seed);
+                assertEquals(safe, scalar.getSafeCells(), n + " " + seed);
+                assertEquals(mines, scalar.getMineCells(), n + " " + seed);
+            }
+        }
+    }
+
+    @Test
+    void sweepingPlayer() {
+        for (World world : World.values()) {
+            Game game = new Game(world);
+            P2Player player = new P2Player(game, false);
+            player.setSweep(true);
+            player.play();
+            assertFalse(game.hasLost(), world.toString());
+        }
+        Game game = new Game(World.SMALL6);
+        P2Player player = new P2Player(game, false);
+        player.setSweep(true);
+        player.play();
+        assertTrue(game.hasWon());
+    }
+}
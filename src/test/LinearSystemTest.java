@@ -0,0 +1,99 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinearSystemTest {
+
+    @Test
+    void elimination() {
+        // x1 + x2 = 1, x2 + x3 = 1, x1 + x2 + x3 = 1: subtracting gives x3 = 0, then x2 = 1 and x1 = 0
+        LinearSystem system = new LinearSystem();
+        system.addEquation(new int[] {1, 2}, 1);
+        system.addEquation(new int[] {2, 3}, 1);
+        assertEquals(LinearSystem.UNKNOWN, system.valueOf(2));
+        system.addEquation(new int[] {1, 2, 3}, 1);
+        assertEquals(0, system.valueOf(1));
+        assertEquals(1, system.valueOf(2));
+        assertEquals(0, system.valueOf(3));
+        assertFalse(system.isInconsistent());
+    }
+
+    @Test
+    void bounds() {
+        // x1 + x2 + x3 = 2 minus x1 + x2 = 1 gives x3 = 1
+        LinearSystem system = new LinearSystem();
+        system.addEquation(new int[] {1, 2, 3}, 2);
+        system.addEquation(new int[] {1, 2}, 1);
+        assertEquals(1, system.valueOf(3));
+        // x1 + x3 = 1 and x2 + x3 = 0: x2 and x3 are bounded to 0, then x1 = 1
+        LinearSystem difference = new LinearSystem();
+        difference.addEquation(new int[] {1, 3}, 1);
+        difference.addEquation(new int[] {2, 3}, 0);
+        assertEquals(0, difference.valueOf(2));
+        assertEquals(0, difference.valueOf(3));
+        assertEquals(1, difference.valueOf(1));
+    }
+
+    @Test
+    void fixAndCopy() {
+        LinearSystem system = new LinearSystem();
+        system.addEquation(new int[] {1, 2, 3}, 1);
+        LinearSystem saved = system.copy();
+        system.fix(1, 0);
+        system.fix(2, 0);
+        assertEquals(1, system.valueOf(3));
+        assertEquals(LinearSystem.UNKNOWN, saved.valueOf(3));
+        system.fix(3, 0);
+        assertTrue(system.isInconsistent());
+        assertEquals(LinearSystem.UNKNOWN, system.valueOf(3));
+        assertFalse(saved.isInconsistent());
+    }
+
+    @Test
+    void snapshots() {
+        LinearSystem system = new LinearSystem();
+        system.addEquation(new int[] {1, 2, 3}, 1);
+        system.snapshot();
+        system.addEquation(new int[] {4, 5}, 1);
+        system.fix(1, 0);
+        system.snapshot();
+        system.fix(2, 0);
+        assertEquals(1, system.valueOf(3));
+        system.fix(3, 0);
+        assertTrue(system.isInconsistent());
+
+        system.rollback(); // before x2 = 0
+        assertFalse(system.isInconsistent());
+        assertEquals(0, system.valueOf(1));
+        assertEquals(LinearSystem.UNKNOWN, system.valueOf(3));
+        assertEquals(2, system.getRowCount());
+        system.release(); // keeps x1 = 0 and the second equation
+        system.snapshot();
+        system.fix(4, 1);
+        assertEquals(0, system.valueOf(5));
+        system.rollback();
+        assertEquals(LinearSystem.UNKNOWN, system.valueOf(5));
+        assertEquals(2, system.getRowCount());
+        assertEquals(1, system.getKnownCount());
+        assertThrows(IllegalStateException.class, system::rollback);
+    }
+
+    @Test
+    void linearTier() {
+        for (World w : new World[] {World.SMALL3, World.MEDIUM3, World.LARGE7}) {
+            Game linearGame = new Game(w);
+            P4Player linearPlayer = new P4Player(linearGame, false);
+            linearPlayer.setEnumerationLimit(0);
+            linearPlayer.play();
+            Game satGame = new Game(w);
+            P4Player satPlayer = new P4Player(satGame, false);
+            satPlayer.setLinearTier(false);
+            satPlayer.setEnumerationLimit(0);
+            satPlayer.play();
+            assertArrayEquals(satGame.getStartMap(), linearGame.getStartMap());
+            assertTrue(linearPlayer.getStats().getLinearDeductions() > 0);
+            assertTrue(linearPlayer.getStats().getQueries() < satPlayer.getStats().getQueries());
+        }
+    }
+}
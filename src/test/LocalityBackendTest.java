@@ -0,0 +1,90 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalityBackendTest {
+
+    private static int cell(int x, int y) {
+        return Coord.of(x, y).literal();
+    }
+
+    /**
+     * Exactly one mine in each pair of neighbors along the top row, and (6, 0) is a mine,
+     * so only the whole chain proves that (0, 0) is a mine. (0, 4) and (1, 4) are in another component.
+     */
+    private static LocalityBackend chain(int radius) {
+        LocalityBackend backend = new LocalityBackend(new Sat4jBackend(), radius, 8);
+        for (int x = 0; x < 6; x++) {
+            backend.addHintFormula(new int[][] {{cell(x, 0), cell(x + 1, 0)}, {-cell(x, 0), -cell(x + 1, 0)}},
+                    SatBackend.NormalForm.CNF);
+        }
+        backend.addHintFormula(new int[][] {{cell(6, 0)}}, SatBackend.NormalForm.CNF);
+        backend.addHintFormula(new int[][] {{cell(0, 4), cell(1, 4)}}, SatBackend.NormalForm.CNF);
+        return backend;
+    }
+
+    @Test
+    void widenUntilDecided() {
+        LocalityBackend backend = chain(0);
+        assertEquals(SatBackend.Result.UNSAT, backend.solve(new int[] {-cell(0, 0)}, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(6, backend.getWidenings()); // one more pair at each step, then the unit clause
+        assertEquals(13, backend.getClauseCount()); // the other component is never given
+
+        // the mine next to (5, 0) decides it at once within one cell
+        backend = chain(1);
+        assertEquals(SatBackend.Result.UNSAT, backend.solve(new int[] {cell(5, 0)}, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(0, backend.getWidenings());
+
+        // satisfiable once the whole component is
+        backend = chain(2);
+        assertEquals(SatBackend.Result.SAT, backend.solve(new int[] {cell(0, 0)}, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(4, backend.getWidenings());
+
+        // a cell in no hint formula
+        assertEquals(SatBackend.Result.SAT, backend.solve(new int[] {cell(7, 7)}, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> new LocalityBackend(new Sat4jBackend(), -1, 8));
+    }
+
+    @Test
+    void cellsOfWideBoards() {
+        LocalityBackend backend = new LocalityBackend(new Sat4jBackend(), 1, 40);
+        for (int x = 30; x < 36; x++) {
+            backend.addHintFormula(new int[][] {{cell(x, 35), cell(x + 1, 35)}, {-cell(x, 35), -cell(x + 1, 35)}},
+                    SatBackend.NormalForm.CNF);
+        }
+        backend.addHintFormula(new int[][] {{cell(36, 35)}}, SatBackend.NormalForm.CNF);
+        assertEquals(SatBackend.Result.UNSAT, backend.solve(new int[] {cell(35, 35)}, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(0, backend.getWidenings());
+        assertEquals(SatBackend.Result.UNSAT, backend.solve(new int[] {-cell(30, 35)}, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals(5, backend.getWidenings()); // one more pair at each step past the radius, then the unit clause
+    }
+
+    @Test
+    void sameGamesAsWholeQueries() {
+        for (String agent : new String[] {"P3", "P4", "P5"}) {
+            for (World world : new World[] {World.MEDIUM5, World.LARGE3, World.LARGE6}) {
+                Map<String, String> options = new HashMap<>();
+                options.put("linear", "false");
+                options.put("enumerate", "0");
+                options.put("merge", "false");
+                Game whole = new Game(world);
+                LogicalPlayer wholePlayer = (LogicalPlayer) A2main.createPlayer(agent, whole, false, options);
+                wholePlayer.play();
+
+                options.put("locality", "1");
+                Game local = new Game(world);
+                LogicalPlayer localPlayer = (LogicalPlayer) A2main.createPlayer(agent, local, false, options);
+                localPlayer.play();
+                String message = agent + " " + world;
+                assertArrayEquals(whole.getStartMap(), local.getStartMap(), message);
+                assertEquals(whole.hasWon(), local.hasWon(), message);
+                assertEquals(wholePlayer.getStats().getQueries(), localPlayer.getStats().getQueries(), message);
+                assertTrue(((LocalityBackend) localPlayer.getBackend()).getWidenings() > 0, message);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LookaheadTest {
+
+    private static int literal(int x, int y) {
+        return Coord.of(x, y).literal();
+    }
+
+    @Test
+    void choose() {
+        // 1 ? ?
+        // 1 ? ?
+        // ? ? ?
+        // the first hint puts its mine in (1, 0) or (1, 1), so (0, 2) and (1, 2) are safe
+        char[][] view = {{'1', '?', '?'}, {'1', '?', '?'}, {'?', '?', '?'}};
+        int[][][] equations = {
+                {{literal(1, 0), literal(1, 1)}, {1}},
+                {{literal(1, 0), literal(1, 1), literal(0, 2), literal(1, 2)}, {1}}};
+        List<Lookahead.Candidate> candidates = new Lookahead(1).evaluate(view, equations, 2);
+        assertEquals(7, candidates.size());
+        for (Lookahead.Candidate candidate : candidates) {
+            assertTrue(candidate.getRisk() >= 0 && candidate.getRisk() <= 1, candidate.toString());
+            assertTrue(candidate.getExpectedDeductions() >= 0, candidate.toString());
+        }
+        assertEquals(0.5, candidates.get(0).getRisk(), 1e-9); // (1, 0)
+        assertEquals(1.0 / 3, candidates.get(1).getRisk(), 1e-9); // (2, 0), the mine left over the three other cells
+
+        Lookahead.Candidate chosen = new Lookahead(1).choose(view, equations, 2);
+        assertEquals(0, chosen.getRisk());
+        assertEquals(2, chosen.getCell().getY());
+    }
+
+    @Test
+    void sameChoiceWithAnyThreads() {
+        char[][] view = {{'1', '?', '?'}, {'1', '?', '?'}, {'?', '?', '?'}};
+        int[][][] equations = {
+                {{literal(1, 0), literal(1, 1)}, {1}},
+                {{literal(1, 0), literal(1, 1), literal(0, 2), literal(1, 2)}, {1}}};
+        assertEquals(new Lookahead(1).choose(view, equations, 2).getCell(),
+                new Lookahead(4).choose(view, equations, 2).getCell());
+
+        for (World world : new World[] {World.SMALL3, World.LARGE10}) {
+            char[][] firstMap = null;
+            for (String threads : new String[] {"1", "4"}) {
+                Map<String, String> options = new HashMap<>();
+                options.put("guess", "true");
+                options.put("guessThreads", threads);
+                Game game = new Game(world);
+                A2main.createPlayer("P4", game, false, options).play();
+                if (firstMap == null) {
+                    firstMap = game.getStartMap();
+                } else {
+                    assertArrayEquals(firstMap, game.getStartMap(), world.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void guessesWhenNoCellIsEntailed() {
+        for (World world : new World[] {World.SMALL3, World.LARGE10}) {
+            Game stuck = new Game(world);
+            A2main.createPlayer("P4", stuck, false, new HashMap<>()).play();
+            assertFalse(stuck.hasWon(), world.toString());
+
+            Map<String, String> options = new HashMap<>();
+            options.put("guess", "true");
+            Game game = new Game(world);
+            LogicalPlayer player = (LogicalPlayer) A2main.createPlayer("P4", game, false, options);
+            player.play();
+            assertTrue(game.hasWon(), world.toString());
+            assertTrue(player.getStats().getGuesses() > 0, world.toString());
+        }
+    }
+
+    @Test
+    void closedAtTheEndOfTheGame() {
+        Game game = new Game(World.SMALL3);
+        P4Player player = new P4Player(game, false);
+        Lookahead lookahead = new Lookahead(2);
+        player.setLookahead(lookahead);
+        player.play();
+        assertTrue(game.hasWon());
+
+        char[][] view = {{'1', '?'}, {'?', '?'}};
+        int[][][] equations = {{{literal(1, 0), literal(0, 1), literal(1, 1)}, {1}}};
+        assertThrows(RejectedExecutionException.class, () -> lookahead.evaluate(view, equations, 1));
+    }
+}
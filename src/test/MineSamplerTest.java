@@ -0,0 +1,177 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MineSamplerTest {
+
+    /**
+     * @return two rows of the given width with a mine in about a quarter of the cells
+     */
+    private static int[][] mines(int width, long seed) {
+        Random random = new Random(seed);
+        int[][] mines = new int[2][width];
+        for (int[] row : mines) {
+            for (int x = 0; x < width; x++) {
+                row[x] = random.nextInt(4) == 0 ? 1 : 0;
+            }
+        }
+        return mines;
+    }
+
+    private static int[][][] twoRows(int width, long seed) {
+        return twoRows(mines(width, seed));
+    }
+
+    /**
+     * Two rows of covered cells above a row of hints, each hint the mines of the six cells
+     * of its column and the columns beside it
+     */
+    private static int[][][] twoRows(int[][] mines) {
+        int width = mines[0].length;
+        int[][][] equations = new int[width][][];
+        for (int x = 0; x < width; x++) {
+            int from = Math.max(0, x - 1);
+            int to = Math.min(width - 1, x + 1);
+            int[] literals = new int[2 * (to - from + 1)];
+            int k = 0;
+            for (int y = 0, i = 0; y < 2; y++) {
+                for (int c = from; c <= to; c++) {
+                    literals[i++] = Coord.of(c, y).literal();
+                    k += mines[y][c];
+                }
+            }
+            equations[x] = new int[][] {literals, {k}};
+        }
+        return equations;
+    }
+
+    @Test
+    void matchesEnumeration() {
+        int[][][] equations = twoRows(20, 3);
+        BitmaskEnumerator enumerator = new BitmaskEnumerator(equations, l -> BitmaskEnumerator.UNKNOWN,
+                BitmaskEnumerator.MAX_CELLS, Long.MAX_VALUE);
+        Map<Integer, MineSampler.Estimate> estimates = new MineSampler(4, 2, 1)
+                .estimate(equations, l -> BitmaskEnumerator.UNKNOWN, Long.MAX_VALUE, 2000);
+
+        assertEquals(40, estimates.size());
+        int inBounds = 0;
+        for (Map.Entry<Integer, MineSampler.Estimate> entry : estimates.entrySet()) {
+            double exact = (double) enumerator.getMineCount(entry.getKey()) / enumerator.getModelCount(entry.getKey());
+            MineSampler.Estimate estimate = entry.getValue();
+            assertEquals(exact, estimate.getProbability(), 0.05, estimate.toString());
+            assertEquals(4 * (2000 - MineSampler.BURN_IN_SWEEPS), estimate.getSamples());
+            if (estimate.getLower() <= exact && exact <= estimate.getUpper()) {
+                inBounds++;
+            }
+        }
+        assertTrue(inBounds >= 34, inBounds + " of 40 within their bounds");
+    }
+
+    @Test
+    void sameEstimatesWithAnyThreads() {
+        int[][] mines = mines(100, 5);
+        int[][][] equations = twoRows(mines);
+        // the first column is known
+        HashMap<Integer, Integer> known = new HashMap<>();
+        known.put(Coord.of(0, 0).literal(), mines[0][0]);
+        known.put(Coord.of(0, 1).literal(), mines[1][0]);
+        Map<Integer, MineSampler.Estimate> single = new MineSampler(4, 1, 7).estimate(equations,
+                l -> known.getOrDefault(l, BitmaskEnumerator.UNKNOWN), Long.MAX_VALUE, 200);
+        Map<Integer, MineSampler.Estimate> parallel = new MineSampler(4, 4, 7).estimate(equations,
+                l -> known.getOrDefault(l, BitmaskEnumerator.UNKNOWN), Long.MAX_VALUE, 200);
+
+        assertEquals(198, single.size());
+        assertFalse(single.containsKey(Coord.of(0, 0).literal()));
+        for (int literal : single.keySet()) {
+            MineSampler.Estimate estimate = single.get(literal);
+            assertEquals(estimate.getProbability(), parallel.get(literal).getProbability());
+            assertTrue(estimate.getLower() <= estimate.getProbability());
+            assertTrue(estimate.getProbability() <= estimate.getUpper());
+        }
+    }
+
+    @Test
+    void withinTimeBudget() {
+        int[][][] equations = twoRows(400, 11);
+        long start = System.nanoTime();
+        Map<Integer, MineSampler.Estimate> estimates = new MineSampler(2, 2, 1)
+                .estimate(equations, l -> BitmaskEnumerator.UNKNOWN, 200, Long.MAX_VALUE);
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 5000);
+        assertEquals(800, estimates.size());
+
+        // no assignment has 7 mines among 6 cells
+        int[][][] inconsistent = {{{1, 2, 3, 4, 5, 6}, {7}}};
+        assertTrue(new MineSampler(1, 1, 1).estimate(inconsistent, l -> BitmaskEnumerator.UNKNOWN,
+                Long.MAX_VALUE, 100).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new MineSampler(0, 1, 1));
+    }
+
+    /**
+     * Three rows of covered cells between two rows of hints are a component of 90 cells, too large to enumerate
+     */
+    @Test
+    void lookaheadRisks() {
+        int n = 30;
+        Random random = new Random(17);
+        int[][] mines = new int[n][n];
+        char[][] view = new char[n][n];
+        for (int y = 0; y < n; y++) {
+            Arrays.fill(view[y], y % 2 == 0 && y <= 4 ? '?' : '0');
+            for (int x = 0; x < n && y % 2 == 0 && y <= 4; x++) {
+                mines[y][x] = random.nextInt(4) == 0 ? 1 : 0;
+            }
+        }
+        ArrayList<int[][]> equations = new ArrayList<>();
+        for (int y = 1; y <= 3; y += 2) {
+            for (int x = 0; x < n; x++) {
+                ArrayList<Integer> literals = new ArrayList<>();
+                int k = 0;
+                for (int dy = -1; dy <= 1; dy += 2) {
+                    for (int c = Math.max(0, x - 1); c <= Math.min(n - 1, x + 1); c++) {
+                        literals.add(Coord.of(c, y + dy).literal());
+                        k += mines[y + dy][c];
+                    }
+                }
+                view[y][x] = (char) ('0' + k);
+                equations.add(new int[][] {literals.stream().mapToInt(Integer::intValue).toArray(), {k}});
+            }
+        }
+        int[][][] hints = equations.toArray(new int[0][][]);
+        int remaining = Arrays.stream(mines).flatMapToInt(Arrays::stream).sum();
+
+        Lookahead lookahead = new Lookahead(2);
+        List<Lookahead.Candidate> guessed = lookahead.evaluate(view, hints, remaining);
+        MineSampler sampler = new MineSampler(4, 2, 1);
+        lookahead.setSampler(sampler, 200);
+        List<Lookahead.Candidate> sampled = lookahead.evaluate(view, hints, remaining);
+
+        // without the sampler, the cells of the component are guessed at the density of the mines
+        assertTrue(guessed.size() <= Lookahead.MAX_OTHER_CANDIDATES);
+        // with it, every cell of the component is a candidate with its sampled risk
+        assertEquals(3 * n, sampled.size());
+        int decided = 0;
+        for (Lookahead.Candidate candidate : sampled) {
+            int x = candidate.getCell().getX();
+            int y = candidate.getCell().getY();
+            char below = view[Math.min(y + 1, 3)][x];
+            if (below == '0' || below == '6') {
+                assertEquals(below == '0' ? 0 : 1, candidate.getRisk(), candidate.toString());
+                decided++;
+            }
+        }
+        assertTrue(decided > 0);
+
+        lookahead.close();
+        assertThrows(RejectedExecutionException.class, () -> sampler.estimate(hints, l -> BitmaskEnumerator.UNKNOWN,
+                Long.MAX_VALUE, 10));
+    }
+}
@@ -0,0 +1,96 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelPoolTest {
+
+    @Test
+    void answersFromRecentModels() {
+        ModelPool pool = new ModelPool(2);
+        pool.add(new int[] {1, -2, 3});
+        pool.add(null);
+        assertEquals(1, pool.size());
+        assertTrue(pool.satisfies(new int[] {1, 3}));
+        assertFalse(pool.satisfies(new int[] {2}));
+        assertFalse(pool.satisfies(new int[] {4}));
+
+        pool.add(new int[] {-1, 2, 3});
+        assertTrue(pool.satisfies(new int[] {1})); // the first model is used last, so it is kept
+        pool.add(new int[] {-1, -2, -3});
+        assertTrue(pool.satisfies(new int[] {1}));
+        assertFalse(pool.satisfies(new int[] {2}));
+        assertEquals(3, pool.getHits());
+        assertThrows(IllegalArgumentException.class, () -> new ModelPool(0));
+    }
+
+    @Test
+    void keepsModelsOfNewEquations() {
+        ModelPool pool = new ModelPool(4);
+        pool.add(new int[] {1, -2, 3});
+        pool.add(new int[] {-1, 2, -3});
+        pool.add(new int[] {1, 2});
+        pool.retainConsistent(new int[][][] {
+                {{1, 2}, {1}}, // holds in the first two models
+                {{2, 3}, {1}}, // 3 is not in the last model
+                {{4, 5}, {2}}  // over none of their variables
+        });
+        assertEquals(2, pool.size());
+        assertTrue(pool.satisfies(new int[] {3}));
+        assertTrue(pool.satisfies(new int[] {-3}));
+        assertFalse(pool.satisfies(new int[] {1, 2}));
+    }
+
+    @Test
+    void backendModels() {
+        for (SatBackend backend : new SatBackend[] {new Sat4jBackend(), new Sat4jBackend(true), new LogicNGBackend(),
+                new PortfolioBackend(new Sat4jBackend(), new LogicNGBackend())}) {
+            backend.addHintFormula(new int[][] {{33, 64}, {-33, -64}}, SatBackend.NormalForm.CNF);
+            backend.addHintFormula(new int[][] {{64, 95}, {1}}, SatBackend.NormalForm.CARDINALITY);
+            backend.addHintFormula(new int[][] {{-95, 126}, {95, -126}}, SatBackend.NormalForm.DNF);
+            assertEquals(SatBackend.Result.SAT, backend.solve(new int[] {33}, Long.MAX_VALUE, Long.MAX_VALUE));
+            int[] model = backend.getModel();
+            Arrays.sort(model);
+            assertArrayEquals(new int[] {-126, -64, 33, 95}, model, backend.getName());
+
+            assertEquals(SatBackend.Result.UNSAT, backend.solve(new int[] {33, -95}, Long.MAX_VALUE, Long.MAX_VALUE));
+            assertNull(backend.getModel(), backend.getName());
+            backend.solve(new int[] {-33}, Long.MAX_VALUE, Long.MAX_VALUE);
+            backend.addHintFormula(new int[][] {{157}}, SatBackend.NormalForm.CNF);
+            assertNull(backend.getModel(), backend.getName());
+        }
+    }
+
+    @Test
+    void samePlayWithFewerQueries() {
+        for (String agent : new String[] {"P3", "P4", "P5"}) {
+            for (boolean merge : new boolean[] {true, false}) {
+                for (World world : new World[] {World.MEDIUM5, World.LARGE3, World.LARGE6}) {
+                    Map<String, String> options = new HashMap<>();
+                    options.put("merge", String.valueOf(merge));
+                    options.put("linear", "false");
+                    options.put("enumerate", "0");
+                    Game solved = new Game(world);
+                    LogicalPlayer solvedPlayer = (LogicalPlayer) A2main.createPlayer(agent, solved, false, options);
+                    solvedPlayer.play();
+
+                    options.put("pool", "8");
+                    Game pooled = new Game(world);
+                    LogicalPlayer pooledPlayer = (LogicalPlayer) A2main.createPlayer(agent, pooled, false, options);
+                    pooledPlayer.play();
+                    String message = agent + " " + merge + " " + world;
+                    assertArrayEquals(solved.getStartMap(), pooled.getStartMap(), message);
+                    assertEquals(solved.hasWon(), pooled.hasWon(), message);
+                    SolverStats stats = pooledPlayer.getStats();
+                    assertEquals(solvedPlayer.getStats().getQueries(),
+                            stats.getQueries() + stats.getPooledRefutations(), message);
+                    assertTrue(stats.getPooledRefutations() > 0, message);
+                }
+            }
+        }
+    }
+}
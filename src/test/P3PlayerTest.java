@@ -26,24 +26,61 @@ class P3PlayerTest {
         Coord[] cells = new Coord[] {c1, c2};
         int k = 0;
         int[][] formula = player.existKMines(k, cells);
-        int[] clause = new int[] {-c1.hashCode(), -c2.hashCode()};
+        int[] clause = new int[] {-c1.literal(), -c2.literal()};
         assertEquals(1, formula.length);
         assertArrayEquals(clause, formula[0]);
 
         // k = cells.length
         int k2 = 2;
         int[][] formula2 = player.existKMines(k2, cells);
-        int[] clause2 = new int[] {c1.hashCode(), c2.hashCode()};
+        int[] clause2 = new int[] {c1.literal(), c2.literal()};
         assertEquals(1, formula2.length);
         assertArrayEquals(clause2, formula2[0]);
 
         // k < cells.length
         int k3 = 1;
         int[][] formula3 = player.existKMines(k3, cells);
-        int[] firstSafe = new int[] {-c1.hashCode(), c2.hashCode()};
-        int[] firstMine = new int[] {c1.hashCode(), -c2.hashCode()};
+        int[] firstSafe = new int[] {-c1.literal(), c2.literal()};
+        int[] firstMine = new int[] {c1.literal(), -c2.literal()};
         assertEquals(2, formula3.length);
         assertArrayEquals(new int[][] {firstSafe, firstMine}, formula3);
     }
 
+    @Test
+    void budget() {
+        Game large = new Game(World.LARGE3);
+        P3Player budgeted = new P3Player(large, false);
+        budgeted.setBudget(new SolverBudget(0, 1, 0, 0)); // 1 conflict per query
+        budgeted.setEnumerationLimit(0); // every cell the linear equations leave is queried
+        budgeted.play();
+        assertTrue(large.hasEnded());
+        assertTrue(budgeted.getStats().getExhaustedQueries() > 0);
+        assertFalse(budgeted.getStats().isGameExhausted());
+
+        Game unlimited = new Game(World.LARGE3);
+        P3Player player = new P3Player(unlimited, false);
+        player.setEnumerationLimit(0);
+        player.play();
+        assertEquals(0, player.getStats().getExhaustedQueries());
+        assertTrue(player.getStats().getQueries() > 0);
+    }
+
+    @Test
+    void mergedVariables() {
+        assertFalse(player.isMergeVariables()); // the DNF hint formulas are given to the backend by default
+
+        Game unmerged = new Game(World.LARGE3);
+        P3Player unmergedPlayer = new P3Player(unmerged, false);
+        unmergedPlayer.setEnumerationLimit(0);
+        unmergedPlayer.play();
+
+        Game merged = new Game(World.LARGE3);
+        P3Player mergedPlayer = new P3Player(merged, false);
+        mergedPlayer.setEnumerationLimit(0);
+        mergedPlayer.setMergeVariables(true);
+        mergedPlayer.play();
+        assertArrayEquals(unmerged.getStartMap(), merged.getStartMap());
+        assertTrue(mergedPlayer.getStats().getMergedDeductions() > 0);
+    }
+
 }
\ No newline at end of file
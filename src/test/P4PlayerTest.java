@@ -3,7 +3,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class P4PlayerTest {
 
@@ -33,14 +35,27 @@ class P4PlayerTest {
         // k = cells.length -1
         int k3 = 1;
         int[][] formula3 = player.atMostKMines(k3, cells);
-        int[] clause = new int[] {-c1.hashCode(), -c2.hashCode()};
+        int[] clause = new int[] {-c1.literal(), -c2.literal()};
         assertArrayEquals(new int[][] {clause}, formula3);
         // k < cells.length -1
         int k4 = 0;
         int[][] formula4 = player.atMostKMines(k4, cells);
-        int[] firstNot = new int[] {-c2.hashCode()};
-        int[] firstIs = new int[] {-c1.hashCode()};
+        int[] firstNot = new int[] {-c2.literal()};
+        int[] firstIs = new int[] {-c1.literal()};
         assertArrayEquals(new int[][] {firstNot, firstIs}, formula4);
 
     }
+
+    @Test
+    void backends() {
+        for (World w : new World[] {World.TEST3, World.MEDIUM3, World.LARGE3}) {
+            Game sat4jGame = new Game(w);
+            new P4Player(sat4jGame, false, new Sat4jBackend()).play();
+            Game logicNGGame = new Game(w);
+            new P4Player(logicNGGame, false, new LogicNGBackend()).play();
+            assertArrayEquals(sat4jGame.getStartMap(), logicNGGame.getStartMap());
+        }
+        assertThrows(IllegalArgumentException.class, () -> SatBackends.create("minisat", new HashMap<>()));
+        assertEquals("logicng", SatBackends.create("main.LogicNGBackend", new HashMap<>()).getName());
+    }
 }
\ No newline at end of file
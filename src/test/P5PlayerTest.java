@@ -0,0 +1,38 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class P5PlayerTest {
+
+    @Test
+    void existKMines() {
+        P5Player player = new P5Player(new Game(World.TEST1), false);
+        Coord c1 = new Coord(0,0);
+        Coord c2 = new Coord(0,1);
+        int[][] formula = player.existKMines(1, new Coord[] {c1, c2});
+        assertArrayEquals(new int[][] {{c1.literal(), c2.literal()}, {1}}, formula);
+    }
+
+    @Test
+    void backends() {
+        for (World w : new World[] {World.TEST3, World.MEDIUM3, World.LARGE3, World.LARGE6}) {
+            Game pbGame = new Game(w);
+            new P5Player(pbGame, false).play();
+            Game logicNGGame = new Game(w);
+            new P5Player(logicNGGame, false, new LogicNGBackend()).play();
+            assertArrayEquals(pbGame.getStartMap(), logicNGGame.getStartMap());
+        }
+    }
+
+    @Test
+    void globalMineCount() {
+        // the hints alone leave SMALL3 unfinished, the mine count finishes it
+        Game p4Game = new Game(World.SMALL3);
+        new P4Player(p4Game, false).play();
+        assertFalse(p4Game.hasWon());
+        Game p5Game = new Game(World.SMALL3);
+        new P5Player(p5Game, false).play();
+        assertTrue(p5Game.hasWon());
+    }
+}
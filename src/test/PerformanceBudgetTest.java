@@ -0,0 +1,222 @@
+import main.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plays every agent on every World and on generated boards, and compares the work done with the budgets
+ * of test/performance-budgets.txt, so that a change to the solvers cannot make them slower unnoticed.
+ *
+ * Queries and clauses are deterministic and must match their budget exactly: a change in either fails with the
+ * list of every changed count, and an improvement is kept by updating the file. Allocated bytes vary a little
+ * between runs, so their budget is a ceiling with headroom.
+ * Run with -Dbudgets.update=true to write the measured counts to the file instead of checking them.
+ */
+class PerformanceBudgetTest {
+
+    private static final Path BUDGETS = Paths.get("test", "performance-budgets.txt");
+    /**
+     * Agents measured, a /sat suffix turning off the linear equations and the enumeration so that every cell is queried
+     */
+    private static final String[] AGENTS = {"P1", "P2", "P3", "P4", "P5", "P3/sat", "P4/sat", "P5/sat"};
+    private static final int GENERATED_BOARDS = 3;
+    private static final int GENERATED_SIZE = 24;
+    private static final double GENERATED_DENSITY = 0.15;
+    /**
+     * Allocated kilobytes budget written by an update: the allocation measured times the headroom, plus the slack
+     */
+    private static final double ALLOCATION_HEADROOM = 2.0;
+    private static final long ALLOCATION_SLACK = 64;
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    /**
+     * Counts every clause given to a backend, including those dropped by a reset.
+     */
+    static class CountingBackend implements SatBackend {
+        private final SatBackend backend;
+        private long resetClauses = 0;
+
+        CountingBackend(SatBackend backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        public void addHintFormula(int[][] hintFormula, NormalForm form) {
+            backend.addHintFormula(hintFormula, form);
+        }
+
+        @Override
+        public Result solve(int[] assumptions, long millis, long maxConflicts) {
+            return backend.solve(assumptions, millis, maxConflicts);
+        }
+
+        @Override
+        public Result solve(int[] assumptions, long millis, long maxConflicts, BooleanSupplier cancelled) {
+            return backend.solve(assumptions, millis, maxConflicts, cancelled);
+        }
+
+        @Override
+        public void reset() {
+            resetClauses += backend.getClauseCount();
+            backend.reset();
+        }
+
+        @Override
+        public long getLastConflicts() {
+            return backend.getLastConflicts();
+        }
+
+        @Override
+        public long getClauseCount() {
+            return backend.getClauseCount();
+        }
+
+        @Override
+        public String getName() {
+            return backend.getName();
+        }
+
+        @Override
+        public String getLastEngine() {
+            return backend.getLastEngine();
+        }
+
+        long getTotalClauseCount() {
+            return resetClauses + backend.getClauseCount();
+        }
+    }
+
+    /**
+     * Work done by an agent on a board: queries, clauses and allocated kilobytes
+     */
+    private static long[] measure(String agent, char[][] board) {
+        Game game = new Game(board);
+        CountingBackend backend = null;
+        Player player;
+        switch (agent.replace("/sat", "")) {
+            case "P3":
+                backend = new CountingBackend(new LogicNGBackend());
+                player = new P3Player(game, false, backend);
+                break;
+            case "P4":
+                backend = new CountingBackend(new Sat4jBackend());
+                player = new P4Player(game, false, backend);
+                break;
+            case "P5":
+                backend = new CountingBackend(SatBackends.create("sat4j-pb", new HashMap<>()));
+                player = new P5Player(game, false, backend);
+                break;
+            default:
+                player = A2main.createPlayer(agent, game, false, new HashMap<>());
+        }
+        if (agent.endsWith("/sat")) {
+            ((LogicalPlayer) player).setLinearTier(false);
+            ((LogicalPlayer) player).setEnumerationLimit(0);
+        }
+        long thread = Thread.currentThread().getId();
+        long allocated = THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(thread);
+        player.play();
+        allocated = THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(thread) - allocated;
+
+        long queries = player instanceof LogicalPlayer ? ((LogicalPlayer) player).getStats().getQueries() : 0;
+        long clauses = backend == null ? 0 : backend.getTotalClauseCount();
+        return new long[] {queries, clauses, (allocated + 1023) / 1024};
+    }
+
+    /**
+     * @return the allocation counter of the JVM, or null if it does not count allocations
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the boards measured, by name: the worlds, then the generated boards
+     */
+    private static Map<String, char[][]> boards() {
+        Map<String, char[][]> boards = new LinkedHashMap<>();
+        for (World world : World.values()) {
+            boards.put(world.name(), world.getMap());
+        }
+        for (int seed = 1; seed <= GENERATED_BOARDS; seed++) {
+            boards.put("RANDOM" + GENERATED_SIZE + "_" + seed, Boards.random(GENERATED_SIZE, GENERATED_DENSITY, seed));
+        }
+        return boards;
+    }
+
+    @BeforeAll
+    static void warmUp() {
+        // the classes loaded by the first game of each agent are not allocated by later games
+        for (String agent : AGENTS) {
+            measure(agent, World.TEST1.getMap());
+        }
+    }
+
+    @Test
+    void withinBudgets() throws IOException {
+        Map<String, long[]> measured = new LinkedHashMap<>();
+        for (Map.Entry<String, char[][]> board : boards().entrySet()) {
+            for (String agent : AGENTS) {
+                measured.put(agent + " " + board.getKey(), measure(agent, board.getValue()));
+            }
+        }
+
+        if (Boolean.getBoolean("budgets.update")) {
+            List<String> lines = new ArrayList<>();
+            lines.add("# agent board queries clauses allocatedKB, written by PerformanceBudgetTest");
+            measured.forEach((key, counts) -> lines.add(key + " " + counts[0] + " " + counts[1] + " "
+                    + ((long) Math.ceil(counts[2] * ALLOCATION_HEADROOM) + ALLOCATION_SLACK)));
+            Files.write(BUDGETS, lines);
+            return;
+        }
+
+        Map<String, long[]> budgets = new HashMap<>();
+        for (String line : Files.readAllLines(BUDGETS)) {
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                String[] fields = line.split(" ");
+                budgets.put(fields[0] + " " + fields[1], new long[] {
+                        Long.parseLong(fields[2]), Long.parseLong(fields[3]), Long.parseLong(fields[4])});
+            }
+        }
+        List<String> diff = new ArrayList<>();
+        measured.forEach((key, counts) -> {
+            long[] budget = budgets.remove(key);
+            if (budget == null) {
+                diff.add(key + ": no budget");
+                return;
+            }
+            String[] names = {"queries", "clauses", "allocatedKB"};
+            for (int i = 0; i < names.length; i++) {
+                boolean exceeded = i == 2 ? THREADS != null && counts[i] > budget[i] : counts[i] != budget[i];
+                if (exceeded) {
+                    diff.add(String.format("%s %s: budget %d, measured %d (%+d)",
+                            key, names[i], budget[i], counts[i], counts[i] - budget[i]));
+                }
+            }
+        });
+        budgets.keySet().forEach(key -> diff.add(key + ": budget of a board or agent not measured"));
+        assertTrue(diff.isEmpty(), () -> "Counts changed, update " + BUDGETS + " with -Dbudgets.update=true"
+                + " if the change is intended:\n" + String.join("\n", diff));
+    }
+}
@@ -43,6 +43,28 @@ class PlayerTest {
 
     }
 
+    @Test
+    void rollback() {
+        int safeCount = game.getSafeCount();
+        player.snapshot();
+        player.probe(0, 0); // expands 11 cells
+        player.markMine(new Coord(3, 1));
+        assertEquals(safeCount - 11, game.getSafeCount());
+
+        player.rollback();
+        assertEquals(safeCount, game.getSafeCount());
+        assertEquals(0, player.getAllCoveredCells().length - game.getCoveredCount());
+        assertEquals('?', player.getViewOn(new Coord(0, 0)));
+        assertEquals('?', player.getViewOn(new Coord(3, 1)));
+
+        // released changes are kept
+        player.snapshot();
+        player.probe(0, 0);
+        player.release();
+        assertEquals(safeCount - 11, game.getSafeCount());
+        assertEquals('0', player.getViewOn(new Coord(0, 0)));
+    }
+
     @Test
     void markMine() {
         // mark covered cell
@@ -0,0 +1,108 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioBackendTest {
+
+    /**
+     * Never answers until it is cancelled
+     */
+    static class StuckBackend implements SatBackend {
+        boolean cancelled = false;
+
+        @Override
+        public void addHintFormula(int[][] hintFormula, NormalForm form) {
+        }
+
+        @Override
+        public Result solve(int[] assumptions, long millis, long maxConflicts) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Result solve(int[] assumptions, long millis, long maxConflicts, BooleanSupplier cancelled) {
+            while (!cancelled.getAsBoolean()) {
+                Thread.onSpinWait();
+            }
+            this.cancelled = true;
+            return Result.UNKNOWN;
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public long getLastConflicts() {
+            return 0;
+        }
+
+        @Override
+        public long getClauseCount() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "stuck";
+        }
+    }
+
+    @Test
+    void race() {
+        StuckBackend stuck = new StuckBackend();
+        PortfolioBackend portfolio = new PortfolioBackend(stuck, new Sat4jBackend());
+        portfolio.addHintFormula(new int[][] {{1}, {2}}, SatBackend.NormalForm.CNF);
+        assertEquals(SatBackend.Result.UNSAT, portfolio.solve(new int[] {-1}, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals("sat4j", portfolio.getLastEngine());
+        assertTrue(stuck.cancelled);
+        assertEquals(SatBackend.Result.SAT, portfolio.solve(new int[] {2}, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertEquals("portfolio(stuck,sat4j)", portfolio.getName());
+    }
+
+    @Test
+    void failure() {
+        StuckBackend stuck = new StuckBackend();
+        StuckBackend failing = new StuckBackend() {
+            @Override
+            public Result solve(int[] assumptions, long millis, long maxConflicts, BooleanSupplier cancelled) {
+                throw new ArithmeticException("failed");
+            }
+        };
+        PortfolioBackend portfolio = new PortfolioBackend(stuck, failing);
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> portfolio.solve(new int[] {1}, Long.MAX_VALUE, Long.MAX_VALUE));
+        assertInstanceOf(ArithmeticException.class, e.getCause());
+        assertTrue(stuck.cancelled); // stopped and joined before the failure is thrown
+        assertNull(portfolio.getModel());
+    }
+
+    @Test
+    void play() {
+        Map<String, String> options = new HashMap<>();
+        options.put("portfolio", "sat4j,logicng:TSEITIN,logicng");
+        for (World w : new World[] {World.TEST3, World.MEDIUM3}) {
+            Game portfolioGame = new Game(w);
+            P4Player portfolioPlayer = new P4Player(portfolioGame, false, SatBackends.create("portfolio", options));
+            portfolioPlayer.setEnumerationLimit(0);
+            portfolioPlayer.play();
+            Game game = new Game(w);
+            new P4Player(game, false).play();
+            assertArrayEquals(game.getStartMap(), portfolioGame.getStartMap());
+            long queries = 0;
+            for (long[] counts : portfolioPlayer.getStats().getEngineQueries().values()) {
+                for (long count : counts) {
+                    queries += count;
+                }
+            }
+            assertEquals(portfolioPlayer.getStats().getQueries(), queries);
+        }
+        options.put("portfolio", "sat4j,portfolio");
+        assertThrows(IllegalArgumentException.class, () -> SatBackends.create("portfolio", options));
+    }
+}
@@ -0,0 +1,117 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionPlayerTest {
+
+    private static RegionPlayer regionPlayer(Game game, String agent, int regionSize, int threads) {
+        LogicalPlayer encoding = agent.equals("P3") ? new P3Player(game, false, new LogicNGBackend())
+                : new P4Player(game, false, new Sat4jBackend());
+        return new RegionPlayer(game, false, encoding,
+                agent.equals("P3") ? LogicNGBackend::new : Sat4jBackend::new, regionSize, threads);
+    }
+
+    @Test
+    void worlds() {
+        for (World world : World.values()) {
+            for (String agent : new String[] {"P3", "P4"}) {
+                Game game = new Game(world);
+                regionPlayer(game, agent, 3, 2).play();
+                assertFalse(game.hasLost(), agent + " " + world);
+                assertTrue(game.hasEnded(), agent + " " + world);
+            }
+        }
+    }
+
+    @Test
+    void sameGameForAnyThreads() {
+        char[][] map = Boards.random(60, 0.15, 7);
+        Game single = new Game(map);
+        regionPlayer(single, "P4", 8, 1).play();
+        Game parallel = new Game(map);
+        regionPlayer(parallel, "P4", 8, 4).play();
+
+        assertFalse(single.hasLost());
+        assertArrayEquals(single.getStartMap(), parallel.getStartMap());
+        assertEquals(single.getCoveredCount(), parallel.getCoveredCount());
+        assertTrue(single.getCoveredCount() < 60 * 60 / 2);
+    }
+
+    @Test
+    void queriesWithoutEnumeration() {
+        char[][] map = Boards.random(30, 0.15, 11);
+        Game tiered = new Game(map);
+        regionPlayer(tiered, "P4", 6, 2).play();
+        Game game = new Game(map);
+        LogicalPlayer encoding = new P4Player(game, false, new Sat4jBackend());
+        encoding.setEnumerationLimit(0);
+        encoding.setLinearTier(false);
+        RegionPlayer queried = new RegionPlayer(game, false, encoding, Sat4jBackend::new, 6, 2);
+        queried.play();
+
+        // the tiers decide the same cells as the backend
+        assertArrayEquals(tiered.getStartMap(), game.getStartMap());
+        assertEquals(0, queried.getStats().getEnumeratedDeductions());
+        assertTrue(queried.getStats().getQueries() > 0);
+    }
+
+    @Test
+    void budget() {
+        char[][] map = Boards.random(30, 0.15, 11);
+        Game game = new Game(map);
+        LogicalPlayer encoding = new P4Player(game, false, new Sat4jBackend());
+        encoding.setEnumerationLimit(0);
+        encoding.setLinearTier(false);
+        encoding.setBudget(new SolverBudget(0, 0, 0, 1)); // 1 conflict for the whole game
+        RegionPlayer budgeted = new RegionPlayer(game, false, encoding, Sat4jBackend::new, 6, 2);
+        budgeted.play();
+
+        assertFalse(game.hasLost());
+        assertTrue(game.hasEnded());
+        assertTrue(budgeted.getStats().getExhaustedQueries() > 0);
+        assertTrue(budgeted.getStats().isGameExhausted());
+    }
+
+    /**
+     * A corridor of 3 rows along the top left, walled off by blocked cells, with a mine at (3, 1) that the first
+     * columns of hints leave to be deduced. The cells beside it are then probed and open the rest of the board,
+     * which has no mine, in a single zero cascade. The middle cell is walled off so that it opens nothing.
+     */
+    private static char[][] corridor(int n) {
+        char[][] map = new char[n][n];
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                boolean wall = x < 8 && y >= 3 || Math.max(Math.abs(x - n / 2), Math.abs(y - n / 2)) == 1;
+                boolean nearMine = Math.abs(x - 3) <= 1 && Math.abs(y - 1) <= 1;
+                map[y][x] = wall ? 'b' : x == 3 && y == 1 ? 'm' : nearMine ? '1' : '0';
+            }
+        }
+        return map;
+    }
+
+    @Test
+    void deepCascade() {
+        Game game = new Game(corridor(400));
+        regionPlayer(game, "P4", 8, 2).play();
+        assertTrue(game.hasWon());
+    }
+
+    @Test
+    void createdByOption() {
+        Map<String, String> options = new HashMap<>();
+        options.put("regionSize", "4");
+        options.put("regionThreads", "2");
+        Game game = new Game(World.LARGE3);
+        Player player = A2main.createPlayer("P5", game, false, options);
+        assertInstanceOf(RegionPlayer.class, player);
+        player.play();
+        assertFalse(game.hasLost());
+
+        options.put("regionSize", String.valueOf(RegionPlayer.MAX_REGION_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> A2main.createPlayer("P4", new Game(World.LARGE3), false, options));
+    }
+}
@@ -0,0 +1,148 @@
+import main.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteGameTest {
+
+    private GameServer server;
+    private String address;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new GameServer(0);
+        address = "localhost:" + server.getPort();
+        Thread thread = new Thread(server::run);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void samePlayAsLocal() throws IOException {
+        Map<String, String> options = new HashMap<>();
+        options.put("remote", address);
+        for (World world : World.values()) {
+            for (String agent : new String[] {"P2", "P4"}) {
+                Game local = new Game(world);
+                A2main.createPlayer(agent, local, false, new HashMap<>()).play();
+
+                RemoteGame remote = (RemoteGame) A2main.createGame(world, null, options);
+                try {
+                    A2main.createPlayer(agent, remote, false, options).play();
+                } finally {
+                    A2main.closeGame(remote);
+                }
+                assertArrayEquals(local.getStartMap(), remote.getStartMap(), agent + " " + world);
+                assertEquals(local.getSafeCount(), remote.getSafeCount(), agent + " " + world);
+                assertEquals(local.getCoveredCount(), remote.getCoveredCount(), agent + " " + world);
+                assertEquals(local.hasEnded(), remote.hasEnded(), agent + " " + world);
+            }
+        }
+    }
+
+    @Test
+    void cascadeInOneRoundTrip() throws IOException {
+        // the probe of the top left 0 uncovers every cell but the mine
+        char[][] board = {
+                {'0', '0', '0', '0'},
+                {'0', '0', '0', '0'},
+                {'0', '0', '1', '1'},
+                {'0', '0', '1', 'm'}};
+        try (RemoteGame game = RemoteGame.connect("localhost", server.getPort(), board)) {
+            P2Player player = new P2Player(game, false);
+            assertTrue(player.probe(Coord.of(0, 0)));
+            assertEquals(2, game.getRoundTrips());
+            assertEquals(0, game.getSafeCount());
+            assertEquals(1, game.getCoveredCount());
+            assertEquals('?', player.getViewOn(Coord.of(3, 3)));
+        }
+    }
+
+    @Test
+    void batchedProbes() throws IOException {
+        char[][] board = {
+                {'1', 'm', '1'},
+                {'1', '1', '1'},
+                {'0', '0', '0'}};
+        try (RemoteGame game = RemoteGame.connect("localhost", server.getPort(), board)) {
+            P2Player player = new P2Player(game, false);
+            assertEquals(2, player.probe(new Coord[] {Coord.of(0, 0), Coord.of(2, 0), Coord.of(0, 0)}));
+            assertEquals(2, game.getRoundTrips());
+            player.markMine(Coord.of(1, 0)); // sent with the next probe
+            assertEquals(1, player.probe(new Coord[] {Coord.of(0, 2)}));
+            assertEquals(3, game.getRoundTrips());
+            assertTrue(game.hasWon());
+            assertEquals(0, game.getCoveredCount());
+        }
+    }
+
+    @Test
+    void refused() throws IOException {
+        char[][] notSquare = {{'0', '0'}};
+        assertThrows(IllegalArgumentException.class, () -> RemoteGame.connect("localhost", server.getPort(), notSquare));
+
+        // the board is not known to the client, so the game can only be traced on the server
+        Map<String, String> options = new HashMap<>();
+        options.put("trace", "remote.trace");
+        try (RemoteGame game = RemoteGame.connect("localhost", server.getPort(), World.TEST1)) {
+            assertThrows(UnsupportedOperationException.class, () -> A2main.createPlayer("P2", game, false, options));
+            assertThrows(UnsupportedOperationException.class,
+                    () -> new Checkpoint(Paths.get("remote.checkpoint"), game, "P2", 1));
+            assertFalse(Files.exists(Paths.get("remote.checkpoint")));
+        }
+    }
+
+    @Test
+    void boardTooLarge() throws IOException {
+        char[][] board = new char[GameServer.MAX_SIZE + 1][0];
+        assertThrows(IllegalArgumentException.class, () -> RemoteGame.connect("localhost", server.getPort(), board));
+
+        // the server answers the size with an error, without reading or allocating the board
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(GameServer.MAGIC);
+            out.writeShort(GameServer.VERSION);
+            out.writeByte(GameServer.OPEN_BOARD);
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            assertEquals(1, in.readByte());
+            assertTrue(in.readUTF().contains(String.valueOf(GameServer.MAX_SIZE)));
+            assertEquals(-1, in.read()); // the connection is closed
+        }
+    }
+
+    @Test
+    void boundedConnections() throws IOException {
+        try (GameServer single = new GameServer(0, 1)) {
+            Thread thread = new Thread(single::run);
+            thread.setDaemon(true);
+            thread.start();
+            try (RemoteGame game = RemoteGame.connect("localhost", single.getPort(), World.TEST1)) {
+                A2main.createPlayer("P2", game, false, new HashMap<>()).play();
+            }
+            // served once the first connection has ended
+            try (RemoteGame game = RemoteGame.connect("localhost", single.getPort(), World.TEST1)) {
+                A2main.createPlayer("P2", game, false, new HashMap<>()).play();
+                assertTrue(game.hasEnded());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new GameServer(0, 0));
+    }
+}
@@ -0,0 +1,68 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingPlayerTest {
+
+    @TempDir
+    Path dir;
+
+    private static StreamingPlayer streamingPlayer(Game game, int bandHeight, Path output) {
+        return new StreamingPlayer(game, false, new P4Player(game, false, new Sat4jBackend()), Sat4jBackend::new,
+                bandHeight, output);
+    }
+
+    @Test
+    void worlds() {
+        for (World world : World.values()) {
+            Game game = new Game(world);
+            streamingPlayer(game, 3, null).play();
+            assertFalse(game.hasLost(), world.toString());
+            assertTrue(game.hasEnded(), world.toString());
+        }
+    }
+
+    @Test
+    void streamsFinalView() throws IOException {
+        char[][] map = Boards.random(60, 0.15, 7);
+        Path output = dir.resolve("view.txt");
+        Game game = new Game(map);
+        StreamingPlayer player = streamingPlayer(game, 8, output);
+        player.play();
+
+        assertFalse(game.hasLost());
+        List<String> rows = Files.readAllLines(output);
+        assertEquals(60, rows.size());
+        for (int y = 0; y < 60; y++) {
+            assertEquals(new String(game.getStartMap()[y]), rows.get(y), "row " + y);
+        }
+        // rows were finished and written while the game was played
+        assertTrue(player.getEvictedRows() > 0);
+        for (int y = 0; y < player.getEvictedRows(); y++) {
+            assertEquals(-1, rows.get(y).indexOf('?'), "row " + y);
+        }
+    }
+
+    @Test
+    void decidesAsManyCellsAsRegions() {
+        char[][] map = Boards.random(60, 0.15, 7);
+        Game streamed = new Game(map);
+        streamingPlayer(streamed, 8, null).play();
+        Game tiled = new Game(map);
+        new RegionPlayer(tiled, false, new P4Player(tiled, false, new Sat4jBackend()), Sat4jBackend::new, 8, 1)
+                .play();
+
+        assertFalse(streamed.hasLost());
+        assertTrue(streamed.getCoveredCount() <= tiled.getCoveredCount(),
+                streamed.getCoveredCount() + " " + tiled.getCoveredCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> streamingPlayer(new Game(map), RegionPlayer.MAX_REGION_SIZE + 1, null));
+    }
+}
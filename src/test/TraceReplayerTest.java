@@ -0,0 +1,67 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceReplayerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replay() throws IOException {
+        for (String agent : new String[] {"P2", "P4"}) {
+            Path file = dir.resolve(agent + ".trace");
+            Map<String, String> options = new HashMap<>();
+            options.put("trace", file.toString());
+            options.put("enumerate", "0");
+            Game game = new Game(World.MEDIUM3);
+            Player player = A2main.createPlayer(agent, game, false, options);
+            player.play();
+            game.getTrace().close();
+
+            TraceReplayer replayer = TraceReplayer.read(file);
+            assertArrayEquals(World.MEDIUM3.getMap(), replayer.getMap());
+            Game replayed = replayer.replay();
+            assertArrayEquals(game.getStartMap(), replayed.getStartMap());
+            assertEquals(game.getSafeCount(), replayed.getSafeCount());
+            assertEquals(game.getCoveredCount(), replayed.getCoveredCount());
+            assertEquals(game.hasEnded(), replayed.hasEnded());
+            assertTrue(replayer.getEvents().stream().anyMatch(e -> e.type == TraceRecorder.PASS));
+        }
+        // P4 records the queries of the cells left by the linear equations
+        TraceReplayer p4 = TraceReplayer.read(dir.resolve("P4.trace"));
+        assertTrue(p4.getEvents().stream().anyMatch(e -> e.type == TraceRecorder.QUERY));
+    }
+
+    @Test
+    void snapshots() throws IOException {
+        Path file = dir.resolve("snapshot.trace");
+        Game game = new Game(World.TEST1);
+        TraceRecorder trace = new TraceRecorder(file, game);
+        game.setTrace(trace);
+        P2Player player = new P2Player(game, false);
+        player.probe(0, 0);
+        player.snapshot();
+        player.probe(1, 1);
+        player.rollback();
+        trace.close();
+        Game replayed = TraceReplayer.read(file).replay();
+        assertArrayEquals(game.getStartMap(), replayed.getStartMap());
+        assertEquals(0, replayed.getSnapshotDepth());
+    }
+
+    @Test
+    void invalid() throws IOException {
+        Path file = dir.resolve("invalid.trace");
+        Files.write(file, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> TraceReplayer.read(file));
+    }
+}
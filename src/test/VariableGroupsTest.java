@@ -0,0 +1,82 @@
+import main.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableGroupsTest {
+
+    @Test
+    void groups() {
+        // cells 1, 2 and 3 are in both equations, 4 and 5 in the second only, 6 is known
+        int[][][] equations = {{{1, 2, 3, 6}, {2}}, {{1, 2, 3, 4, 5}, {2}}};
+        VariableGroups groups = new VariableGroups(equations, literal -> literal == 6 ? 1 : LinearSystem.UNKNOWN);
+        assertEquals(2, groups.getGroupCount());
+        assertEquals(groups.groupOf(1), groups.groupOf(3));
+        assertNotEquals(groups.groupOf(1), groups.groupOf(4));
+        assertEquals(3, groups.sizeOf(groups.groupOf(2)));
+        assertEquals(2, groups.sizeOf(groups.groupOf(5)));
+        assertEquals(-1, groups.groupOf(6));
+        assertEquals(5, groups.getVariableCount());
+        assertFalse(groups.isInconsistent());
+
+        // 1 mine left among 1, 2 and 3, so 1 among 4 and 5: no group is safe or full
+        Sat4jBackend backend = new Sat4jBackend();
+        groups.addTo(backend, SatBackend.NormalForm.CNF);
+        for (int group = 0; group < groups.getGroupCount(); group++) {
+            int size = groups.sizeOf(group);
+            assertEquals(SatBackend.Result.SAT, backend.solve(new int[] {groups.atLeast(group, 1)}, Long.MAX_VALUE, Long.MAX_VALUE));
+            assertEquals(SatBackend.Result.SAT, backend.solve(new int[] {-groups.atLeast(group, size)}, Long.MAX_VALUE, Long.MAX_VALUE));
+        }
+        int first = groups.groupOf(1);
+        assertEquals(SatBackend.Result.UNSAT, backend.solve(new int[] {groups.atLeast(first, 2)}, Long.MAX_VALUE, Long.MAX_VALUE));
+
+        assertTrue(new VariableGroups(equations, literal -> literal == 6 ? 0 : 1).isInconsistent());
+    }
+
+    @Test
+    void fewerClauses() {
+        // 8 cells in a single hint with 3 mines: C(8, 4) + C(8, 6) clauses per cell, 7 order clauses and 2 as a group
+        Coord[] cells = new Coord[8];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = Coord.of(i, 0);
+        }
+        P4Player encoding = new P4Player(new Game(World.LARGE1), false);
+        Sat4jBackend perCell = new Sat4jBackend();
+        perCell.addHintFormula(encoding.existKMines(3, cells), SatBackend.NormalForm.CNF);
+
+        Sat4jBackend merged = new Sat4jBackend();
+        VariableGroups groups = new VariableGroups(new int[][][] {{ClauseTemplates.literalsOf(cells), {3}}},
+                literal -> LinearSystem.UNKNOWN);
+        groups.addTo(merged, SatBackend.NormalForm.CNF);
+        assertEquals(1, groups.getGroupCount());
+        assertEquals(70 + 28, perCell.getClauseCount());
+        assertEquals(7 + 2, merged.getClauseCount());
+    }
+
+    private static LogicalPlayer player(String agent, Game game, boolean merge) {
+        LogicalPlayer player = agent.equals("P3") ? new P3Player(game, false)
+                : agent.equals("P4") ? new P4Player(game, false) : new P5Player(game, false);
+        player.setEnumerationLimit(0); // every cell is queried
+        player.setLinearTier(false);
+        player.setMergeVariables(merge);
+        return player;
+    }
+
+    @Test
+    void samePlay() {
+        for (World world : new World[] {World.MEDIUM5, World.LARGE1, World.LARGE3, World.LARGE6}) {
+            for (String agent : new String[] {"P3", "P4", "P5"}) {
+                Game mergedGame = new Game(world);
+                LogicalPlayer merged = player(agent, mergedGame, true);
+                merged.play();
+                Game perCellGame = new Game(world);
+                LogicalPlayer perCell = player(agent, perCellGame, false);
+                perCell.play();
+
+                assertArrayEquals(perCellGame.getStartMap(), mergedGame.getStartMap(), agent + " " + world);
+                assertEquals(perCellGame.getCoveredCount(), mergedGame.getCoveredCount(), agent + " " + world);
+                assertTrue(merged.getStats().getQueries() < perCell.getStats().getQueries(), agent + " " + world);
+            }
+        }
+    }
+}